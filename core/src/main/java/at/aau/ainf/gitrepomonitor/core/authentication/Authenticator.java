@@ -4,6 +4,7 @@ import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
 import at.aau.ainf.gitrepomonitor.core.git.SSLTransportConfigCallback;
 import org.eclipse.jgit.api.GitCommand;
 import org.eclipse.jgit.api.TransportCommand;
+import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
 import javax.naming.AuthenticationException;
@@ -16,6 +17,8 @@ import java.util.*;
 public class Authenticator {
     private UsernamePasswordCredentialsProvider cp;
     private SSLTransportConfigCallback ssl;
+    // releases the shared credentials (only set for leases of a CredentialVault)
+    private Runnable release;
 
     public Authenticator(UsernamePasswordCredentialsProvider cp) {
         this.cp = cp;
@@ -28,9 +31,21 @@ public class Authenticator {
     public Authenticator() {
     }
 
+    /**
+     * Create a lease sharing the credentials of another Authenticator.
+     * @param shared Authenticator owning the credentials
+     * @param release Called (once) when the lease is destroyed instead of clearing the credentials
+     */
+    Authenticator(Authenticator shared, Runnable release) {
+        this.cp = shared.cp;
+        this.ssl = shared.ssl;
+        this.release = release;
+    }
+
     /**
      * Get all available Authenticators for all provided RepositoryInformation objects.
      * The credentials are loaded using {@code masterPW}. If no MP is provided, the cached one is used.
+     * Repos sharing an AuthID get separate Authenticators sharing the same credentials (see {@link CredentialVault}).
      * If the MP is not cached and not provided, a {@link AuthenticationException} is thrown.
      * @param repos Repositories to get authenticators for.
      * @param masterPW Master Password
@@ -39,18 +54,19 @@ public class Authenticator {
      */
     public static Map<UUID, Authenticator> getFor(List<RepositoryInformation> repos, char[] masterPW,
                                                   SecureStorage secureStorage) throws AuthenticationException {
-        Map<UUID, Authenticator> authenticators = new HashMap<>();
-        Set<UUID> authIDs = new HashSet<>();
+        Map<UUID, UUID> authIDs = new HashMap<>();
         // get all required AuthIDs (repos can share AuthIDs)
         for (RepositoryInformation r : repos) {
             if (r.getAuthID() != null) {
-                authIDs.add(r.getAuthID());
+                authIDs.put(r.getID(), r.getAuthID());
             }
         }
-        // load authentication credentials
-        Map<UUID, AuthenticationCredentials> authInfoMap = secureStorage.get(masterPW, authIDs);
+        Map<UUID, Authenticator> authenticators = new HashMap<>();
+        if (!authIDs.isEmpty()) {
+            authenticators.putAll(secureStorage.getAuthenticators(masterPW, authIDs));
+        }
         for (RepositoryInformation r : repos) {
-            authenticators.put(r.getID(), convertToAuthenticator(authInfoMap.get(r.getAuthID())));
+            authenticators.putIfAbsent(r.getID(), new Authenticator());
         }
         return authenticators;
     }
@@ -84,7 +100,7 @@ public class Authenticator {
      * @param ac Authentication credentials
      * @return Authenticator wrapping provided auth credentials
      */
-    private static Authenticator convertToAuthenticator(AuthenticationCredentials ac) {
+    static Authenticator convertToAuthenticator(AuthenticationCredentials ac) {
         if (ac instanceof HttpsCredentials) {
             return new Authenticator(new UsernamePasswordCredentialsProvider(
                     ((HttpsCredentials) ac).getUsername(), ((HttpsCredentials) ac).getPassword()));
@@ -106,16 +122,9 @@ public class Authenticator {
     public static Authenticator get(UUID authId, char[] masterPW, SecureStorage secureStorage)
         throws AuthenticationException {
         if (authId != null) {
-            AuthenticationCredentials ai = secureStorage.get(masterPW, authId);
-            if (ai instanceof HttpsCredentials) {
-                return new Authenticator(new UsernamePasswordCredentialsProvider(
-                        ((HttpsCredentials) ai).getUsername(), ((HttpsCredentials) ai).getPassword()));
-            } else if (ai instanceof SslCredentials) {
-                return new Authenticator(new SSLTransportConfigCallback(
-                        ((SslCredentials) ai).getSslKeyPath(), ((SslCredentials) ai).getSslPassphrase()));
-            } else {
-                return new Authenticator();
-            }
+            Authenticator authenticator = secureStorage.getAuthenticators(masterPW,
+                    Collections.singletonMap(authId, authId)).get(authId);
+            return authenticator != null ? authenticator : new Authenticator();
         } else {
             return new Authenticator();
         }
@@ -137,6 +146,18 @@ public class Authenticator {
         }
     }
 
+    /**
+     * Add authentication credentials to a transport which is used directly (i.e. not via a command).
+     * @param transport Transport to add auth to.
+     */
+    public void configure(Transport transport) {
+        if (cp != null) {
+            transport.setCredentialsProvider(cp);
+        } else if (ssl != null) {
+            ssl.configure(transport);
+        }
+    }
+
     /**
      * Check if Authenticator has stored auth credentials.
      * @return True, if either HTTPS or SSL credentials are stored.
@@ -146,9 +167,17 @@ public class Authenticator {
     }
 
     /**
-     * Clear all stored credential information
+     * Clear all stored credential information.
+     * Leases of shared credentials are only released.
      */
     public void destroy() {
+        if (release != null) {
+            cp = null;
+            ssl = null;
+            release.run();
+            release = null;
+            return;
+        }
         if (cp != null) {
             cp.clear();
             cp = null;
@@ -0,0 +1,107 @@
+package at.aau.ainf.gitrepomonitor.core.authentication;
+
+import java.util.*;
+
+/**
+ * In-memory vault of decrypted credentials (as Authenticators) per auth ID.
+ * The vault hands out leases: every lease is a separate Authenticator sharing the credentials of the vault entry.
+ * Destroying a lease only releases it, the credentials of an entry are destroyed once the entry was evicted
+ * (e.g. when the master password cache is cleared) and all its leases were released.
+ */
+public class CredentialVault {
+
+    private final Map<UUID, Entry> entries;
+
+    public CredentialVault() {
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Get a lease of the credentials stored for the auth ID.
+     * @param authID Auth ID
+     * @return Lease, or null if no credentials are stored for the auth ID.
+     */
+    public synchronized Authenticator acquire(UUID authID) {
+        Entry entry = entries.get(authID);
+        return entry != null ? entry.lease() : null;
+    }
+
+    /**
+     * Add credentials and get leases of them.
+     * @param authID Auth ID
+     * @param authenticator Authenticator owning the credentials (must not be used by the caller afterwards)
+     * @param retain True, if the credentials should be kept in the vault. Otherwise, they are destroyed once
+     *               all returned leases are released.
+     * @param leaseCount Number of leases to get (at least one)
+     * @return Leases of the added credentials
+     */
+    public synchronized List<Authenticator> add(UUID authID, Authenticator authenticator, boolean retain, int leaseCount) {
+        Entry entry = new Entry(authenticator);
+        List<Authenticator> leases = new ArrayList<>();
+        for (int i = 0; i < leaseCount; i++) {
+            leases.add(entry.lease());
+        }
+        if (retain) {
+            evict(entries.put(authID, entry));
+        } else {
+            evict(entry);
+        }
+        return leases;
+    }
+
+    /**
+     * Evict the credentials of the auth ID (e.g. since they changed).
+     * @param authID Auth ID
+     */
+    public synchronized void invalidate(UUID authID) {
+        evict(entries.remove(authID));
+    }
+
+    /**
+     * Evict all credentials.
+     */
+    public synchronized void clear() {
+        entries.values().forEach(this::evict);
+        entries.clear();
+    }
+
+    /**
+     * @return Number of credentials kept in the vault.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict(Entry entry) {
+        if (entry != null) {
+            entry.isEvicted = true;
+            entry.destroyIfUnused();
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.refCount--;
+        entry.destroyIfUnused();
+    }
+
+    private class Entry {
+        private final Authenticator authenticator;
+        private int refCount;
+        private boolean isEvicted;
+
+        private Entry(Authenticator authenticator) {
+            this.authenticator = authenticator;
+        }
+
+        private Authenticator lease() {
+            refCount++;
+            return new Authenticator(authenticator, () -> release(this));
+        }
+
+        private void destroyIfUnused() {
+            if (isEvicted && refCount == 0) {
+                authenticator.destroy();
+            }
+        }
+    }
+}
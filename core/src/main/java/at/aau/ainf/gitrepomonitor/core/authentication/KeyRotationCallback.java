@@ -0,0 +1,9 @@
+package at.aau.ainf.gitrepomonitor.core.authentication;
+
+/**
+ * Callback for progress updates of a master password change.
+ * Called from the threads re-encrypting the credentials.
+ */
+public interface KeyRotationCallback {
+    void progress(int entriesDone, int entriesTotal);
+}
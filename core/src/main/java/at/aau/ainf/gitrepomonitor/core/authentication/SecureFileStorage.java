@@ -1,21 +1,35 @@
 package at.aau.ainf.gitrepomonitor.core.authentication;
 
+import at.aau.ainf.gitrepomonitor.core.files.AsyncExecutors;
 import at.aau.ainf.gitrepomonitor.core.files.FileManager;
 import at.aau.ainf.gitrepomonitor.core.files.Utils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
 import javax.naming.AuthenticationException;
+import java.security.GeneralSecurityException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 /**
  * File-based implementation of securely stored credentials manager.
+ * The MP_SET entry holds the wrapped data key, all other entries are encrypted under the data key.
+ * Stores using the legacy format are migrated once the correct master password is provided.
+ * Data keys wrapped using outdated KDF parameters are re-wrapped in the background once unlocked.
  */
 public class SecureFileStorage extends SecureStorage {
 
     private static SecureFileStorage instance;
+    // min. number of credentials to decrypt in parallel
+    private static final int PARALLEL_DECRYPT_THRESHOLD = 16;
+    private static final long KDF_UPGRADE_LOCK_TIMEOUT_MS = 1000;
 
     public static synchronized SecureFileStorage getInstance() {
         if (instance == null) {
@@ -25,6 +39,13 @@ public class SecureFileStorage extends SecureStorage {
     }
 
     protected FileManager fileManager;
+    // serializes the migration of legacy stores
+    private final Object lockMigration = new Object();
+    // executor for parallel decryption of many credentials (created on first use)
+    private Executor decryptExecutor;
+    // wrapped data key whose KDF parameters were checked last (null if not checked yet)
+    private volatile String checkedKeyEntry;
+    private final AtomicBoolean isKdfUpgradeRunning = new AtomicBoolean();
 
     protected SecureFileStorage() {
         super();
@@ -53,51 +74,123 @@ public class SecureFileStorage extends SecureStorage {
         }
         char[] hashedMP = Utils.sha3_256(masterPW);
         Utils.clearArray(masterPW);
-        // MP hash is stored encrypted under the same MP hash.
-        fileManager.storeAuthentication(new MasterPasswordAuthInfo(),
-                encrypt(new String(hashedMP), hashedMP));
+        calibrateKdf();
+        // new data key is stored wrapped by the MP hash
+        fileManager.storeAuthentication(new MasterPasswordAuthInfo(), wrapDataKey(generateDataKey(), hashedMP));
         Utils.clearArray(hashedMP);
     }
 
     @Override
-    public void updateMasterPassword(char[] currentMasterPW, char[] newMasterPW) throws AuthenticationException {
+    public void updateMasterPassword(char[] currentMasterPW, char[] newMasterPW, KeyRotationCallback cb) throws AuthenticationException {
         if (!isMasterPasswordSet()) {
             throw new AuthenticationException("master password was not set before");
         }
         char[] hashedCurrentPW = Utils.sha3_256(currentMasterPW);
         char[] hashedNewPW = Utils.sha3_256(newMasterPW);
 
-        if (!isMasterPasswordCorrect(hashedCurrentPW)) {
-            throw new AuthenticationException("wrong master password");
-        }
-
+        masterPasswordLock.writeLock().lock();
         try {
-            // re-keying of all stored credentials
-            Map<UUID, String> encValues = fileManager.getAllAuthenticationStrings(true);
-            for (UUID id : encValues.keySet()) {
-                String newEncValue;
-                // MP_SET requires separate handling as value must be the key
-                if (id.equals(MasterPasswordAuthInfo.ID)) {
-                    newEncValue = encrypt(new String(hashedNewPW), hashedNewPW);
-                } else {
-                    newEncValue = encrypt(decrypt(encValues.get(id), hashedCurrentPW), hashedNewPW);
+            // null for legacy stores, whose entries are encrypted using the master password
+            SecretKey currentKey = checkMasterPassword(hashedCurrentPW);
+            try {
+                // all entries are re-encrypted under a new data key, the old ciphertexts are kept until all
+                // new ones are written in a single transaction
+                SecretKey newKey = generateDataKey();
+                Map<UUID, String> storedValues = fileManager.getAllAuthenticationStrings();
+                Map<UUID, String> encValues = reEncryptAll(storedValues, currentKey, hashedCurrentPW, newKey, cb);
+                // an entry left under the old data key would be lost once the new data key is stored
+                if (!encValues.keySet().equals(storedValues.keySet())) {
+                    throw new GeneralSecurityException("not all entries were re-encrypted");
                 }
-                fileManager.updateAuthentication(id, newEncValue);
+                encValues.put(MasterPasswordAuthInfo.ID, wrapDataKey(newKey, hashedNewPW));
+                fileManager.updateAuthentications(encValues);
+            } catch (Exception ex) {
+                throw new AuthenticationException("error during key change");
             }
-        } catch (Exception ex) {
-            throw new AuthenticationException("error during key change");
-        }
 
-        Utils.clearArray(currentMasterPW);
-        Utils.clearArray(newMasterPW);
-        Utils.clearArray(hashedCurrentPW);
+            Utils.clearArray(currentMasterPW);
+            Utils.clearArray(newMasterPW);
+            Utils.clearArray(hashedCurrentPW);
 
-        cacheMasterPasswordIfEnabled(hashedNewPW);
+            cacheMasterPasswordIfEnabled(hashedNewPW);
+        } finally {
+            masterPasswordLock.writeLock().unlock();
+        }
         // reset mp clear mechanisms
         resetMPUseCount();
         restartMPExpirationTimer();
     }
 
+    /**
+     * Check the master password without migrating legacy stores.
+     * @param hashedMP Hash of master password.
+     * @return Data key, or null if the store uses the legacy format
+     * @throws AuthenticationException If the master password is wrong
+     */
+    private SecretKey checkMasterPassword(char[] hashedMP) throws AuthenticationException {
+        String keyEntry = fileManager.readAuthenticationString(MasterPasswordAuthInfo.ID);
+        if (isLegacyFormat(keyEntry)) {
+            if (!isLegacyMasterPasswordCorrect(keyEntry, hashedMP)) {
+                throw new AuthenticationException("wrong master password");
+            }
+            return null;
+        }
+        try {
+            return unwrapDataKey(keyEntry, hashedMP);
+        } catch (GeneralSecurityException ex) {
+            throw new AuthenticationException("wrong master password");
+        }
+    }
+
+    /**
+     * Re-encrypt entries under a new data key in parallel on the decryption executor.
+     * Nothing is written, the new ciphertexts are returned.
+     * @param encValues Encrypted values by ID
+     * @param currentKey Current data key (null for legacy stores)
+     * @param hashedMP Master password hash used for legacy entries
+     * @param newKey New data key
+     * @param cb Callback for progress updates (nullable)
+     * @return Re-encrypted values by ID
+     * @throws GeneralSecurityException If an entry cannot be decrypted
+     */
+    private Map<UUID, String> reEncryptAll(Map<UUID, String> encValues, SecretKey currentKey, char[] hashedMP,
+                                           SecretKey newKey, KeyRotationCallback cb) throws GeneralSecurityException {
+        Executor decryptExecutor = getDecryptExecutor();
+        int total = encValues.size();
+        AtomicInteger done = new AtomicInteger();
+        Map<UUID, CompletableFuture<String>> reEncryptions = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : encValues.entrySet()) {
+            reEncryptions.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (entry.getValue() == null) {
+                        throw new GeneralSecurityException("no value for entry " + entry.getKey());
+                    }
+                    String plaintext = decryptAnyFormat(entry.getKey(), entry.getValue(), currentKey, hashedMP);
+                    String reEncrypted = encryptEntry(plaintext, newKey, entry.getKey());
+                    if (cb != null) {
+                        cb.progress(done.incrementAndGet(), total);
+                    }
+                    return reEncrypted;
+                } catch (GeneralSecurityException ex) {
+                    throw new CompletionException(ex);
+                }
+            }, decryptExecutor));
+        }
+        Map<UUID, String> reEncrypted = new HashMap<>();
+        try {
+            for (Map.Entry<UUID, CompletableFuture<String>> reEncryption : reEncryptions.entrySet()) {
+                reEncrypted.put(reEncryption.getKey(), reEncryption.getValue().join());
+            }
+        } catch (CompletionException ex) {
+            reEncryptions.values().forEach(future -> future.cancel(false));
+            if (ex.getCause() instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) ex.getCause();
+            }
+            throw ex;
+        }
+        return reEncrypted;
+    }
+
     @Override
     public void store(char[] masterPW, AuthenticationCredentials authInfo) throws AuthenticationException {
         store(masterPW, Collections.singletonList(authInfo));
@@ -105,23 +198,24 @@ public class SecureFileStorage extends SecureStorage {
 
     @Override
     public void store(char[] masterPW, Collection<AuthenticationCredentials> authInfos) throws AuthenticationException {
-        synchronized (lockMasterPasswordReset) {
+        masterPasswordLock.readLock().lock();
+        try {
             masterPW = getCachedMasterPasswordHashIfPossible(masterPW);
+            SecretKey dataKey = unlock(masterPW);
 
-            if (!isMasterPasswordCorrect(masterPW)) {
-                throw new AuthenticationException("wrong master password");
-            }
             // encrypt and store all credentials
             for (AuthenticationCredentials authInfo : authInfos) {
-                String encString = getEncryptedString(authInfo, masterPW);
+                String encString = getEncryptedString(authInfo, dataKey);
                 fileManager.storeAuthentication(authInfo, encString);
                 authInfo.destroy();
             }
 
             cacheMasterPasswordIfEnabled(masterPW);
             Utils.clearArray(masterPW);
-            clearMasterPasswordIfRequired();
+        } finally {
+            masterPasswordLock.readLock().unlock();
         }
+        clearMasterPasswordIfRequired();
     }
 
     @Override
@@ -137,23 +231,25 @@ public class SecureFileStorage extends SecureStorage {
 
     @Override
     public void update(char[] masterPW, Collection<AuthenticationCredentials> authInfos) throws AuthenticationException {
-        synchronized (lockMasterPasswordReset) {
+        masterPasswordLock.readLock().lock();
+        try {
             masterPW = getCachedMasterPasswordHashIfPossible(masterPW);
+            SecretKey dataKey = unlock(masterPW);
 
-            if (!isMasterPasswordCorrect(masterPW)) {
-                throw new AuthenticationException("wrong master password");
-            }
             // encrypt and update all credentials
             for (AuthenticationCredentials authInfo : authInfos) {
-                String encString = getEncryptedString(authInfo, masterPW);
+                String encString = getEncryptedString(authInfo, dataKey);
                 fileManager.updateAuthentication(authInfo, encString);
+                vault.invalidate(authInfo.getID());
                 authInfo.destroy();
             }
 
             cacheMasterPasswordIfEnabled(masterPW);
             Utils.clearArray(masterPW);
-            clearMasterPasswordIfRequired();
+        } finally {
+            masterPasswordLock.readLock().unlock();
         }
+        clearMasterPasswordIfRequired();
     }
 
     @Override
@@ -165,6 +261,7 @@ public class SecureFileStorage extends SecureStorage {
     @Override
     public void delete(UUID id) {
         fileManager.deleteAuthentication(id);
+        vault.invalidate(id);
     }
 
     @Override
@@ -174,30 +271,33 @@ public class SecureFileStorage extends SecureStorage {
 
     @Override
     public Map<UUID, AuthenticationCredentials> get(char[] masterPW, Collection<UUID> ids) throws AuthenticationException {
-        synchronized (lockMasterPasswordReset) {
+        Map<UUID, AuthenticationCredentials> authInfos = new HashMap<>();
+        masterPasswordLock.readLock().lock();
+        try {
             masterPW = getCachedMasterPasswordHashIfPossible(masterPW);
-
-            if (!isMasterPasswordCorrect(masterPW)) {
-                throw new AuthenticationException("wrong master password");
-            }
-
-            Map<UUID, AuthenticationCredentials> authInfos = new HashMap<>();
+            // the only key derivation of this operation
+            SecretKey dataKey = unlock(masterPW);
             try {
-                for (UUID id : ids) {
-                    // decrypt credentials and convert to AuthenticationCredentials objects
-                    authInfos.put(id, mapper.readValue(decrypt(fileManager.readAuthenticationString(id), masterPW),
-                            new TypeReference<>() {}));
+                Map<UUID, String> encValues = fileManager.readAuthenticationStrings(ids);
+                if (encValues.size() < PARALLEL_DECRYPT_THRESHOLD) {
+                    for (Map.Entry<UUID, String> entry : encValues.entrySet()) {
+                        authInfos.put(entry.getKey(), readCredentials(entry.getKey(), entry.getValue(), dataKey, masterPW));
+                    }
+                } else {
+                    authInfos.putAll(readCredentialsParallel(encValues, dataKey, masterPW));
                 }
-            } catch (BadPaddingException | IllegalBlockSizeException | JsonProcessingException e) {
+            } catch (GeneralSecurityException | JsonProcessingException e) {
                 // invalid master key
                 throw new AuthenticationException("authentication failed");
             } finally {
                 cacheMasterPasswordIfEnabled(masterPW);
                 Utils.clearArray(masterPW);
-                clearMasterPasswordIfRequired();
             }
-            return authInfos;
+        } finally {
+            masterPasswordLock.readLock().unlock();
         }
+        clearMasterPasswordIfRequired();
+        return authInfos;
     }
 
     @Override
@@ -207,14 +307,73 @@ public class SecureFileStorage extends SecureStorage {
     }
 
     /**
-     * Convert authInfo to XML and encrypt using masterPW
+     * Decrypt credentials and convert them to AuthenticationCredentials objects.
+     */
+    private AuthenticationCredentials readCredentials(UUID id, String encValue, SecretKey dataKey, char[] hashedMP)
+            throws GeneralSecurityException, JsonProcessingException {
+        return mapper.readValue(decryptEntry(id, encValue, dataKey, hashedMP), new TypeReference<>() {});
+    }
+
+    /**
+     * Decrypt and convert credentials in parallel on the decryption executor.
+     * @return Credentials by ID
+     */
+    private Map<UUID, AuthenticationCredentials> readCredentialsParallel(Map<UUID, String> encValues, SecretKey dataKey,
+                                                                         char[] hashedMP)
+            throws GeneralSecurityException, JsonProcessingException {
+        Executor decryptExecutor = getDecryptExecutor();
+        Map<UUID, CompletableFuture<AuthenticationCredentials>> reads = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : encValues.entrySet()) {
+            reads.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readCredentials(entry.getKey(), entry.getValue(), dataKey, hashedMP);
+                } catch (GeneralSecurityException | JsonProcessingException ex) {
+                    throw new CompletionException(ex);
+                }
+            }, decryptExecutor));
+        }
+        Map<UUID, AuthenticationCredentials> authInfos = new HashMap<>();
+        try {
+            for (Map.Entry<UUID, CompletableFuture<AuthenticationCredentials>> read : reads.entrySet()) {
+                authInfos.put(read.getKey(), read.getValue().join());
+            }
+        } catch (CompletionException ex) {
+            // decrypted credentials must not be left behind
+            for (CompletableFuture<AuthenticationCredentials> read : reads.values()) {
+                if (!read.cancel(false) && !read.isCompletedExceptionally()) {
+                    read.join().destroy();
+                }
+            }
+            if (ex.getCause() instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) ex.getCause();
+            } else if (ex.getCause() instanceof JsonProcessingException) {
+                throw (JsonProcessingException) ex.getCause();
+            }
+            throw ex;
+        }
+        return authInfos;
+    }
+
+    /**
+     * @return Executor decrypting credentials (limited to the number of processors)
+     */
+    private synchronized Executor getDecryptExecutor() {
+        if (decryptExecutor == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            decryptExecutor = AsyncExecutors.limit(AsyncExecutors.newExecutor(threads), threads);
+        }
+        return decryptExecutor;
+    }
+
+    /**
+     * Convert authInfo to XML and encrypt using the data key
      * @param authInfo Auth credentials
-     * @param masterPW Master password.
+     * @param dataKey Data key
      * @return Encrypted credentials string.
      */
-    private String getEncryptedString(AuthenticationCredentials authInfo, char[] masterPW) {
+    private String getEncryptedString(AuthenticationCredentials authInfo, SecretKey dataKey) {
         try {
-            return encrypt(mapper.writeValueAsString(authInfo), masterPW);
+            return encryptEntry(mapper.writeValueAsString(authInfo), dataKey, authInfo.getID());
         } catch (JsonProcessingException e) {
             e.printStackTrace();
             throw new RuntimeException(e);
@@ -222,17 +381,165 @@ public class SecureFileStorage extends SecureStorage {
     }
 
     /**
-     * Check if the master password is correct.
-     * @param hashedCurrentPW Hash of master password.
-     * @return True, iff master password is correct.
+     * Decrypt an entry. Entries in the legacy format are decrypted using the master password and migrated.
+     * @param id ID of the entry
+     * @param encValue Encrypted value of the entry
+     * @param dataKey Data key
+     * @param hashedMP Master password hash (only used for legacy entries)
+     * @return Plaintext
+     * @throws GeneralSecurityException If the entry cannot be decrypted
+     */
+    private String decryptEntry(UUID id, String encValue, SecretKey dataKey, char[] hashedMP) throws GeneralSecurityException {
+        String plaintext = decryptAnyFormat(id, encValue, dataKey, hashedMP);
+        if (isLegacyFormat(encValue)) {
+            fileManager.updateAuthentication(id, encryptEntry(plaintext, dataKey, id));
+        }
+        return plaintext;
+    }
+
+    /**
+     * Decrypt an entry in either format without migrating it.
+     * @param id ID of the entry
+     * @param encValue Encrypted value of the entry
+     * @param dataKey Data key (only used for entries in the current format)
+     * @param hashedMP Master password hash (only used for legacy entries)
+     * @return Plaintext
+     * @throws GeneralSecurityException If the entry cannot be decrypted
+     */
+    private String decryptAnyFormat(UUID id, String encValue, SecretKey dataKey, char[] hashedMP) throws GeneralSecurityException {
+        if (isLegacyFormat(encValue)) {
+            return decrypt(encValue, hashedMP);
+        }
+        if (dataKey == null) {
+            throw new GeneralSecurityException("no data key for entry " + id);
+        }
+        return decryptEntry(encValue, dataKey, id);
+    }
+
+    /**
+     * Get the data key. If the store still uses the legacy format, a data key is created and all entries
+     * are migrated.
+     * @param hashedMP Hash of master password.
+     * @return Data key
+     * @throws AuthenticationException If the master password is wrong
+     */
+    protected SecretKey unlock(char[] hashedMP) throws AuthenticationException {
+        String keyEntry = fileManager.readAuthenticationString(MasterPasswordAuthInfo.ID);
+        if (keyEntry == null || hashedMP == null) {
+            throw new AuthenticationException("wrong master password");
+        }
+        if (isLegacyFormat(keyEntry)) {
+            synchronized (lockMigration) {
+                // a concurrent operation may have migrated the store meanwhile
+                keyEntry = fileManager.readAuthenticationString(MasterPasswordAuthInfo.ID);
+                if (isLegacyFormat(keyEntry)) {
+                    return migrate(keyEntry, hashedMP);
+                }
+            }
+        }
+        SecretKey dataKey;
+        try {
+            dataKey = unwrapDataKey(keyEntry, hashedMP);
+        } catch (GeneralSecurityException ex) {
+            throw new AuthenticationException("wrong master password");
+        }
+        upgradeKdfIfRequired(keyEntry, dataKey, hashedMP);
+        return dataKey;
+    }
+
+    /**
+     * Re-wrap the data key in the background if it was wrapped using outdated KDF parameters.
+     * @param keyEntry Wrapped data key
+     * @param dataKey Unwrapped data key
+     * @param hashedMP Hash of master password (copied, since the caller clears it)
+     */
+    private void upgradeKdfIfRequired(String keyEntry, SecretKey dataKey, char[] hashedMP) {
+        if (keyEntry.equals(checkedKeyEntry) || !isKdfUpgradeRunning.compareAndSet(false, true)) {
+            return;
+        }
+        char[] hashedMPCopy = hashedMP.clone();
+        CompletableFuture.runAsync(() -> {
+            try {
+                upgradeKdf(keyEntry, dataKey, hashedMPCopy);
+            } catch (GeneralSecurityException | RuntimeException ex) {
+                Logger.getAnonymousLogger().warning("could not upgrade KDF parameters: " + ex.getMessage());
+            } finally {
+                Utils.clearArray(hashedMPCopy);
+                isKdfUpgradeRunning.set(false);
+            }
+        }, getDecryptExecutor());
+    }
+
+    private void upgradeKdf(String keyEntry, SecretKey dataKey, char[] hashedMP) throws GeneralSecurityException {
+        if (!readKdfParameters(keyEntry).needsUpgrade(getKdfParameters())) {
+            checkedKeyEntry = keyEntry;
+            return;
+        }
+        // the expensive wrapping is done before locking
+        String upgradedEntry = wrapDataKey(dataKey, hashedMP);
+        // only wait for a limited time, since lock holders may wait for the decryption executor (retried on next unlock)
+        try {
+            if (!masterPasswordLock.writeLock().tryLock(KDF_UPGRADE_LOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            // the key may have been re-wrapped meanwhile (e.g. by a master password change)
+            if (keyEntry.equals(fileManager.readAuthenticationString(MasterPasswordAuthInfo.ID))) {
+                fileManager.updateAuthentication(MasterPasswordAuthInfo.ID, upgradedEntry);
+                checkedKeyEntry = upgradedEntry;
+            }
+        } finally {
+            masterPasswordLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Migrate a store using the legacy format: create a data key and re-encrypt all entries using it.
+     * @param legacyKeyEntry Legacy MP_SET entry
+     * @param hashedMP Hash of master password.
+     * @return Data key
+     * @throws AuthenticationException If the master password is wrong
+     */
+    private SecretKey migrate(String legacyKeyEntry, char[] hashedMP) throws AuthenticationException {
+        if (!isLegacyMasterPasswordCorrect(legacyKeyEntry, hashedMP)) {
+            throw new AuthenticationException("wrong master password");
+        }
+        // the data key is stored first, so entries not migrated yet can still be read using the master password
+        SecretKey dataKey = generateDataKey();
+        fileManager.updateAuthentication(MasterPasswordAuthInfo.ID, wrapDataKey(dataKey, hashedMP));
+        try {
+            migrateLegacyEntries(dataKey, hashedMP);
+        } catch (GeneralSecurityException ex) {
+            // remaining entries are migrated when read
+            Logger.getAnonymousLogger().warning("could not migrate credentials: " + ex.getMessage());
+        }
+        return dataKey;
+    }
+
+    /**
+     * Re-encrypt all entries still stored in the legacy format under the data key.
+     * @param dataKey Data key
+     * @param hashedMP Master password hash used for the legacy entries
+     * @throws GeneralSecurityException If a legacy entry cannot be decrypted
+     */
+    private void migrateLegacyEntries(SecretKey dataKey, char[] hashedMP) throws GeneralSecurityException {
+        for (Map.Entry<UUID, String> entry : fileManager.getAllAuthenticationStrings().entrySet()) {
+            if (entry.getValue() != null && isLegacyFormat(entry.getValue())) {
+                decryptEntry(entry.getKey(), entry.getValue(), dataKey, hashedMP);
+            }
+        }
+    }
+
+    /**
+     * Check the master password against the legacy MP_SET entry (MP hash encrypted under itself).
      */
-    protected boolean isMasterPasswordCorrect(char[] hashedCurrentPW) {
-        String encHashedPW = fileManager.readAuthenticationString(MasterPasswordAuthInfo.ID);
+    private boolean isLegacyMasterPasswordCorrect(String encHashedPW, char[] hashedCurrentPW) {
         try {
-            // check if decrypted password hash is equal to provided hash
-            return encHashedPW != null && hashedCurrentPW != null &&
-                    (decrypt(encHashedPW, hashedCurrentPW)
-                            .equals(new String(hashedCurrentPW)));
+            return decrypt(encHashedPW, hashedCurrentPW).equals(new String(hashedCurrentPW));
         } catch (Exception e) {
             return false;
         }
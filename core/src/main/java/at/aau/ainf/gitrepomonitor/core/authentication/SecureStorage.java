@@ -8,39 +8,71 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import javax.naming.AuthenticationException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.spec.KeySpec;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 
 /**
  * Abstract implementation of credential access.
  * This class provides implementations for master password caching and crypto.
+ * Credentials are stored using a key hierarchy (format v2): a random data key encrypts each entry using AES-GCM,
+ * while the data key itself is stored wrapped by a key derived from the master password. Thus, the expensive key
+ * derivation is only required once per operation, regardless of the number of entries.
+ * Entries in the legacy format (v1, every entry encrypted by its own key derived from the master password) are
+ * recognized by the missing version prefix.
+ * The cost of the key derivation is calibrated to the host (see {@link #calibrateKdf()}). The wrapped data key stores
+ * the algorithm and parameters in its header (format v3), so keys wrapped on other hosts or using older parameters
+ * (v2 uses the fixed legacy parameters) stay readable.
  */
 public abstract class SecureStorage {
 
     private static final int LENGTH_IV = 16;
     private static final int LENGTH_SALT = 16;
     private static final int LENGTH_TOTAL = LENGTH_IV + LENGTH_SALT;
+    private static final int LENGTH_GCM_IV = 12;
+    private static final int LENGTH_GCM_TAG = 128;
+    private static final int LENGTH_KEY = 256;
+    private static final String KDF_ALGORITHM = "PBKDF2WithHmacSHA256";
+    // fixed iterations of legacy entries and v2 keys, also the minimum of calibrated parameters
+    private static final int KDF_ITERATIONS = 65536;
+    private static final int KDF_MAX_ITERATIONS = 10_000_000;
+    private static final int KDF_PROBE_ITERATIONS = 20_000;
+    private static final int KDF_PROBE_RUNS = 3;
+    // version prefix of the key hierarchy format (Base64 never contains ':', so legacy values have no prefix)
+    protected static final String FORMAT_V2 = "v2:";
+    // version prefix of wrapped keys with KDF header ("v3:<algorithm>:<iterations>:<Base64>")
+    protected static final String FORMAT_V3 = "v3:";
 
     protected static Settings settings;
     protected static XmlMapper mapper;
     // master password HASH cache
-    protected char[] masterPassword;
+    protected volatile char[] masterPassword;
     // operation counter for mp (reset after n uses)
     protected int mpUseCount = 0;
     // timer for mp reset
     protected Timer timer;
     protected TimerTask mpExpirationTimerTask;
-    // lock to avoid timer-based mp reset during operations
-    protected final Object lockMasterPasswordReset = new Object();
+    // operations using the master password hold the read lock, clearing / changing the master password the write lock
+    protected final ReadWriteLock masterPasswordLock = new ReentrantReadWriteLock();
+    // decrypted credentials, kept as long as the master password is cached
+    protected final CredentialVault vault = new CredentialVault();
+    // KDF parameters calibrated for this host (calibrated on first use)
+    private volatile KdfParameters kdfParameters;
 
     static {
         // load settings
@@ -74,10 +106,10 @@ public abstract class SecureStorage {
      * can be called without it.
      * @param cacheMasterPassword True, if master password should be cached.
      */
-    public synchronized void enableMasterPasswordCache(boolean cacheMasterPassword) {
+    public void enableMasterPasswordCache(boolean cacheMasterPassword) {
         settings.setCacheEnabled(cacheMasterPassword);
         if (!cacheMasterPassword) {
-            masterPassword = null;
+            clearCachedMasterPassword();
             stopMPExpirationTimer();
         }
         Settings.persist();
@@ -92,7 +124,7 @@ public abstract class SecureStorage {
      * @param method Caching method to use
      * @param value Associated value (use count or expiration time)
      */
-    public synchronized void setMasterPasswordCacheMethod(Settings.CacheClearMethod method, Integer value) {
+    public void setMasterPasswordCacheMethod(Settings.CacheClearMethod method, Integer value) {
         settings.setClearMethod(method);
         settings.setClearValue(value);
         Settings.persist();
@@ -110,12 +142,19 @@ public abstract class SecureStorage {
     }
 
     /**
-     * Clear master password cache
+     * Clear master password cache and evict all decrypted credentials.
+     * Waits for running operations using the master password.
      */
     public void clearCachedMasterPassword() {
-        if (masterPassword != null) {
-            Utils.clearArray(masterPassword);
-            masterPassword = null;
+        masterPasswordLock.writeLock().lock();
+        try {
+            if (masterPassword != null) {
+                Utils.clearArray(masterPassword);
+                masterPassword = null;
+            }
+            vault.clear();
+        } finally {
+            masterPasswordLock.writeLock().unlock();
         }
     }
 
@@ -145,7 +184,7 @@ public abstract class SecureStorage {
      * @return If {@code mp} is null and the master password is cached, get the cached hash.
      *         Else return the hash of {@code mp}.
      */
-    protected char[] getCachedMasterPasswordHashIfPossible(char[] mp) {
+    protected synchronized char[] getCachedMasterPasswordHashIfPossible(char[] mp) {
         if (mp == null || isMasterPasswordCached()) {
             throwIfMasterPasswordNotCached();
             return Arrays.copyOf(masterPassword, masterPassword.length);
@@ -176,7 +215,21 @@ public abstract class SecureStorage {
      * @throws AuthenticationException
      * @throws IOException
      */
-    public abstract void updateMasterPassword(char[] currentMasterPW, char[] newMasterPW) throws AuthenticationException, IOException;
+    public void updateMasterPassword(char[] currentMasterPW, char[] newMasterPW) throws AuthenticationException, IOException {
+        updateMasterPassword(currentMasterPW, newMasterPW, null);
+    }
+
+    /**
+     * Update the master password persistently.
+     * All stored credentials are re-encrypted under a new data key, which is stored wrapped by the new master
+     * password. Either all changes are stored or none.
+     * @param currentMasterPW Current master password.
+     * @param newMasterPW New master password.
+     * @param cb Callback for progress updates (nullable)
+     * @throws AuthenticationException
+     * @throws IOException
+     */
+    public abstract void updateMasterPassword(char[] currentMasterPW, char[] newMasterPW, KeyRotationCallback cb) throws AuthenticationException, IOException;
 
     /**
      * Store auth credentials securely.
@@ -250,6 +303,74 @@ public abstract class SecureStorage {
      */
     public abstract Map<UUID, AuthenticationCredentials> get(char[] masterPW, Collection<UUID> ids) throws AuthenticationException;
 
+    /**
+     * Get Authenticators for the requested auth credentials.
+     * While the master password is cached, the decrypted credentials are kept in the vault and shared by all
+     * returned Authenticators, so credentials are only decrypted again once the cache was cleared.
+     * The returned Authenticators must be destroyed after use.
+     * @param masterPW Master password (if null, the cached one is used)
+     * @param authIDs IDs of the requested auth credentials (by arbitrary key, e.g. repo ID)
+     * @return Authenticators by key (without keys whose auth credentials do not exist)
+     * @throws AuthenticationException
+     */
+    public Map<UUID, Authenticator> getAuthenticators(char[] masterPW, Map<UUID, UUID> authIDs) throws AuthenticationException {
+        Map<UUID, Authenticator> authenticators = new HashMap<>();
+        masterPasswordLock.readLock().lock();
+        try {
+            // a provided master password is not used either while one is cached
+            if (isMasterPasswordCached()) {
+                for (Map.Entry<UUID, UUID> entry : authIDs.entrySet()) {
+                    Authenticator lease = vault.acquire(entry.getValue());
+                    if (lease != null) {
+                        authenticators.put(entry.getKey(), lease);
+                    }
+                }
+            }
+        } finally {
+            masterPasswordLock.readLock().unlock();
+        }
+        if (authenticators.size() == authIDs.size()) {
+            if (masterPW != null) {
+                Utils.clearArray(masterPW);
+            }
+            clearMasterPasswordIfRequired();
+            return authenticators;
+        }
+
+        try {
+            // load all missing credentials at once
+            Map<UUID, List<UUID>> missing = new HashMap<>();
+            for (Map.Entry<UUID, UUID> entry : authIDs.entrySet()) {
+                if (!authenticators.containsKey(entry.getKey())) {
+                    missing.computeIfAbsent(entry.getValue(), id -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+            Map<UUID, AuthenticationCredentials> loaded = get(masterPW, missing.keySet());
+            masterPasswordLock.readLock().lock();
+            try {
+                boolean retain = isMasterPasswordCached();
+                for (Map.Entry<UUID, List<UUID>> entry : missing.entrySet()) {
+                    AuthenticationCredentials credentials = loaded.get(entry.getKey());
+                    if (credentials == null) {
+                        continue;
+                    }
+                    List<Authenticator> leases = vault.add(entry.getKey(),
+                            Authenticator.convertToAuthenticator(credentials), retain, entry.getValue().size());
+                    for (int i = 0; i < leases.size(); i++) {
+                        authenticators.put(entry.getValue().get(i), leases.get(i));
+                    }
+                }
+            } finally {
+                masterPasswordLock.readLock().unlock();
+            }
+        } catch (AuthenticationException | RuntimeException ex) {
+            // leases taken from the vault must be released, otherwise its credentials are never destroyed
+            authenticators.values().forEach(Authenticator::destroy);
+            throw ex;
+        }
+        return authenticators;
+    }
+
     /**
      * Get auth credentials by ID.
      * Uses cached master password.
@@ -348,12 +469,8 @@ public abstract class SecureStorage {
      */
     private Cipher getCipherInstantiation(int cipherMode, char[] key, byte[] salt, IvParameterSpec ivParams) {
         try {
-            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-            KeySpec keySpec = new PBEKeySpec(key, salt, 65536, 256);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(factory.generateSecret(keySpec).getEncoded(), "AES");
-
             Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(cipherMode, secretKeySpec, ivParams);
+            cipher.init(cipherMode, deriveKey(key, salt, KdfParameters.LEGACY), ivParams);
             return cipher;
         } catch (Exception ex) {
             // possible exceptions are all related to missing algorithms
@@ -361,10 +478,247 @@ public abstract class SecureStorage {
         }
     }
 
+    /**
+     * Derive an AES-256 key from a password.
+     * @param key Password
+     * @param salt Salt
+     * @param params KDF algorithm and parameters
+     * @return Derived key
+     */
+    private SecretKey deriveKey(char[] key, byte[] salt, KdfParameters params) {
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(params.getAlgorithm());
+            KeySpec keySpec = new PBEKeySpec(key, salt, params.getIterations(), LENGTH_KEY);
+            return new SecretKeySpec(factory.generateSecret(keySpec).getEncoded(), "AES");
+        } catch (GeneralSecurityException ex) {
+            // possible exceptions are all related to missing algorithms
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * @param encValue Stored encrypted value
+     * @return True, if the value is stored in the legacy format (v1).
+     */
+    protected static boolean isLegacyFormat(String encValue) {
+        return !encValue.startsWith(FORMAT_V2) && !encValue.startsWith(FORMAT_V3);
+    }
+
+    /**
+     * Measure the key derivation on this host and pick the number of iterations taking
+     * {@link Settings#getKdfTargetMillis()}, but at least the legacy number of iterations.
+     * The result is used for all keys wrapped afterwards.
+     * @return Calibrated KDF parameters
+     */
+    protected KdfParameters calibrateKdf() {
+        char[] probeKey = "calibration".toCharArray();
+        byte[] salt = new byte[LENGTH_SALT];
+        new SecureRandom().nextBytes(salt);
+        KdfParameters probe = new KdfParameters(KDF_ALGORITHM, KDF_PROBE_ITERATIONS);
+        // the fastest run is used, since the first runs include JIT compilation
+        long minNanos = Long.MAX_VALUE;
+        for (int i = 0; i < KDF_PROBE_RUNS; i++) {
+            long start = System.nanoTime();
+            deriveKey(probeKey, salt, probe);
+            minNanos = Math.min(minNanos, System.nanoTime() - start);
+        }
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(settings.getKdfTargetMillis());
+        long iterations = KDF_PROBE_ITERATIONS * targetNanos / Math.max(minNanos, 1);
+        iterations = Math.max(KDF_ITERATIONS, Math.min(KDF_MAX_ITERATIONS, iterations));
+        kdfParameters = new KdfParameters(KDF_ALGORITHM, (int) iterations);
+        Logger.getAnonymousLogger().info("calibrated KDF: " + kdfParameters);
+        return kdfParameters;
+    }
+
+    /**
+     * @return KDF parameters calibrated for this host (calibrates on first call)
+     */
+    protected KdfParameters getKdfParameters() {
+        KdfParameters params = kdfParameters;
+        return params != null ? params : calibrateKdf();
+    }
+
+    /**
+     * Read the KDF algorithm and parameters from the header of a wrapped data key.
+     * @param wrappedKey Wrapped data key (v2 or v3)
+     * @return KDF parameters
+     * @throws GeneralSecurityException If the header is invalid
+     */
+    protected static KdfParameters readKdfParameters(String wrappedKey) throws GeneralSecurityException {
+        if (wrappedKey.startsWith(FORMAT_V2)) {
+            return KdfParameters.LEGACY;
+        }
+        String[] header = wrappedKey.split(":", 4);
+        if (!wrappedKey.startsWith(FORMAT_V3) || header.length != 4) {
+            throw new GeneralSecurityException("unsupported format");
+        }
+        try {
+            return new KdfParameters(header[1], Integer.parseInt(header[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new GeneralSecurityException("invalid KDF header", ex);
+        }
+    }
+
+    /**
+     * @return New random data key
+     */
+    protected SecretKey generateDataKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(LENGTH_KEY, new SecureRandom());
+            return generator.generateKey();
+        } catch (GeneralSecurityException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Wrap the data key using a key derived from the master password (hash) using the calibrated KDF parameters.
+     * @param dataKey Data key
+     * @param key Master password hash
+     * @return Wrapped data key
+     */
+    protected String wrapDataKey(SecretKey dataKey, char[] key) {
+        return wrapDataKey(dataKey, key, getKdfParameters());
+    }
+
+    /**
+     * Wrap the data key using a key derived from the master password (hash).
+     * The KDF header is authenticated as well, so the parameters cannot be changed (e.g. lowered).
+     * @param dataKey Data key
+     * @param key Master password hash
+     * @param params KDF algorithm and parameters
+     * @return Wrapped data key (KDF header followed by Base64 of salt, IV and encrypted key)
+     */
+    protected String wrapDataKey(SecretKey dataKey, char[] key, KdfParameters params) {
+        String header = FORMAT_V3 + params.getAlgorithm() + ":" + params.getIterations() + ":";
+        byte[] salt = new byte[LENGTH_SALT];
+        new SecureRandom().nextBytes(salt);
+        byte[] wrapped = encryptGCM(dataKey.getEncoded(), deriveKey(key, salt, params),
+                header.getBytes(StandardCharsets.UTF_8));
+        byte[] complete = new byte[LENGTH_SALT + wrapped.length];
+        System.arraycopy(salt, 0, complete, 0, LENGTH_SALT);
+        System.arraycopy(wrapped, 0, complete, LENGTH_SALT, wrapped.length);
+        return header + Base64.getEncoder().encodeToString(complete);
+    }
+
+    /**
+     * Unwrap the data key. Since the wrapping is authenticated, this fails for any other master password.
+     * @param wrappedKey Wrapped data key (see {@link #wrapDataKey(SecretKey, char[], KdfParameters)}), or a v2 key
+     * @param key Master password hash
+     * @return Data key
+     * @throws GeneralSecurityException If the master password is wrong or the value is corrupted
+     */
+    protected SecretKey unwrapDataKey(String wrappedKey, char[] key) throws GeneralSecurityException {
+        KdfParameters params = readKdfParameters(wrappedKey);
+        byte[] complete;
+        byte[] aad = null;
+        if (wrappedKey.startsWith(FORMAT_V2)) {
+            complete = decodeV2(wrappedKey);
+        } else {
+            int headerLength = wrappedKey.lastIndexOf(':') + 1;
+            aad = wrappedKey.substring(0, headerLength).getBytes(StandardCharsets.UTF_8);
+            complete = decodeBase64(wrappedKey.substring(headerLength));
+        }
+        if (complete.length < LENGTH_SALT) {
+            throw new GeneralSecurityException("ciphertext too short");
+        }
+        byte[] salt = Arrays.copyOf(complete, LENGTH_SALT);
+        byte[] dataKey = decryptGCM(complete, LENGTH_SALT, deriveKey(key, salt, params), aad);
+        try {
+            return new SecretKeySpec(dataKey, "AES");
+        } finally {
+            Arrays.fill(dataKey, (byte) 0);
+        }
+    }
+
+    /**
+     * Encrypt an entry using AES-GCM under the data key.
+     * The ID of the entry is authenticated as well, so encrypted values cannot be swapped between entries.
+     * @param plaintext Plaintext to encrypt
+     * @param dataKey Data key
+     * @param id ID of the entry
+     * @return Ciphertext (version prefix followed by Base64 of IV and ciphertext)
+     */
+    protected String encryptEntry(String plaintext, SecretKey dataKey, UUID id) {
+        return FORMAT_V2 + Base64.getEncoder().encodeToString(
+                encryptGCM(plaintext.getBytes(StandardCharsets.UTF_8), dataKey, getAAD(id)));
+    }
+
+    /**
+     * Decrypt an entry encrypted by {@link #encryptEntry(String, SecretKey, UUID)}.
+     * @param ciphertext Ciphertext
+     * @param dataKey Data key
+     * @param id ID of the entry
+     * @return Plaintext
+     * @throws GeneralSecurityException If the data key or ID is wrong or the value is corrupted
+     */
+    protected String decryptEntry(String ciphertext, SecretKey dataKey, UUID id) throws GeneralSecurityException {
+        return new String(decryptGCM(decodeV2(ciphertext), 0, dataKey, getAAD(id)), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] getAAD(UUID id) {
+        return id.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decodeV2(String value) throws GeneralSecurityException {
+        if (!value.startsWith(FORMAT_V2)) {
+            throw new GeneralSecurityException("unsupported format");
+        }
+        return decodeBase64(value.substring(FORMAT_V2.length()));
+    }
+
+    private static byte[] decodeBase64(String value) throws GeneralSecurityException {
+        try {
+            return Base64.getDecoder().decode(value);
+        } catch (IllegalArgumentException ex) {
+            throw new GeneralSecurityException("invalid encoding", ex);
+        }
+    }
+
+    /**
+     * @return Random IV followed by the AES-GCM ciphertext (including tag)
+     */
+    private byte[] encryptGCM(byte[] plaintext, SecretKey key, byte[] aad) {
+        try {
+            byte[] iv = new byte[LENGTH_GCM_IV];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(LENGTH_GCM_TAG, iv));
+            if (aad != null) {
+                cipher.updateAAD(aad);
+            }
+            byte[] cipherBytes = cipher.doFinal(plaintext);
+            byte[] complete = new byte[LENGTH_GCM_IV + cipherBytes.length];
+            System.arraycopy(iv, 0, complete, 0, LENGTH_GCM_IV);
+            System.arraycopy(cipherBytes, 0, complete, LENGTH_GCM_IV, cipherBytes.length);
+            return complete;
+        } catch (GeneralSecurityException ex) {
+            // possible exceptions are all related to missing algorithms
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * @param input Bytes containing IV followed by ciphertext, starting at {@code offset}
+     */
+    private byte[] decryptGCM(byte[] input, int offset, SecretKey key, byte[] aad) throws GeneralSecurityException {
+        if (input.length < offset + LENGTH_GCM_IV) {
+            throw new GeneralSecurityException("ciphertext too short");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(LENGTH_GCM_TAG, input, offset, LENGTH_GCM_IV));
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        return cipher.doFinal(input, offset + LENGTH_GCM_IV, input.length - offset - LENGTH_GCM_IV);
+    }
+
     /**
      * Increment and check mp cache use count and reset if necessary.
+     * Must not be called while holding the master password lock.
      */
-    protected synchronized void clearMasterPasswordIfRequired() {
+    protected void clearMasterPasswordIfRequired() {
         incrementAndCheckMPUseCount();
         startMPExpirationTimerIfNotStarted();
     }
@@ -372,17 +726,21 @@ public abstract class SecureStorage {
     /**
      * If cache method is set to MAX_USES, increment use count and clear cache if necessary.
      */
-    protected synchronized void incrementAndCheckMPUseCount() {
-        if (settings.isCacheEnabled() && settings.getClearMethod() == Settings.CacheClearMethod.MAX_USES) {
-            mpUseCount++;
-            if (mpUseCount > settings.getClearValue()) {
-                synchronized (lockMasterPasswordReset) {
+    protected void incrementAndCheckMPUseCount() {
+        boolean isExceeded = false;
+        synchronized (this) {
+            if (settings.isCacheEnabled() && settings.getClearMethod() == Settings.CacheClearMethod.MAX_USES) {
+                mpUseCount++;
+                isExceeded = mpUseCount > settings.getClearValue();
+                if (isExceeded) {
                     resetMPUseCount();
-                    clearCachedMasterPassword();
-                    Logger.getAnonymousLogger().info("Reset mp (use count)");
                 }
             }
         }
+        if (isExceeded) {
+            clearCachedMasterPassword();
+            Logger.getAnonymousLogger().info("Reset mp (use count)");
+        }
     }
 
     /**
@@ -403,10 +761,14 @@ public abstract class SecureStorage {
             mpExpirationTimerTask = new TimerTask() {
                 @Override
                 public void run() {
-                    // clear MP cache (lock to make sure this does not happen during an operation)
-                    synchronized (lockMasterPasswordReset) {
-                        clearCachedMasterPassword();
-                        Logger.getAnonymousLogger().info("Reset mp (timer)");
+                    // clear MP cache (waits for running operations)
+                    clearCachedMasterPassword();
+                    Logger.getAnonymousLogger().info("Reset mp (timer)");
+                    synchronized (SecureStorage.this) {
+                        // the next use of the cache starts a new expiration period
+                        if (mpExpirationTimerTask == this) {
+                            mpExpirationTimerTask = null;
+                        }
                     }
                 }
             };
@@ -443,4 +805,46 @@ public abstract class SecureStorage {
             timer = null;
         }
     }
+
+    /**
+     * Algorithm and parameters of the key derivation from the master password.
+     */
+    protected static class KdfParameters {
+        // parameters of legacy entries and v2 keys
+        static final KdfParameters LEGACY = new KdfParameters(KDF_ALGORITHM, KDF_ITERATIONS);
+
+        private final String algorithm;
+        private final int iterations;
+
+        protected KdfParameters(String algorithm, int iterations) {
+            if (iterations <= 0) {
+                throw new IllegalArgumentException("invalid iterations: " + iterations);
+            }
+            this.algorithm = algorithm;
+            this.iterations = iterations;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * Small deviations from the calibrated parameters (e.g. due to measurement noise) do not require an upgrade.
+         * @param calibrated Parameters calibrated for this host
+         * @return True, if keys wrapped using these parameters should be re-wrapped using the calibrated ones.
+         */
+        public boolean needsUpgrade(KdfParameters calibrated) {
+            return !algorithm.equals(calibrated.algorithm) || iterations < KDF_ITERATIONS
+                    || iterations < calibrated.iterations / 2 || iterations / 2 > calibrated.iterations;
+        }
+
+        @Override
+        public String toString() {
+            return algorithm + " (" + iterations + " iterations)";
+        }
+    }
 }
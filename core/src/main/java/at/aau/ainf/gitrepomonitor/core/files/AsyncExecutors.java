@@ -0,0 +1,104 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * Creates the executors used for async operations according to the execution mode selected at startup.
+ * In {@link Settings.ExecutionMode#VIRTUAL_THREADS} mode every task runs on its own virtual thread, so blocking I/O
+ * does not occupy a pool thread. Limits of the underlying resources are then enforced by semaphores
+ * (see {@link #limit(Executor, int)}) instead of the pool size.
+ */
+public class AsyncExecutors {
+
+    private static Settings.ExecutionMode executionMode = Settings.ExecutionMode.THREAD_POOL;
+
+    private AsyncExecutors() {}
+
+    /**
+     * Set the execution mode used for all executors created afterwards.
+     * Must be called at startup, before {@link FileManager} and the GitManager are created.
+     * If virtual threads are not supported by the running JVM, the thread pool mode is used.
+     * @param mode Execution mode to use
+     */
+    public static synchronized void setExecutionMode(Settings.ExecutionMode mode) {
+        if (mode == Settings.ExecutionMode.VIRTUAL_THREADS && !isVirtualThreadsSupported()) {
+            Logger.getAnonymousLogger().warning("virtual threads not supported by this JVM, using thread pools");
+            mode = Settings.ExecutionMode.THREAD_POOL;
+        }
+        executionMode = mode;
+    }
+
+    public static synchronized Settings.ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @return True, iff the running JVM supports virtual threads (Java 21+).
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return getVirtualThreadFactoryMethod() != null;
+    }
+
+    /**
+     * Create an executor for async operations.
+     * @param poolSize Number of threads if thread pools are used
+     * @return Executor according to the current execution mode
+     */
+    public static ExecutorService newExecutor(int poolSize) {
+        return newExecutor(getExecutionMode(), poolSize);
+    }
+
+    /**
+     * Create an executor for async operations.
+     * @param mode Execution mode
+     * @param poolSize Number of threads if thread pools are used
+     * @return Executor according to the given execution mode
+     */
+    public static ExecutorService newExecutor(Settings.ExecutionMode mode, int poolSize) {
+        if (mode == Settings.ExecutionMode.VIRTUAL_THREADS) {
+            try {
+                return (ExecutorService) getVirtualThreadFactoryMethod().invoke(null);
+            } catch (ReflectiveOperationException | NullPointerException ex) {
+                Logger.getAnonymousLogger().warning("could not create virtual thread executor, using thread pool");
+            }
+        }
+        return Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Wrap an executor so that at most {@code permits} of the submitted tasks run at the same time.
+     * Waiting tasks block on a semaphore before they are executed, which is cheap when using virtual threads.
+     * @param executor Executor to run tasks on
+     * @param permits Max. number of tasks running at the same time
+     * @return Limited executor
+     */
+    public static Executor limit(Executor executor, int permits) {
+        Semaphore semaphore = new Semaphore(Math.max(1, permits), true);
+        return task -> executor.execute(() -> {
+            semaphore.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                semaphore.release();
+            }
+        });
+    }
+
+    private static Method getVirtualThreadFactoryMethod() {
+        try {
+            // accessed via reflection to keep compatibility with Java versions without virtual threads
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Index of the directories visited by a repo scan.
+ * For every directory it records the modification time, whether it is a repo and its (not excluded) sub directories.
+ * Since the modification time of a directory changes whenever entries are added, removed or renamed, rescans do not
+ * need to list directories whose modification time is unchanged, but can use the recorded sub directories instead.
+ * The index is only valid for the scan options it was created with.
+ */
+public class DirectoryIndex {
+    private static final int VERSION = 1;
+    // modification time of directories which have to be listed on the next scan
+    public static final long UNKNOWN_MTIME = -1;
+
+    private final Map<String, Node> roots;
+    private String optionsKey;
+
+    public DirectoryIndex() {
+        this.roots = new ConcurrentHashMap<>();
+    }
+
+    public static File getDefaultFile() {
+        return new File(StoragePath.getCurrentPath() + "scan_index.dat");
+    }
+
+    /**
+     * Load index from file.
+     * @param file Index file
+     * @return Loaded index, or an empty index if the file does not exist or cannot be read
+     */
+    public static DirectoryIndex load(File file) {
+        DirectoryIndex index = new DirectoryIndex();
+        if (!file.exists()) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != VERSION) {
+                return index;
+            }
+            index.optionsKey = in.readUTF();
+            int rootCount = in.readInt();
+            for (int i = 0; i < rootCount; i++) {
+                String rootPath = in.readUTF();
+                index.roots.put(rootPath, readNode(in));
+            }
+        } catch (IOException ex) {
+            Logger.getAnonymousLogger().warning("could not load directory index: " + ex.getMessage());
+            return new DirectoryIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Store index to file.
+     * The index is written to a temporary file first, which then replaces the index file, so a crash while
+     * writing does not leave a truncated index behind.
+     * @param file Index file
+     */
+    public void store(File file) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(file.getAbsoluteFile().toPath().getParent(), file.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(VERSION);
+                out.writeUTF(optionsKey != null ? optionsKey : "");
+                Map<String, Node> rootsCopy = new HashMap<>(roots);
+                out.writeInt(rootsCopy.size());
+                for (Map.Entry<String, Node> root : rootsCopy.entrySet()) {
+                    out.writeUTF(root.getKey());
+                    writeNode(out, root.getValue());
+                }
+            }
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            Logger.getAnonymousLogger().warning("could not store directory index: " + ex.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    // temporary file is left behind
+                }
+            }
+        }
+    }
+
+    private static Node readNode(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        long mtime = in.readLong();
+        boolean repo = in.readBoolean();
+        Node[] children = new Node[in.readInt()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = readNode(in);
+        }
+        return new Node(name, mtime, repo, children);
+    }
+
+    private static void writeNode(DataOutputStream out, Node node) throws IOException {
+        out.writeUTF(node.name);
+        out.writeLong(node.mtime);
+        out.writeBoolean(node.repo);
+        out.writeInt(node.children.length);
+        for (Node child : node.children) {
+            writeNode(out, child);
+        }
+    }
+
+    /**
+     * Clear the index if it was created with other scan options.
+     * @param optionsKey Key of the current scan options
+     */
+    public synchronized void validate(String optionsKey) {
+        if (!optionsKey.equals(this.optionsKey)) {
+            roots.clear();
+            this.optionsKey = optionsKey;
+        }
+    }
+
+    /**
+     * @param rootPath Absolute path of the scanned root
+     * @return Recorded root directory or null
+     */
+    public Node getRoot(String rootPath) {
+        return roots.get(rootPath);
+    }
+
+    public void putRoot(String rootPath, Node root) {
+        roots.put(rootPath, root);
+    }
+
+    public boolean isEmpty() {
+        return roots.isEmpty();
+    }
+
+    /**
+     * Recorded state of a directory.
+     */
+    public static class Node {
+        private final String name;
+        private final long mtime;
+        private final boolean repo;
+        // sorted by name
+        private final Node[] children;
+
+        /**
+         * @param name Directory name
+         * @param mtime Modification time in ms (or {@link #UNKNOWN_MTIME})
+         * @param repo True, if the directory is a repo
+         * @param children Sub directories
+         */
+        public Node(String name, long mtime, boolean repo, Node[] children) {
+            this.name = name;
+            this.mtime = mtime;
+            this.repo = repo;
+            this.children = children;
+            Arrays.sort(this.children, Comparator.comparing(Node::getName));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getMtime() {
+            return mtime;
+        }
+
+        public boolean isRepo() {
+            return repo;
+        }
+
+        public Node[] getChildren() {
+            return children;
+        }
+
+        /**
+         * @param name Name of the sub directory
+         * @return Recorded sub directory or null
+         */
+        public Node getChild(String name) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = children[mid].name.compareTo(name);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+    }
+}
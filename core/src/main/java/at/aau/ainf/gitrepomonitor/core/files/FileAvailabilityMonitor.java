@@ -0,0 +1,217 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Shared monitor detecting files / directories becoming unavailable, e.g. on unexpected disconnects of external
+ * storage devices (USB sticks).
+ * Deletions are detected by watching the parent directories of the monitored files using a {@link WatchService},
+ * unmounts by checking the mount table ({@code /proc/self/mountinfo}) for changes. Both are checked by a single
+ * scheduled thread every {@value #CHECK_INTERVAL_MS}ms. Files whose parent cannot be watched, and all files on
+ * platforms without a mount table, are checked for existence instead.
+ */
+public class FileAvailabilityMonitor {
+    static final long CHECK_INTERVAL_MS = 250;
+
+    private static FileAvailabilityMonitor instance;
+
+    /**
+     * Listener called (on the monitor thread) once a monitored file is unavailable.
+     */
+    public interface Listener {
+        void fileUnavailable(File file);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final WatchService watchService;
+    private final Path mountTable;
+    private final Map<Path, WatchedDir> dirs;
+    private final List<Registration> polled;
+    private byte[] lastMountTable;
+
+    public static synchronized FileAvailabilityMonitor getInstance() {
+        if (instance == null) {
+            instance = new FileAvailabilityMonitor(MountPlanner.isSupported() ? MountPlanner.MOUNTINFO : null);
+        }
+        return instance;
+    }
+
+    /**
+     * @param mountTable Mount table to check for unmounts (null if not available)
+     */
+    protected FileAvailabilityMonitor(Path mountTable) {
+        this.mountTable = mountTable;
+        this.dirs = new HashMap<>();
+        this.polled = new ArrayList<>();
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            Logger.getAnonymousLogger().warning("could not create watch service, polling files: " + ex.getMessage());
+        }
+        this.watchService = service;
+        this.lastMountTable = readMountTable();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Monitor a file. The listener is called once if the file becomes unavailable, afterwards the file is not
+     * monitored anymore.
+     * @param file File / directory to monitor
+     * @param listener Listener to notify
+     * @return Registration, which can be cancelled to stop monitoring
+     */
+    public synchronized Registration monitor(File file, Listener listener) {
+        Registration registration = new Registration(file.getAbsoluteFile(), listener);
+        Path parent = registration.file.toPath().getParent();
+        WatchedDir dir = parent != null ? dirs.get(parent) : null;
+        if (dir == null && parent != null && watchService != null) {
+            try {
+                dir = new WatchedDir(parent, parent.register(watchService, ENTRY_DELETE));
+                dirs.put(parent, dir);
+            } catch (IOException ex) {
+                // parent does not exist or cannot be watched
+            }
+        }
+        if (dir != null) {
+            dir.registrations.add(registration);
+        } else {
+            polled.add(registration);
+        }
+        return registration;
+    }
+
+    private synchronized void cancel(Registration registration) {
+        if (polled.remove(registration)) {
+            return;
+        }
+        Path parent = registration.file.toPath().getParent();
+        WatchedDir dir = parent != null ? dirs.get(parent) : null;
+        if (dir != null && dir.registrations.remove(registration) && dir.registrations.isEmpty()) {
+            dir.key.cancel();
+            dirs.remove(parent);
+        }
+    }
+
+    /**
+     * @return Number of watched directories
+     */
+    synchronized int getWatchedDirCount() {
+        return dirs.size();
+    }
+
+    private byte[] readMountTable() {
+        if (mountTable == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(mountTable);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Check for deletions and unmounts and notify the listeners of unavailable files.
+     */
+    private void check() {
+        List<Registration> unavailable = new ArrayList<>();
+        synchronized (this) {
+            Set<WatchedDir> changedDirs = new HashSet<>();
+            List<WatchedDir> invalidDirs = new ArrayList<>();
+            WatchKey key;
+            while (watchService != null && (key = watchService.poll()) != null) {
+                WatchedDir dir = dirs.get((Path) key.watchable());
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir != null && (event.kind() == OVERFLOW || event.kind() == ENTRY_DELETE)) {
+                        changedDirs.add(dir);
+                    }
+                }
+                // an invalid key means the directory was deleted or its filesystem unmounted
+                if (!key.reset() && dir != null) {
+                    changedDirs.add(dir);
+                    invalidDirs.add(dir);
+                }
+            }
+            byte[] currentMountTable = readMountTable();
+            boolean mountsChanged = !Arrays.equals(currentMountTable, lastMountTable);
+            lastMountTable = currentMountTable;
+
+            // without a mount table, unmounts can only be noticed by checking the files
+            Collection<WatchedDir> dirsToCheck = mountsChanged || mountTable == null ? dirs.values() : changedDirs;
+            for (WatchedDir dir : dirsToCheck) {
+                dir.registrations.stream().filter(Registration::isUnavailable).forEach(unavailable::add);
+            }
+            polled.stream().filter(Registration::isUnavailable).forEach(unavailable::add);
+            unavailable.forEach(this::cancel);
+            // files still available in a directory which cannot be watched anymore are checked for existence
+            for (WatchedDir dir : invalidDirs) {
+                if (dirs.remove(dir.path) != null) {
+                    polled.addAll(dir.registrations);
+                }
+            }
+        }
+        for (Registration registration : unavailable) {
+            try {
+                registration.listener.fileUnavailable(registration.file);
+            } catch (RuntimeException ex) {
+                Logger.getAnonymousLogger().warning("could not handle unavailable file: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Monitoring of a single file.
+     */
+    public class Registration {
+        private final File file;
+        private final Listener listener;
+
+        private Registration(File file, Listener listener) {
+            this.file = file;
+            this.listener = listener;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Stop monitoring the file.
+         */
+        public void cancel() {
+            FileAvailabilityMonitor.this.cancel(this);
+        }
+
+        private boolean isUnavailable() {
+            return !file.exists();
+        }
+    }
+
+    private static class WatchedDir {
+        private final Path path;
+        private final WatchKey key;
+        private final List<Registration> registrations;
+
+        private WatchedDir(Path path, WatchKey key) {
+            this.path = path;
+            this.key = key;
+            this.registrations = new ArrayList<>();
+        }
+    }
+}
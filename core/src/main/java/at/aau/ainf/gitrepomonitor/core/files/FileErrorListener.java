@@ -7,4 +7,10 @@ import java.io.File;
  */
 public interface FileErrorListener {
     void fileUnavailable(File path);
+
+    /**
+     * Called if changes could not be written to the program data (e.g. by the background writer).
+     * @param ex Cause
+     */
+    void writeFailed(Exception ex);
 }
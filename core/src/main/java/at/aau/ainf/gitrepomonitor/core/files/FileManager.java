@@ -5,6 +5,7 @@ import at.aau.ainf.gitrepomonitor.core.authentication.HttpsCredentials;
 import at.aau.ainf.gitrepomonitor.core.authentication.SecureStorage;
 import at.aau.ainf.gitrepomonitor.core.authentication.SslCredentials;
 import at.aau.ainf.gitrepomonitor.core.git.GitManager;
+import org.eclipse.jgit.lib.PersonIdent;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
@@ -12,8 +13,11 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.*;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -24,8 +28,10 @@ import static at.aau.ainf.gitrepomonitor.core.files.FileManager.RepoList.WATCH;
 /**
  * Provides access to persistently stored data.
  */
-public class FileManager implements FileMonitor.Listener {
+public class FileManager implements FileAvailabilityMonitor.Listener {
     private static FileManager instance;
+    // max. number of parameters of a single query (SQLite allows 999 in older versions)
+    private static final int MAX_QUERY_PARAMS = 500;
 
     private Map<UUID, RepositoryInformation> watchlist;
     private Map<UUID, RepositoryInformation> foundRepos;
@@ -36,8 +42,14 @@ public class FileManager implements FileMonitor.Listener {
     private FileErrorListener fileErrorListener;
 
     private Connection conn;
-    private final ThreadPoolExecutor executor;
-    private FileMonitor fileMonitor;
+    // write-behind queue for repo related changes (uses its own connection)
+    private PersistenceQueue persistenceQueue;
+    // monitoring of the database file
+    private FileAvailabilityMonitor.Registration dbFileMonitoring;
+    // watches the watchlist repos for changes made outside of the application
+    private RepoStateWatcher repoStateWatcher;
+    // executor refreshing repos changed outside of the application
+    private final Executor stateExecutor;
 
     public enum RepoList {
         FOUND,
@@ -56,24 +68,24 @@ public class FileManager implements FileMonitor.Listener {
         this.foundRepos = new HashMap<>();
         this.listenersWatchlist = new ArrayList<>();
         this.listenersFoundRepos = new ArrayList<>();
-        this.listenersRepoStatus = new ArrayList<>();
+        // status changes are also notified from background threads
+        this.listenersRepoStatus = new CopyOnWriteArrayList<>();
         this.listenersAuthCred = new ArrayList<>();
-        this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(10, r -> {
-            Thread t = Executors.defaultThreadFactory().newThread(r);
-            t.setDaemon(true);
-            return t;
-        });
+        this.stateExecutor = AsyncExecutors.limit(AsyncExecutors.newExecutor(2), 2);
     }
 
     /**
      * Loads all stored repos.
+     * Status and last commit of the repos are taken from the persisted snapshot (marked as stale) and
+     * refreshed in the background.
      */
     public synchronized void init() throws ClassNotFoundException, SQLException {
         openDatabaseConnection();
         setupFileMonitor();
         loadRepos();
-        checkRepoPathValidity();
-        loadLastCommits();
+        loadSnapshots();
+        refreshReposAsync();
+        setupRepoStateWatcher();
     }
 
     public void addWatchlistListener(PropertyChangeListener l) { listenersWatchlist.add(l); }
@@ -97,6 +109,7 @@ public class FileManager implements FileMonitor.Listener {
     }
 
     private void notifyWatchlistChanged() {
+        updateWatchedRepos();
         listenersWatchlist.forEach(propertyChangeListener ->
                 propertyChangeListener.propertyChange(new PropertyChangeEvent(this, "watchlist", null, getList(WATCH))));
     }
@@ -219,17 +232,81 @@ public class FileManager implements FileMonitor.Listener {
         }
     }
 
-    private void loadLastCommits() {
-        GitManager gitManager = GitManager.getInstance();
-        for (RepositoryInformation repoInfo : Stream.concat(watchlist.values().stream(),
-                foundRepos.values().stream()).collect(Collectors.toList())) {
+    /**
+     * Refresh auth method, path validity and last commit of all repos in parallel in the background.
+     * Listeners are notified of every refreshed repo and the refreshed snapshots are persisted.
+     */
+    private void refreshReposAsync() {
+        List<RepositoryInformation> repos = new ArrayList<>(getAllRepos());
+        if (repos.isEmpty()) {
+            return;
+        }
+        ExecutorService refreshExecutor = AsyncExecutors.newExecutor(
+                Math.max(4, Runtime.getRuntime().availableProcessors()));
+        CompletableFuture.allOf(repos.stream()
+                .map(repo -> CompletableFuture.runAsync(() -> refreshRepo(repo), refreshExecutor))
+                .toArray(CompletableFuture[]::new))
+                .whenComplete((v, ex) -> refreshExecutor.shutdown());
+    }
 
-            try {
-                repoInfo.setLastCommit(gitManager.getLastCommit(repoInfo));
-            } catch (Exception e) {
-                repoInfo.setLastCommit(null);
+    private void refreshRepo(RepositoryInformation repoInfo) {
+        refreshRepo(repoInfo, false);
+    }
+
+    /**
+     * Refresh auth method, path validity and last commit of a repo, persist its snapshot and notify listeners.
+     * @param repoInfo Repo to refresh
+     * @param localStatus If true, the status is also updated from the local refs (unless it is an error status
+     *                    of this session, which can only be cleared by a status check)
+     */
+    private void refreshRepo(RepositoryInformation repoInfo, boolean localStatus) {
+        try {
+            GitManager.setAuthMethod(repoInfo);
+            if (!Utils.validateRepositoryPath(repoInfo.getPath())) {
+                setPathInvalid(repoInfo);
+            } else {
+                // path is valid again, so the persisted status is outdated
+                if (repoInfo.getStatus() == RepositoryInformation.RepoStatus.PATH_INVALID) {
+                    repoInfo.setStatus(RepositoryInformation.RepoStatus.UNCHECKED);
+                    repoInfo.setStale(false);
+                }
+                try {
+                    // found repos are not opened via the repo cache, which is kept for the watched repos
+                    repoInfo.setLastCommitSummary(getListName(repoInfo) == WATCH ?
+                            GitManager.getInstance().getLastCommit(repoInfo) :
+                            GitManager.readLastCommit(repoInfo.getPath()));
+                } catch (Exception e) {
+                    repoInfo.setLastCommitSummary(null, null, null);
+                }
+                if (localStatus && (repoInfo.isStale() || !isErrorStatus(repoInfo.getStatus()))) {
+                    Date checkStart = new Date();
+                    RepositoryInformation.RepoStatus status = GitManager.getInstance().getLocalRepoStatus(repoInfo);
+                    if (status != null) {
+                        applyLocalStatus(repoInfo, status, checkStart);
+                    }
+                }
             }
+        } catch (IOException e) {
+            setPathInvalid(repoInfo);
         }
+        if (exists(repoInfo)) {
+            storeSnapshotAsync(repoInfo);
+            notifyRepoStatusChanged(repoInfo);
+        }
+    }
+
+    private static boolean isErrorStatus(RepositoryInformation.RepoStatus status) {
+        return status == RepositoryInformation.RepoStatus.INACCESSIBLE_REMOTE ||
+                status == RepositoryInformation.RepoStatus.WRONG_MASTER_PW ||
+                status == RepositoryInformation.RepoStatus.UNKNOWN_ERROR;
+    }
+
+    private void setPathInvalid(RepositoryInformation repoInfo) {
+        repoInfo.setStatus(RepositoryInformation.RepoStatus.PATH_INVALID);
+        repoInfo.setLastChecked(new Date());
+        repoInfo.setStale(false);
+        // the repo may have been moved or deleted, so it has to be opened again once it is valid again
+        GitManager.getInstance().releaseRepo(repoInfo.getPath());
     }
 
     public RepositoryInformation getRepo(UUID id) {
@@ -246,9 +323,54 @@ public class FileManager implements FileMonitor.Listener {
             throw new NoSuchElementException();
         }
         repo.setStatus(status);
+        repo.setLastChecked(new Date());
+        repo.setStale(false);
+        repo.setLocalStatus(false);
+        storeSnapshotAsync(repo);
         notifyRepoStatusChanged(repo);
     }
 
+    /**
+     * Update the status of a repo determined from its local refs only (without accessing the remote).
+     * The status is not applied if a status check finished after the local check was started.
+     * @param id ID of the repo
+     * @param status Status determined from the local refs
+     * @param checkStart Time the local check was started
+     */
+    public void updateLocalRepoStatus(UUID id, RepositoryInformation.RepoStatus status, Date checkStart) {
+        RepositoryInformation repo = getRepo(id);
+        if (repo == null) {
+            throw new NoSuchElementException();
+        }
+        if (applyLocalStatus(repo, status, checkStart)) {
+            storeSnapshotAsync(repo);
+            notifyRepoStatusChanged(repo);
+        }
+    }
+
+    private boolean applyLocalStatus(RepositoryInformation repo, RepositoryInformation.RepoStatus status,
+                                     Date checkStart) {
+        Date lastChecked = repo.getLastChecked();
+        if (!repo.isStale() && lastChecked != null && lastChecked.after(checkStart)) {
+            return false;
+        }
+        // a status from a status check stays valid until the refs change after it (the check's own fetch
+        // modifies the refs before the check finishes, but still triggers the repo state watcher)
+        if (isNetworkStatus(repo) && RepoStateWatcher.getLastRefChange(repo.getPath()) <= lastChecked.getTime()) {
+            return false;
+        }
+        repo.setStatus(status);
+        repo.setLocalStatus(true);
+        repo.setStale(false);
+        return true;
+    }
+
+    private static boolean isNetworkStatus(RepositoryInformation repo) {
+        return !repo.isStale() && !repo.isLocalStatus() && repo.getLastChecked() != null &&
+                repo.getStatus() != RepositoryInformation.RepoStatus.UNCHECKED &&
+                repo.getStatus() != RepositoryInformation.RepoStatus.PATH_INVALID;
+    }
+
     public void setNewChanges(UUID id, int newCommitCount) {
         RepositoryInformation repo = getRepo(id);
         if (repo == null) {
@@ -297,8 +419,15 @@ public class FileManager implements FileMonitor.Listener {
      */
     public void storagePathChanged() {
         try {
-            if (fileMonitor != null) {
-                fileMonitor.stop();
+            if (dbFileMonitoring != null) {
+                dbFileMonitoring.cancel();
+            }
+            if (repoStateWatcher != null) {
+                repoStateWatcher.stop();
+                repoStateWatcher = null;
+            }
+            if (persistenceQueue != null) {
+                persistenceQueue.close();
             }
             if (conn != null && !conn.isClosed()) {
                 conn.close();
@@ -325,12 +454,41 @@ public class FileManager implements FileMonitor.Listener {
     public synchronized void openDatabaseConnection() throws ClassNotFoundException, SQLException {
         boolean dbExists = getDBFile().exists();
         Class.forName("org.sqlite.JDBC");
-        conn = DriverManager.getConnection("jdbc:sqlite:" + getDBFile().getAbsolutePath());
+        conn = openConnection();
 
         // if DB was just created, create tables
         if (!dbExists) {
             setupDatabase();
         }
+        updateDatabase();
+        persistenceQueue = new PersistenceQueue(openConnection(), this::writeFailed);
+    }
+
+    /**
+     * Open a connection to the DB.
+     * WAL mode lets the persistence queue write while other connections read, with synchronous=NORMAL
+     * a commit does not wait for an fsync (committed data survives application crashes, not power loss).
+     * @return Opened connection
+     * @throws SQLException
+     */
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + getDBFile().getAbsolutePath());
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            // wait for the lock instead of failing if the other connection is writing
+            stmt.execute("PRAGMA busy_timeout=5000");
+        }
+        return connection;
+    }
+
+    /**
+     * Write all pending changes to the DB (e.g. before shutdown).
+     */
+    public void flush() {
+        if (persistenceQueue != null) {
+            persistenceQueue.flush();
+        }
     }
 
     /**
@@ -338,8 +496,36 @@ public class FileManager implements FileMonitor.Listener {
      * This aims to detect disconnects of external storage devices used to store program data.
      */
     private void setupFileMonitor() {
-        fileMonitor = new FileMonitor(getDBFile(), this);
-        fileMonitor.start();
+        if (dbFileMonitoring != null) {
+            dbFileMonitoring.cancel();
+        }
+        dbFileMonitoring = FileAvailabilityMonitor.getInstance().monitor(getDBFile(), this);
+    }
+
+    /**
+     * Setup watcher for the repos on the watchlist.
+     * Commits, checkouts and fetches made outside of the application update last commit and local status of the
+     * repos right away.
+     */
+    private void setupRepoStateWatcher() {
+        if (repoStateWatcher == null) {
+            repoStateWatcher = new RepoStateWatcher(this::repoStateChanged);
+        }
+        updateWatchedRepos();
+    }
+
+    private void updateWatchedRepos() {
+        if (repoStateWatcher != null) {
+            repoStateWatcher.setRepos(getWatchlist().stream()
+                    .collect(Collectors.toMap(RepositoryInformation::getID, RepositoryInformation::getPath)));
+        }
+    }
+
+    private void repoStateChanged(UUID repoID) {
+        RepositoryInformation repo = getRepo(repoID);
+        if (repo != null) {
+            stateExecutor.execute(() -> refreshRepo(repo, true));
+        }
     }
 
     @Override
@@ -349,10 +535,17 @@ public class FileManager implements FileMonitor.Listener {
         }
     }
 
+    private void writeFailed(SQLException ex) {
+        if (fileErrorListener != null) {
+            fileErrorListener.writeFailed(ex);
+        }
+    }
+
     /**
      * Load all stored repos from DB into transient collections.
      */
     public void loadRepos() {
+        flush();
         try {
             Map<UUID, RepositoryInformation> newWatchlist = new HashMap<>();
             Map<UUID, RepositoryInformation> newFoundRepos = new HashMap<>();
@@ -380,6 +573,60 @@ public class FileManager implements FileMonitor.Listener {
         }
     }
 
+    /**
+     * Apply the persisted status snapshots to the loaded repos and mark them as stale.
+     */
+    private void loadSnapshots() {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM repo_snapshot");
+             ResultSet results = stmt.executeQuery()) {
+            while (results.next()) {
+                RepositoryInformation repo = getRepo(UUID.fromString(results.getString("repo_id")));
+                if (repo == null) {
+                    continue;
+                }
+                String status = results.getString("status");
+                if (status != null) {
+                    try {
+                        repo.setStatus(RepositoryInformation.RepoStatus.valueOf(status));
+                    } catch (IllegalArgumentException ex) {
+                        // status no longer exists
+                    }
+                }
+                long commitTime = results.getLong("last_commit_time");
+                boolean hasCommitTime = !results.wasNull();
+                String author = results.getString("last_commit_author");
+                repo.setLastCommitSummary(results.getString("last_commit_id"),
+                        hasCommitTime ? new Date(commitTime) : null,
+                        author != null ? new PersonIdent(author, results.getString("last_commit_email")) : null);
+                long lastChecked = results.getLong("last_checked");
+                repo.setLastChecked(!results.wasNull() ? new Date(lastChecked) : null);
+                repo.setStale(true);
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Persist status and last commit summary of a repo asynchronously.
+     * @param repo Repo to store snapshot of
+     */
+    private void storeSnapshotAsync(RepositoryInformation repo) {
+        Date commitDate = repo.getLastCommitDate();
+        PersonIdent author = repo.getLastCommitAuthor();
+        Date lastChecked = repo.getLastChecked();
+        persistenceQueue.enqueue("repo_snapshot:" + repo.getID(),
+                "INSERT OR REPLACE INTO repo_snapshot (repo_id, status, last_commit_id, last_commit_time, " +
+                        "last_commit_author, last_commit_email, last_checked) VALUES (?,?,?,?,?,?,?)",
+                repo.getID().toString(),
+                repo.getStatus() != null ? repo.getStatus().name() : null,
+                repo.getLastCommitID(),
+                commitDate != null ? commitDate.getTime() : null,
+                author != null ? author.getName() : null,
+                author != null ? author.getEmailAddress() : null,
+                lastChecked != null ? lastChecked.getTime() : null);
+    }
+
     /**
      * Create required tables.
      * @throws SQLException
@@ -410,6 +657,35 @@ public class FileManager implements FileMonitor.Listener {
         stmt.close();
     }
 
+    /**
+     * Create tables added in later versions if they do not exist yet.
+     * @throws SQLException
+     */
+    private void updateDatabase() throws SQLException {
+        Statement stmt = conn.createStatement();
+        String sql = "CREATE TABLE IF NOT EXISTS watch_stats " +
+                "(repo_id TEXT PRIMARY KEY     NOT NULL," +
+                " poll_interval  INTEGER  NOT NULL, " +
+                " next_check     INTEGER  NOT NULL, " +
+                " last_change    INTEGER  NOT NULL, " +
+                " FOREIGN KEY (repo_id) REFERENCES repo (id) )";
+        stmt.executeUpdate(sql);
+        stmt.close();
+
+        stmt = conn.createStatement();
+        sql = "CREATE TABLE IF NOT EXISTS repo_snapshot " +
+                "(repo_id TEXT PRIMARY KEY     NOT NULL," +
+                " status             CHAR(50), " +
+                " last_commit_id     CHAR(40), " +
+                " last_commit_time   INTEGER, " +
+                " last_commit_author TEXT, " +
+                " last_commit_email  TEXT, " +
+                " last_checked       INTEGER, " +
+                " FOREIGN KEY (repo_id) REFERENCES repo (id) )";
+        stmt.executeUpdate(sql);
+        stmt.close();
+    }
+
     public synchronized void addToFoundRepos(RepositoryInformation repo) {
         // only add to found repos if watchlist does not already contain repo
         if (!getWatchlist().contains(repo)) {
@@ -418,15 +694,29 @@ public class FileManager implements FileMonitor.Listener {
         }
     }
 
-    public void addToFoundReposAsync(RepositoryInformation repositoryInformation, FileOperationCallback cb) {
-        executor.submit(() -> {
-            try {
-                addToFoundRepos(repositoryInformation);
-                cb.finished(true, null);
-            } catch (Exception e) {
-                cb.finished(false, e);
+    /**
+     * Add repos to the found repos in one batch.
+     * Repos already on any list are skipped. The added repos are stored in one transaction and listeners are
+     * notified once. Path validity, auth method and last commit are expected to be set on the repos already.
+     * @param repos Repos to add
+     * @return Repos actually added
+     */
+    public synchronized List<RepositoryInformation> addToFoundRepos(Collection<RepositoryInformation> repos) {
+        Set<RepositoryInformation> knownRepos = getAllRepos();
+        List<RepositoryInformation> added = new ArrayList<>();
+        for (RepositoryInformation repo : repos) {
+            // repos are equal by path
+            if (knownRepos.add(repo)) {
+                foundRepos.put(repo.getID(), repo);
+                added.add(repo);
             }
-        });
+        }
+        if (!added.isEmpty()) {
+            persistenceQueue.enqueueAll(added.stream().map(this::repoWrite).collect(Collectors.toList()));
+            Logger.getAnonymousLogger().info("ADDED to DB: " + added.size() + " found repos");
+            notifyFoundReposChanged();
+        }
+        return added;
     }
 
     public synchronized void addToWatchlist(RepositoryInformation repo) {
@@ -449,7 +739,7 @@ public class FileManager implements FileMonitor.Listener {
         addToList(WATCH, repos);
         removeFromList(FOUND, repos);
         for (RepositoryInformation repo: repos) {
-            executor.submit(() -> updateInDB(repo));
+            updateInDB(repo);
         }
     }
 
@@ -457,7 +747,7 @@ public class FileManager implements FileMonitor.Listener {
         removeFromList(WATCH, repos);
         addToList(FOUND, repos);
         for (RepositoryInformation repo: repos) {
-            executor.submit(() -> updateInDB(repo));
+            updateInDB(repo);
         }
     }
 
@@ -477,6 +767,9 @@ public class FileManager implements FileMonitor.Listener {
         }
         removeFromList(repoList, new RepositoryInformation(originalPath));
         addToList(repoList, updatedInfo);
+        if (!originalPath.equals(updatedInfo.getPath())) {
+            GitManager.getInstance().releaseRepo(originalPath);
+        }
 
         // only persist repo lists if persistent properties were changed
         if (updatedInfo.isPersistentValueChanged()) {
@@ -486,53 +779,51 @@ public class FileManager implements FileMonitor.Listener {
     }
 
     private void addToDB(RepositoryInformation repo) {
-        try {
-            PreparedStatement stmt = conn.prepareStatement(
-                    "INSERT INTO repo (id, path, name, merge_strat, list, auth_id) VALUES (?,?,?,?,?,?)");
-            stmt.setString(1, repo.getID().toString());
-            stmt.setString(2, repo.getPath());
-            stmt.setString(3, repo.getName());
-            stmt.setString(4, repo.getMergeStrategy().name());
-            stmt.setString(5, getListName(repo).name());
-            stmt.setString(6, Utils.toStringOrNull(repo.getAuthID()));
-
-            stmt.executeUpdate();
-            Logger.getAnonymousLogger().info("ADDED to DB: " + repo.getPath());
-            repo.setPersistentValueChanged(false);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        storeRepo(repo);
+        Logger.getAnonymousLogger().info("ADDED to DB: " + repo.getPath());
     }
 
     private void updateInDB(RepositoryInformation repo) {
-        try {
-            PreparedStatement stmt = conn.prepareStatement(
-                    "UPDATE repo SET path=?, name=?, merge_strat=?, list=?, auth_id=? WHERE id=?");
-            stmt.setString(1, repo.getPath());
-            stmt.setString(2, repo.getName());
-            stmt.setString(3, repo.getMergeStrategy().name());
-            stmt.setString(4, getListName(repo).name());
-            stmt.setString(5, Utils.toStringOrNull(repo.getAuthID()));
-            stmt.setString(6, repo.getID().toString());
+        storeRepo(repo);
+        Logger.getAnonymousLogger().info("UPDATED in DB: " + repo.getPath());
+    }
 
-            stmt.executeUpdate();
-            Logger.getAnonymousLogger().info("UPDATED in DB: " + repo.getPath());
-            repo.setPersistentValueChanged(false);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+    /**
+     * Queue insert or update of a repo with its current values.
+     * @param repo Repo to store
+     */
+    private void storeRepo(RepositoryInformation repo) {
+        persistenceQueue.enqueueAll(Collections.singletonList(repoWrite(repo)));
+    }
+
+    /**
+     * Create the insert or update of a repo with its current values and mark the values as persisted.
+     * @param repo Repo to store
+     * @return Change to queue
+     */
+    private PersistenceQueue.Write repoWrite(RepositoryInformation repo) {
+        PersistenceQueue.Write write = new PersistenceQueue.Write("repo:" + repo.getID(),
+                // an upsert instead of a REPLACE, which would silently delete another repo with the same path
+                "INSERT INTO repo (id, path, name, merge_strat, list, auth_id) VALUES (?,?,?,?,?,?) " +
+                        "ON CONFLICT(id) DO UPDATE SET path=excluded.path, name=excluded.name, " +
+                        "merge_strat=excluded.merge_strat, list=excluded.list, auth_id=excluded.auth_id",
+                repo.getID().toString(),
+                repo.getPath(),
+                repo.getName(),
+                repo.getMergeStrategy().name(),
+                getListName(repo).name(),
+                Utils.toStringOrNull(repo.getAuthID()));
+        repo.setPersistentValueChanged(false);
+        return write;
     }
 
     private void deleteFromDB(RepositoryInformation repo) {
-        try {
-            PreparedStatement stmt = conn.prepareStatement(
-                    "DELETE FROM repo WHERE id=?");
-            stmt.setString(1, repo.getID().toString());
-            stmt.executeUpdate();
-            Logger.getAnonymousLogger().info("DELETED from DB: " + repo.getPath());
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        String id = repo.getID().toString();
+        persistenceQueue.enqueueAll(Arrays.asList(
+                new PersistenceQueue.Write("watch_stats:" + id, "DELETE FROM watch_stats WHERE repo_id=?", id),
+                new PersistenceQueue.Write("repo_snapshot:" + id, "DELETE FROM repo_snapshot WHERE repo_id=?", id),
+                new PersistenceQueue.Write("repo:" + id, "DELETE FROM repo WHERE id=?", id)));
+        Logger.getAnonymousLogger().info("DELETED from DB: " + repo.getPath());
     }
 
     public synchronized void deleteRepo(RepositoryInformation repo) {
@@ -542,6 +833,43 @@ public class FileManager implements FileMonitor.Listener {
         }
         removeFromList(repoList, repo);
         deleteFromDB(repo);
+        GitManager.getInstance().releaseRepo(repo.getPath());
+    }
+
+    /**
+     * Load the background check statistics of all repos.
+     * @return Statistics by repo ID
+     */
+    public synchronized Map<UUID, WatchStatistics> getWatchStatistics() {
+        flush();
+        Map<UUID, WatchStatistics> statistics = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM watch_stats");
+             ResultSet results = stmt.executeQuery()) {
+            while (results.next()) {
+                UUID repoID = UUID.fromString(results.getString("repo_id"));
+                statistics.put(repoID, new WatchStatistics(repoID,
+                        results.getLong("poll_interval"),
+                        results.getLong("next_check"),
+                        results.getLong("last_change")));
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+        return statistics;
+    }
+
+    /**
+     * Persist the background check statistics of a repo asynchronously.
+     * @param statistics Statistics to store
+     */
+    public void storeWatchStatisticsAsync(WatchStatistics statistics) {
+        persistenceQueue.enqueue("watch_stats:" + statistics.getRepoID(),
+                "INSERT OR REPLACE INTO watch_stats (repo_id, poll_interval, next_check, last_change) " +
+                        "VALUES (?,?,?,?)",
+                statistics.getRepoID().toString(),
+                statistics.getPollInterval(),
+                statistics.getNextCheck(),
+                statistics.getLastChange());
     }
 
     /**
@@ -598,6 +926,34 @@ public class FileManager implements FileMonitor.Listener {
         }
     }
 
+    /**
+     * Get the authentication strings with the provided IDs using one query (per chunk of IDs).
+     * @param authIDs IDs of auth strings
+     * @return Auth strings by ID (without IDs which were not found)
+     */
+    public Map<UUID, String> readAuthenticationStrings(Collection<UUID> authIDs) {
+        Map<UUID, String> authStrings = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(authIDs);
+        try {
+            for (int start = 0; start < ids.size(); start += MAX_QUERY_PARAMS) {
+                List<UUID> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_QUERY_PARAMS));
+                PreparedStatement stmt = conn.prepareStatement("SELECT id, enc_value FROM auth WHERE id IN (" +
+                        String.join(",", Collections.nCopies(chunk.size(), "?")) + ")");
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i).toString());
+                }
+                try (ResultSet results = stmt.executeQuery()) {
+                    while (results.next()) {
+                        authStrings.put(UUID.fromString(results.getString("id")), results.getString("enc_value"));
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+        return authStrings;
+    }
+
     public void updateAuthentication(AuthenticationCredentials authCred, String encString) {
         try {
             PreparedStatement stmt = conn.prepareStatement(
@@ -614,6 +970,12 @@ public class FileManager implements FileMonitor.Listener {
         }
     }
 
+    /**
+     * Replace the encrypted value of an auth entry, e.g. after re-encrypting it with a new key.
+     * Listeners are not notified since name and type of the entry stay the same.
+     * @param authID ID of auth string
+     * @param encString new encrypted auth string
+     */
     public void updateAuthentication(UUID authID, String encString) {
         try {
             PreparedStatement stmt = conn.prepareStatement(
@@ -622,7 +984,38 @@ public class FileManager implements FileMonitor.Listener {
             stmt.setString(2, authID.toString());
 
             stmt.executeUpdate();
-            notifyAuthCredChanged();
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Update the authentication strings with the provided IDs in one transaction.
+     * Either all or none of the strings are updated, i.e. nothing is updated if any ID does not exist.
+     * Like {@link #updateAuthentication(UUID, String)}, this does not notify listeners.
+     * @param encStrings Auth strings by ID
+     */
+    public void updateAuthentications(Map<UUID, String> encStrings) {
+        try {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE auth SET enc_value=? WHERE id=?")) {
+                for (Map.Entry<UUID, String> entry : encStrings.entrySet()) {
+                    stmt.setString(1, entry.getValue());
+                    stmt.setString(2, entry.getKey().toString());
+                    stmt.addBatch();
+                }
+                for (int updateCount : stmt.executeBatch()) {
+                    if (updateCount == 0) {
+                        throw new SQLException("auth entry to update does not exist");
+                    }
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
         }
@@ -633,6 +1026,8 @@ public class FileManager implements FileMonitor.Listener {
      * @param authID ID of auth string
      */
     public void deleteAuthentication(UUID authID) {
+        // pending repo changes could otherwise restore the deleted auth ID
+        flush();
         try {
             // clear auth id from all affected repos in DB ...
             PreparedStatement stmt = conn.prepareStatement(
@@ -679,7 +1074,7 @@ public class FileManager implements FileMonitor.Listener {
         try {
             // exclude MP_SET entry
             PreparedStatement stmt = conn.prepareStatement("SELECT id, enc_value FROM auth" +
-                            (includeMPSet ? "" : "WHERE type <> 'NONE'"));
+                            (includeMPSet ? "" : " WHERE type <> 'NONE'"));
 
             try (ResultSet results = stmt.executeQuery()) {
                 while (results.next()) {
@@ -689,7 +1084,8 @@ public class FileManager implements FileMonitor.Listener {
             }
             return authStrings;
         } catch (SQLException ex) {
-            return new HashMap<>();
+            // an incomplete result must not be mistaken for all entries (e.g. when changing the master password)
+            throw new RuntimeException(ex);
         }
     }
 
@@ -745,6 +1141,7 @@ public class FileManager implements FileMonitor.Listener {
     }
 
     public int getUsingRepoCount(UUID authID) {
+        flush();
         try {
             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(id) FROM repo WHERE auth_id=?");
             stmt.setString(1, authID.toString());
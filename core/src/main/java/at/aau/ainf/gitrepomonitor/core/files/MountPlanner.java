@@ -0,0 +1,172 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Plans the roots of whole-PC scans on Linux using the mount table ({@code /proc/self/mountinfo}).
+ * Pseudo filesystems (proc, sysfs, ...) are skipped, network filesystems are only scanned if enabled.
+ * The planned roots are grouped by device, so each device can be scanned with its own concurrency limit.
+ */
+public class MountPlanner {
+    public static final Path MOUNTINFO = Paths.get("/proc/self/mountinfo");
+
+    private static final Set<String> PSEUDO_FS_TYPES = new HashSet<>(Arrays.asList(
+            "proc", "sysfs", "devtmpfs", "devpts", "tmpfs", "ramfs", "cgroup", "cgroup2", "securityfs", "debugfs",
+            "tracefs", "pstore", "bpf", "mqueue", "hugetlbfs", "configfs", "fusectl", "autofs", "binfmt_misc",
+            "efivarfs", "rpc_pipefs", "nsfs", "squashfs", "selinuxfs", "fuse.gvfsd-fuse",
+            "fuse.portal", "fuse.lxcfs"));
+
+    private static final Set<String> NETWORK_FS_TYPES = new HashSet<>(Arrays.asList(
+            "nfs", "nfs4", "cifs", "smb3", "smbfs", "ncpfs", "afs", "9p", "ceph", "glusterfs", "fuse.glusterfs",
+            "fuse.sshfs", "fuse.davfs2", "davfs", "fuse.rclone", "lustre", "gpfs", "beegfs"));
+
+    private MountPlanner() {}
+
+    /**
+     * @return True, if the mount table can be read (Linux only)
+     */
+    public static boolean isSupported() {
+        return Files.isReadable(MOUNTINFO);
+    }
+
+    /**
+     * Read the mounts of the current process.
+     * @return Mounts, empty if the mount table cannot be read
+     */
+    public static List<Mount> readMounts() {
+        try {
+            return parse(Files.readAllLines(MOUNTINFO));
+        } catch (IOException ex) {
+            Logger.getAnonymousLogger().warning("could not read mount table: " + ex.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Parse lines of {@code /proc/self/mountinfo}, e.g.
+     * {@code 36 35 98:0 /mnt1 /mnt2 rw,noatime master:1 - ext3 /dev/root rw,errors=continue}
+     * @param lines Lines of the mount table
+     * @return Parsed mounts (invalid lines are ignored)
+     */
+    public static List<Mount> parse(List<String> lines) {
+        List<Mount> mounts = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.trim().split(" ");
+            // optional fields end with a single "-", followed by fs type and source
+            int separator = Arrays.asList(fields).indexOf("-");
+            if (fields.length < 5 || separator < 6 || separator + 1 >= fields.length) {
+                continue;
+            }
+            mounts.add(new Mount(fields[2], unescape(fields[4]), fields[separator + 1]));
+        }
+        return mounts;
+    }
+
+    /**
+     * Mount points are octal escaped for space, tab, newline and backslash.
+     */
+    private static String unescape(String path) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' && i + 3 < path.length() && path.substring(i + 1, i + 4).matches("[0-7]{3}")) {
+                sb.append((char) Integer.parseInt(path.substring(i + 1, i + 4), 8));
+                i += 3;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Plan the roots to scan.
+     * @param mounts Mounts of the PC
+     * @param includeNetwork If true, network filesystems are scanned as well
+     * @return Scan plan
+     */
+    public static Plan plan(List<Mount> mounts, boolean includeNetwork) {
+        Map<String, List<Path>> rootsByDevice = new LinkedHashMap<>();
+        Set<Path> mountPoints = new HashSet<>();
+        for (Mount mount : mounts) {
+            mountPoints.add(mount.getMountPoint());
+            if (!isPseudo(mount.getFsType()) && (includeNetwork || !isNetwork(mount.getFsType()))) {
+                List<Path> roots = rootsByDevice.computeIfAbsent(mount.getDevice(), d -> new ArrayList<>());
+                // the same mount point may be listed several times if mounted over
+                if (!roots.contains(mount.getMountPoint())) {
+                    roots.add(mount.getMountPoint());
+                }
+            }
+        }
+        // a mount point mounted over later is only scanned as part of the device mounted last
+        Map<Path, String> lastDevice = new HashMap<>();
+        mounts.forEach(mount -> lastDevice.put(mount.getMountPoint(), mount.getDevice()));
+        rootsByDevice.forEach((device, roots) -> roots.removeIf(root -> !device.equals(lastDevice.get(root))));
+        rootsByDevice.values().removeIf(List::isEmpty);
+        return new Plan(new ArrayList<>(rootsByDevice.values()), mountPoints);
+    }
+
+    public static boolean isPseudo(String fsType) {
+        return PSEUDO_FS_TYPES.contains(fsType);
+    }
+
+    public static boolean isNetwork(String fsType) {
+        return NETWORK_FS_TYPES.contains(fsType);
+    }
+
+    /**
+     * Entry of the mount table.
+     */
+    public static class Mount {
+        // major:minor
+        private final String device;
+        private final Path mountPoint;
+        private final String fsType;
+
+        public Mount(String device, String mountPoint, String fsType) {
+            this.device = device;
+            this.mountPoint = Paths.get(mountPoint);
+            this.fsType = fsType;
+        }
+
+        public String getDevice() {
+            return device;
+        }
+
+        public Path getMountPoint() {
+            return mountPoint;
+        }
+
+        public String getFsType() {
+            return fsType;
+        }
+    }
+
+    /**
+     * Roots to scan grouped by device, and all mount points.
+     * A scan of a root must not descend into other mount points, since these are either scanned separately
+     * or skipped.
+     */
+    public static class Plan {
+        private final List<List<Path>> rootsByDevice;
+        private final Set<Path> mountPoints;
+
+        public Plan(List<List<Path>> rootsByDevice, Set<Path> mountPoints) {
+            this.rootsByDevice = rootsByDevice;
+            this.mountPoints = mountPoints;
+        }
+
+        public List<List<Path>> getRootsByDevice() {
+            return rootsByDevice;
+        }
+
+        public Set<Path> getMountPoints() {
+            return mountPoints;
+        }
+    }
+}
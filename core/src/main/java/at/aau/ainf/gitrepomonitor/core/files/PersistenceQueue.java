@@ -0,0 +1,244 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind queue for database changes.
+ * Changes are coalesced per row (only the latest pending change of a row is written) and written by a single
+ * writer thread in batched transactions, using its own connection and cached prepared statements.
+ * Pending changes are written in the order in which their rows were first changed.
+ * Failed writes are reported to the caller of {@link #flush()} if written by the flush, otherwise to the listener.
+ */
+public class PersistenceQueue {
+
+    /**
+     * Listener called (on the writer thread) if changes written in the background could not be written.
+     */
+    public interface Listener {
+        void writeFailed(SQLException ex);
+    }
+
+    // time changes are collected before they are written
+    private static final long BATCH_DELAY_MS = 50;
+
+    private final Connection conn;
+    private final Listener listener;
+    private final ScheduledExecutorService writer;
+    // only accessed by the writer thread
+    private final Map<String, PreparedStatement> statements;
+    // pending writes by row key
+    private final Map<String, Write> pending;
+    private boolean writeScheduled;
+    private boolean closed;
+
+    /**
+     * @param conn Connection used exclusively by this queue
+     */
+    public PersistenceQueue(Connection conn) {
+        this(conn, null);
+    }
+
+    /**
+     * @param conn Connection used exclusively by this queue
+     * @param listener Listener notified of failed background writes (nullable)
+     */
+    public PersistenceQueue(Connection conn, Listener listener) {
+        this.conn = conn;
+        this.listener = listener;
+        this.statements = new HashMap<>();
+        this.pending = new LinkedHashMap<>();
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queue a change. A pending change of the same row is replaced.
+     * @param key Key identifying the changed row (e.g. table and primary key)
+     * @param sql SQL statement to execute
+     * @param params Parameters of the statement
+     */
+    public void enqueue(String key, String sql, Object... params) {
+        enqueueAll(Collections.singletonList(new Write(key, sql, params)));
+    }
+
+    /**
+     * Queue several changes at once. The changes become pending together, so they are written in the same
+     * transaction (unless that transaction fails and the changes are written one by one).
+     * A pending change of the same row is replaced.
+     * @param writes Changes to queue
+     */
+    public synchronized void enqueueAll(Collection<Write> writes) {
+        if (closed) {
+            Logger.getAnonymousLogger().warning("persistence queue closed, " + writes.size() + " change(s) dropped");
+            return;
+        }
+        for (Write write : writes) {
+            pending.put(write.key, write);
+        }
+        if (!writes.isEmpty() && !writeScheduled) {
+            writeScheduled = true;
+            writer.schedule(this::writePendingInBackground, BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return Number of changes not written yet
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write all pending changes and wait until they are written.
+     * @throws RuntimeException If any of the pending changes could not be written (the other changes are written)
+     */
+    public void flush() {
+        SQLException failure;
+        try {
+            failure = writer.submit(this::writePending).get();
+        } catch (RejectedExecutionException ex) {
+            // already closed, so nothing is pending
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    private void writePendingInBackground() {
+        SQLException failure = writePending();
+        if (failure != null && listener != null) {
+            listener.writeFailed(failure);
+        }
+    }
+
+    /**
+     * Write all pending changes and close the connection.
+     * Changes queued afterwards are dropped.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            flush();
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+            for (PreparedStatement stmt : statements.values()) {
+                stmt.close();
+            }
+            conn.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException ex) {
+            Logger.getAnonymousLogger().warning("could not close persistence queue: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Write all pending changes in one transaction.
+     * If the transaction fails, the changes are written one by one, so a single invalid change does not
+     * discard the others.
+     * @return Exception of the first failed change (further ones are suppressed by it), or null if all were written
+     */
+    private SQLException writePending() {
+        List<Write> writes;
+        synchronized (this) {
+            writes = new ArrayList<>(pending.values());
+            pending.clear();
+            writeScheduled = false;
+        }
+        if (writes.isEmpty()) {
+            return null;
+        }
+        try {
+            conn.setAutoCommit(false);
+            try {
+                for (Write write : writes) {
+                    execute(write);
+                }
+                conn.commit();
+                return null;
+            } catch (SQLException ex) {
+                conn.rollback();
+                Logger.getAnonymousLogger().warning("batch of " + writes.size() + " changes failed, " +
+                        "writing one by one: " + ex.getMessage());
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            Logger.getAnonymousLogger().warning("could not write changes: " + ex.getMessage());
+            return ex;
+        }
+
+        SQLException failure = null;
+        for (Write write : writes) {
+            try {
+                execute(write);
+            } catch (SQLException ex) {
+                Logger.getAnonymousLogger().warning("could not write change " + write.key + ": " + ex.getMessage());
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        return failure;
+    }
+
+    private void execute(Write write) throws SQLException {
+        PreparedStatement stmt = statements.get(write.sql);
+        if (stmt == null) {
+            stmt = conn.prepareStatement(write.sql);
+            statements.put(write.sql, stmt);
+        }
+        for (int i = 0; i < write.params.length; i++) {
+            stmt.setObject(i + 1, write.params[i]);
+        }
+        stmt.executeUpdate();
+    }
+
+    /**
+     * A queued change of a single row.
+     */
+    public static class Write {
+        private final String key;
+        private final String sql;
+        private final Object[] params;
+
+        /**
+         * @param key Key identifying the changed row (e.g. table and primary key)
+         * @param sql SQL statement to execute
+         * @param params Parameters of the statement
+         */
+        public Write(String key, String sql, Object... params) {
+            this.key = key;
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+}
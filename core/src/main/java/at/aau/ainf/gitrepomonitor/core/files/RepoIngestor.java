@@ -0,0 +1,173 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import at.aau.ainf.gitrepomonitor.core.git.GitManager;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Adds repos found by a scan to the found repos in two stages:
+ * The metadata of each repo (auth method from the remote URL, HEAD commit) is read in parallel, then the repos
+ * are collected into batches, each of which is stored in one transaction and notified as one listener event.
+ */
+public class RepoIngestor {
+    // max. number of repos per batch
+    private static final int MAX_BATCH_SIZE = 200;
+    // time repos are collected before a batch is stored
+    private static final long BATCH_DELAY_MS = 250;
+
+    /**
+     * Listener notified after each stored batch (called by the batching thread).
+     */
+    public interface Listener {
+        void batchIngested(List<RepositoryInformation> addedRepos);
+    }
+
+    private final Function<List<RepositoryInformation>, List<RepositoryInformation>> store;
+    private final Listener listener;
+    private final ExecutorService extractor;
+    // limits extraction when using virtual threads
+    private final Executor limitedExtractor;
+    private final ScheduledExecutorService batcher;
+    private List<RepositoryInformation> batch;
+    private boolean batchScheduled;
+    // repos submitted but not stored yet
+    private int pendingCount;
+
+    /**
+     * Create ingestor adding repos to the found repos of the {@link FileManager}.
+     * @param listener Listener notified after each batch
+     */
+    public RepoIngestor(Listener listener) {
+        this(FileManager.getInstance()::addToFoundRepos, listener,
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param store Stores a batch of repos and returns the repos actually added
+     * @param listener Listener notified after each batch
+     * @param parallelism Number of repos whose metadata is read at the same time
+     */
+    protected RepoIngestor(Function<List<RepositoryInformation>, List<RepositoryInformation>> store,
+                           Listener listener, int parallelism) {
+        this.store = store;
+        this.listener = listener;
+        this.extractor = AsyncExecutors.newExecutor(parallelism);
+        this.limitedExtractor = AsyncExecutors.limit(extractor, parallelism);
+        this.batcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        this.batch = new ArrayList<>();
+    }
+
+    /**
+     * Submit a found repo.
+     * @param repoDir Folder wrapping the repo
+     */
+    public void submit(File repoDir) {
+        synchronized (this) {
+            pendingCount++;
+        }
+        limitedExtractor.execute(() -> {
+            RepositoryInformation repo;
+            try {
+                repo = extractMetadata(repoDir);
+            } catch (RuntimeException ex) {
+                Logger.getAnonymousLogger().warning("could not read repo " + repoDir + ": " + ex.getMessage());
+                repo = new RepositoryInformation(repoDir.getPath());
+                repo.setStatus(RepositoryInformation.RepoStatus.PATH_INVALID);
+            }
+            addToBatch(repo);
+        });
+    }
+
+    /**
+     * Wait until all submitted repos are stored and release all threads.
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void finish() throws InterruptedException {
+        synchronized (this) {
+            while (pendingCount > 0) {
+                wait();
+            }
+        }
+        extractor.shutdown();
+        batcher.shutdown();
+    }
+
+    /**
+     * Read the metadata of a repo.
+     * @param repoDir Folder wrapping the repo
+     * @return Repo info with auth method and last commit (or invalid path status)
+     */
+    static RepositoryInformation extractMetadata(File repoDir) {
+        RepositoryInformation repo = new RepositoryInformation(repoDir.getPath());
+        try (Repository repository = new FileRepositoryBuilder()
+                .setGitDir(new File(repoDir, ".git"))
+                .setMustExist(true)
+                .build()) {
+            repo.setAuthMethod(GitManager.getAuthMethod(
+                    repository.getConfig().getString("remote", "origin", "url")));
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head != null) {
+                try (RevWalk walk = new RevWalk(repository)) {
+                    repo.setLastCommitSummary(walk.parseCommit(head));
+                }
+            }
+        } catch (IOException ex) {
+            repo.setStatus(RepositoryInformation.RepoStatus.PATH_INVALID);
+        }
+        return repo;
+    }
+
+    private synchronized void addToBatch(RepositoryInformation repo) {
+        batch.add(repo);
+        if (batch.size() >= MAX_BATCH_SIZE) {
+            batcher.execute(this::storeBatch);
+        } else if (!batchScheduled) {
+            batchScheduled = true;
+            batcher.schedule(this::storeBatch, BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void storeBatch() {
+        List<RepositoryInformation> repos;
+        synchronized (this) {
+            repos = batch;
+            batch = new ArrayList<>();
+            batchScheduled = false;
+        }
+        if (repos.isEmpty()) {
+            return;
+        }
+        try {
+            List<RepositoryInformation> added = store.apply(repos);
+            if (listener != null) {
+                listener.batchIngested(added);
+            }
+        } catch (RuntimeException ex) {
+            Logger.getAnonymousLogger().warning("could not store found repos: " + ex.getMessage());
+        } finally {
+            synchronized (this) {
+                pendingCount -= repos.size();
+                notifyAll();
+            }
+        }
+    }
+}
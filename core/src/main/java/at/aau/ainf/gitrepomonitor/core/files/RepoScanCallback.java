@@ -4,6 +4,7 @@ import java.io.File;
 
 /**
  * Callback for repository scanner.
+ * Methods are called concurrently by the scanner threads.
  */
 public interface RepoScanCallback {
     void repoFound(File dir);
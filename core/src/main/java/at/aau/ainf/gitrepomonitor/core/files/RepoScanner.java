@@ -1,27 +1,86 @@
 package at.aau.ainf.gitrepomonitor.core.files;
 
-import at.aau.ainf.gitrepomonitor.core.files.RepoScanCallback;
 import at.aau.ainf.gitrepomonitor.core.git.GitManager;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
 
 /**
  * Scanner for Git repositories on current PC.
+ * Directories are scanned in parallel on a fork/join pool. The scan does not descend into found repos
+ * (unless submodule scanning is enabled) and skips directories matching the exclude patterns.
+ * Every directory is visited only once (identified by its file key), so symlink cycles do not lead to endless scans.
+ * Whole-PC scans on Linux scan every local filesystem of the mount table separately (see {@link MountPlanner}),
+ * with one pool of scanner threads per device.
+ * If a {@link DirectoryIndex} is set, directories whose modification time did not change since the last scan are
+ * not listed again, only their recorded sub directories are checked.
+ * Stopped scans leave the index in a resumable state: fully scanned sub trees are recorded, while directories not
+ * scanned completely are listed again by the next scan.
+ * If a {@link ScanThrottle} is set (low-impact mode), directory reads and scanner threads are limited by it.
  */
 public class RepoScanner {
+    private static final String GIT_DIR = ".git";
+    // modification times this close to the scan start are not trusted, since the directory may change within
+    // the timestamp resolution after it was listed
+    private static final long RACY_MTIME_MS = 2000;
 
     private File rootDir;
-    private boolean excludeNoRemote;
-    private boolean isStopped;
-    private GitManager gitManager;
+    private final boolean excludeNoRemote;
+    private final List<PathMatcher> excludeMatchers;
+    private final String optionsKey;
+    private final boolean scanSubmodules;
+    private final int parallelism;
+    private boolean scanNetworkMounts;
+    // mount points not to descend into (they are scanned separately or skipped)
+    private Set<Path> mountPoints = Collections.emptySet();
+    private volatile boolean isStopped;
+    private Set<Object> visitedDirs;
+    private List<File> foundRepos;
+    private DirectoryIndex directoryIndex;
+    private ScanThrottle throttle;
+    private long scanStart;
 
+    /**
+     * Create scanner using the scan settings.
+     * @param rootDir Root to scan from (if null then all drives on the PC are scanned)
+     * @param excludeNoRemote If true, all Git repos having no remote are NOT returned.
+     */
     public RepoScanner(File rootDir, boolean excludeNoRemote) {
+        this(rootDir, excludeNoRemote, Settings.getSettings().getScanExcludePatterns(),
+                Settings.getSettings().isScanSubmodules(), Settings.getSettings().getScanThreads());
+        this.scanNetworkMounts = Settings.getSettings().isScanNetworkMounts();
+        if (Settings.getSettings().isScanLowImpact()) {
+            this.throttle = ScanThrottle.fromSettings(() -> GitManager.getInstance().getActiveOperationCount());
+        }
+    }
+
+    /**
+     * @param rootDir Root to scan from (if null then all drives on the PC are scanned)
+     * @param excludeNoRemote If true, all Git repos having no remote are NOT returned.
+     * @param excludePatterns Glob patterns of directories to skip (matched against the absolute path)
+     * @param scanSubmodules If true, the working trees of found repos are scanned as well
+     * @param parallelism Number of scanner threads (per device)
+     */
+    public RepoScanner(File rootDir, boolean excludeNoRemote, List<String> excludePatterns,
+                       boolean scanSubmodules, int parallelism) {
         this.rootDir = rootDir;
         this.excludeNoRemote = excludeNoRemote;
+        this.excludeMatchers = excludePatterns == null ? Collections.emptyList() : excludePatterns.stream()
+                .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                .collect(Collectors.toList());
+        this.scanSubmodules = scanSubmodules;
+        this.optionsKey = (excludePatterns == null ? "" : String.join("\n", excludePatterns)) +
+                "|submodules=" + scanSubmodules;
+        this.parallelism = Math.max(1, parallelism);
         this.isStopped = true;
-        this.gitManager = GitManager.getInstance();
     }
 
     public File getRootDir() {
@@ -40,50 +99,245 @@ public class RepoScanner {
         isStopped = true;
     }
 
+    public boolean isScanNetworkMounts() {
+        return scanNetworkMounts;
+    }
+
+    /**
+     * @param scanNetworkMounts If true, whole-PC scans include network filesystems
+     */
+    public void setScanNetworkMounts(boolean scanNetworkMounts) {
+        this.scanNetworkMounts = scanNetworkMounts;
+    }
+
+    public DirectoryIndex getDirectoryIndex() {
+        return directoryIndex;
+    }
+
+    /**
+     * Set the index used for incremental scans. The index is updated by completed scans.
+     * @param directoryIndex Index (null for full scans)
+     */
+    public void setDirectoryIndex(DirectoryIndex directoryIndex) {
+        this.directoryIndex = directoryIndex;
+    }
+
+    public ScanThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Set the throttle used for low-impact scans.
+     * @param throttle Throttle (null for unthrottled scans)
+     */
+    public void setThrottle(ScanThrottle throttle) {
+        this.throttle = throttle;
+    }
+
     /**
      * Scan PC. If a root dir (!= null) is specified, scan all directories below.
      * If no root is specified, scan all drives on the PC.
-     * @param cb Callback
+     * If the scan is stopped, the index keeps the progress, so the next scan resumes where this one stopped.
+     * @param cb Callback (called concurrently by the scanner threads)
      * @return List of all found repos
      */
     public List<File> scanForRepos(RepoScanCallback cb) {
         isStopped = false;
-        List<File> repos = new ArrayList<>();
+        visitedDirs = ConcurrentHashMap.newKeySet();
+        foundRepos = Collections.synchronizedList(new ArrayList<>());
+        scanStart = System.currentTimeMillis();
+        DirectoryIndex index = directoryIndex;
+        if (index != null) {
+            index.validate(optionsKey);
+        }
+        List<ForkJoinPool> pools = new ArrayList<>();
+        try {
+            // roots on the same device share a pool, so each device has its own concurrency limit
+            Map<String, ForkJoinTask<DirectoryIndex.Node>> tasks = new LinkedHashMap<>();
+            List<List<Path>> rootsByDevice = planRoots();
+            // roots pruned at mount points are indexed separately from unpruned scans of the same path
+            String keyPrefix = mountPoints.isEmpty() ? "" : "mounts:";
+            int threads = throttle != null ? Math.min(parallelism, throttle.getMaxThreads()) : parallelism;
+            for (List<Path> deviceRoots : rootsByDevice) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                pools.add(pool);
+                for (Path rootPath : deviceRoots) {
+                    String key = keyPrefix + rootPath;
+                    DirectoryIndex.Node cached = index != null ? index.getRoot(key) : null;
+                    tasks.put(key, pool.submit(new ScanTask(rootPath, cached, cb)));
+                }
+            }
+            for (Map.Entry<String, ForkJoinTask<DirectoryIndex.Node>> task : tasks.entrySet()) {
+                DirectoryIndex.Node root = task.getValue().join();
+                // stopped scans are recorded as well, their incomplete directories are marked for relisting
+                if (index != null && root != null) {
+                    index.putRoot(task.getKey(), root);
+                }
+            }
+        } finally {
+            pools.forEach(ForkJoinPool::shutdownNow);
+            isStopped = true;
+        }
+        return new ArrayList<>(foundRepos);
+    }
+
+    /**
+     * Determine the roots to scan.
+     * @return Roots grouped by device
+     */
+    private List<List<Path>> planRoots() {
+        mountPoints = Collections.emptySet();
         if (rootDir != null) {
-            scanForReposRecursive(rootDir, repos, cb);
+            return Collections.singletonList(Collections.singletonList(rootDir.toPath().toAbsolutePath()));
         }
-        else {
-            for (File driveRoot: File.listRoots()) {
-                scanForReposRecursive(driveRoot, repos, cb);
+        if (MountPlanner.isSupported()) {
+            List<MountPlanner.Mount> mounts = MountPlanner.readMounts();
+            if (!mounts.isEmpty()) {
+                MountPlanner.Plan plan = MountPlanner.plan(mounts, scanNetworkMounts);
+                mountPoints = plan.getMountPoints();
+                return plan.getRootsByDevice();
             }
         }
-        isStopped = true;
-        return repos;
+        // drives are assumed to be separate devices
+        List<List<Path>> roots = new ArrayList<>();
+        for (File driveRoot : File.listRoots()) {
+            roots.add(Collections.singletonList(driveRoot.toPath()));
+        }
+        return roots;
     }
 
     /**
-     * Scan all directories below {@code rootDir}
-     * @param rootDir Root
-     * @param repos Current repo list
-     * @param cb Callback
+     * Mark a directory as visited.
+     * @param dir Directory
+     * @param attrs Attributes of the directory
+     * @return True, if the directory was not visited before
      */
-    private void scanForReposRecursive(File rootDir, List<File> repos, RepoScanCallback cb) {
-        if (!isStopped) {
-            // if repo found
-            if (rootDir.getName().equals(".git")) {
-                // when excludeNoRemote is true, only add repo to found list if it has a valid remote
-                if (!excludeNoRemote || gitManager.hasRemoteRepository(rootDir.getParentFile().getAbsolutePath())) {
-                    repos.add(rootDir.getParentFile());     // add repo folder to list
-                    cb.repoFound(rootDir.getParentFile());
+    private boolean markVisited(Path dir, BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        if (key == null) {
+            // file keys are not supported on all platforms, fall back to the real path
+            try {
+                key = dir.toRealPath();
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+        return visitedDirs.add(key);
+    }
+
+    private boolean isExcluded(Path dir) {
+        for (PathMatcher matcher : excludeMatchers) {
+            if (matcher.matches(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void repoFound(Path dir, RepoScanCallback cb) {
+        File repoDir = dir.toFile();
+        // when excludeNoRemote is true, only add repo to found list if it has a valid remote
+        if (!excludeNoRemote || GitManager.getInstance().hasRemoteRepository(repoDir.getAbsolutePath())) {
+            foundRepos.add(repoDir);
+            cb.repoFound(repoDir);
+        }
+    }
+
+    /**
+     * Scans a directory and forks a task for each sub directory to scan.
+     * Returns the scanned state of the directory for the index (null if not scanned).
+     */
+    private class ScanTask extends RecursiveTask<DirectoryIndex.Node> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final DirectoryIndex.Node cached;
+        private final RepoScanCallback cb;
+
+        private ScanTask(Path dir, DirectoryIndex.Node cached, RepoScanCallback cb) {
+            this.dir = dir;
+            this.cached = cached;
+            this.cb = cb;
+        }
+
+        @Override
+        protected DirectoryIndex.Node compute() {
+            // keep the recorded state of directories not reached before the scan was stopped
+            if (isStopped || (throttle != null && !throttle.acquire(RepoScanner.this::isStopped))) {
+                return cached;
+            }
+            BasicFileAttributes dirAttrs;
+            try {
+                dirAttrs = Files.readAttributes(dir, BasicFileAttributes.class);
+                if (!markVisited(dir, dirAttrs)) {
+                    return null;
+                }
+            } catch (IOException | SecurityException ex) {
+                return null;
+            }
+            cb.dirScanned();
+
+            long mtime = dirAttrs.lastModifiedTime().toMillis();
+            boolean isRepo = false;
+            List<ScanTask> subTasks = new ArrayList<>();
+            if (cached != null && cached.getMtime() != DirectoryIndex.UNKNOWN_MTIME && cached.getMtime() == mtime) {
+                // directory unchanged, so its recorded sub directories are still complete
+                isRepo = cached.isRepo() && Files.isDirectory(dir.resolve(GIT_DIR));
+                for (DirectoryIndex.Node child : cached.getChildren()) {
+                    Path childPath = dir.resolve(child.getName());
+                    if (!mountPoints.contains(childPath)) {
+                        subTasks.add(new ScanTask(childPath, child, cb));
+                    }
                 }
             } else {
-                cb.dirScanned();
-                File[] childDirs = rootDir.listFiles(File::isDirectory);
-                if (childDirs != null) {
-                    for (File childDir : childDirs)
-                        scanForReposRecursive(childDir, repos, cb);
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                    for (Path child : children) {
+                        String name = child.getFileName().toString();
+                        boolean isGitDir = name.equals(GIT_DIR);
+                        // skipped paths are not accessed at all (e.g. stat of a dead network mount would block)
+                        if (!isGitDir && (mountPoints.contains(child) || isExcluded(child))) {
+                            continue;
+                        }
+                        BasicFileAttributes attrs;
+                        try {
+                            // follows symlinks, cycles are detected by the visited check
+                            attrs = Files.readAttributes(child, BasicFileAttributes.class);
+                        } catch (IOException | SecurityException ex) {
+                            continue;
+                        }
+                        if (!attrs.isDirectory()) {
+                            continue;
+                        }
+                        if (isGitDir) {
+                            isRepo = true;
+                        } else {
+                            subTasks.add(new ScanTask(child, cached != null ? cached.getChild(name) : null, cb));
+                        }
+                    }
+                } catch (IOException | DirectoryIteratorException | SecurityException ex) {
+                    // directory not readable, skip it
+                    return null;
+                }
+            }
+
+            List<DirectoryIndex.Node> childNodes = new ArrayList<>();
+            if (isRepo) {
+                repoFound(dir, cb);
+            }
+            if (!isRepo || scanSubmodules) {
+                for (ScanTask subTask : invokeAll(subTasks)) {
+                    DirectoryIndex.Node childNode = subTask.join();
+                    if (childNode != null) {
+                        childNodes.add(childNode);
+                    }
                 }
             }
+            Path fileName = dir.getFileName();
+            // sub directories may have been skipped if the scan was stopped meanwhile
+            boolean incomplete = isStopped || mtime >= scanStart - RACY_MTIME_MS;
+            return new DirectoryIndex.Node(fileName != null ? fileName.toString() : dir.toString(),
+                    incomplete ? DirectoryIndex.UNKNOWN_MTIME : mtime,
+                    isRepo, childNodes.toArray(new DirectoryIndex.Node[0]));
         }
     }
 }
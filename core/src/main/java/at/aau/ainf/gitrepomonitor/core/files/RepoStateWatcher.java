@@ -0,0 +1,435 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the Git directories of repos for changes made outside of the application
+ * (e.g. commits, checkouts or fetches on the command line).
+ * HEAD, index, FETCH_HEAD, MERGE_HEAD and packed-refs as well as all refs are watched using a {@link WatchService}
+ * (inotify on Linux). Events of a repo are coalesced, so the listener is called once per burst of changes.
+ * The number of watched directories is limited (inotify watches are a per-user resource), repos exceeding the
+ * limit are polled instead, as are repos whose watches could not be registered.
+ */
+public class RepoStateWatcher {
+    // changes of a repo within this time are reported as one
+    static final long DEBOUNCE_MS = 300;
+    // interval in which repos not watched by the watch service are checked
+    static final long POLL_INTERVAL_MS = 5000;
+    private static final Path INOTIFY_MAX_WATCHES = Paths.get("/proc/sys/fs/inotify/max_user_watches");
+    // message of the exception thrown by the Linux watch service if the inotify watch limit of the user is reached
+    private static final String INOTIFY_LIMIT_MESSAGE = "User limit of inotify watches reached";
+    private static final String REFS_DIR = "refs";
+    private static final Set<String> WATCHED_FILES = new HashSet<>(Arrays.asList(
+            "HEAD", "index", "FETCH_HEAD", "MERGE_HEAD", "packed-refs"));
+
+    /**
+     * Listener called (on the watcher thread) after the state of a repo changed.
+     */
+    public interface Listener {
+        void repoStateChanged(UUID repoID);
+    }
+
+    private final Listener listener;
+    private final int maxWatches;
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler;
+    private final Map<UUID, WatchedRepo> repos;
+    private final Map<WatchKey, WatchedRepo> keys;
+    private volatile boolean isStopped;
+    // set once the inotify watch limit was reached, later repos are polled right away (reset by setRepos)
+    private boolean isWatchLimitReached;
+
+    /**
+     * Create watcher with the watch limit from the settings.
+     * @param listener Listener notified of changed repos
+     */
+    public RepoStateWatcher(Listener listener) {
+        this(listener, getDefaultMaxWatches(), POLL_INTERVAL_MS);
+    }
+
+    /**
+     * @param listener Listener notified of changed repos
+     * @param maxWatches Max. number of watched directories (0 to poll all repos)
+     * @param pollInterval Interval in ms in which polled repos are checked
+     */
+    protected RepoStateWatcher(Listener listener, int maxWatches, long pollInterval) {
+        this.listener = listener;
+        this.maxWatches = maxWatches;
+        this.repos = new HashMap<>();
+        this.keys = new HashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        WatchService service = null;
+        if (maxWatches > 0) {
+            try {
+                service = FileSystems.getDefault().newWatchService();
+            } catch (IOException | UnsupportedOperationException ex) {
+                Logger.getAnonymousLogger().warning("could not create watch service, polling repos: " + ex.getMessage());
+            }
+        }
+        this.watchService = service;
+        if (watchService != null) {
+            Thread eventThread = new Thread(this::processEvents, "repo-state-watcher");
+            eventThread.setDaemon(true);
+            eventThread.start();
+        }
+        scheduler.scheduleWithFixedDelay(this::pollRepos, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Half of the inotify watches available to the user are used at most (the rest is left to other applications).
+     * @return Max. number of watched directories
+     */
+    private static int getDefaultMaxWatches() {
+        int maxWatches = Settings.getSettings().getRepoStateMaxWatches();
+        try {
+            if (Files.isReadable(INOTIFY_MAX_WATCHES)) {
+                int userLimit = Integer.parseInt(new String(Files.readAllBytes(INOTIFY_MAX_WATCHES)).trim());
+                maxWatches = Math.min(maxWatches, userLimit / 2);
+            }
+        } catch (IOException | NumberFormatException ex) {
+            // use configured limit
+        }
+        return maxWatches;
+    }
+
+    /**
+     * Set the repos to watch. Repos no longer contained are not watched anymore.
+     * Watching polled repos is attempted again, since watches may have become available in the meantime.
+     * @param repoPaths Paths of the repos to watch by repo ID
+     */
+    public synchronized void setRepos(Map<UUID, String> repoPaths) {
+        if (isStopped) {
+            return;
+        }
+        for (Iterator<WatchedRepo> it = repos.values().iterator(); it.hasNext(); ) {
+            WatchedRepo repo = it.next();
+            String path = repoPaths.get(repo.id);
+            if (path == null || !repo.gitDir.equals(getGitDir(path))) {
+                unwatch(repo);
+                it.remove();
+            }
+        }
+        isWatchLimitReached = false;
+        for (WatchedRepo repo : repos.values()) {
+            if (repo.isPolled && tryWatch(repo)) {
+                repo.isPolled = false;
+                // changes since the last poll would be missed otherwise
+                if (repo.fingerprint != fingerprint(repo.gitDir)) {
+                    scheduleNotification(repo);
+                }
+            }
+        }
+        repoPaths.forEach((id, path) -> {
+            if (!repos.containsKey(id)) {
+                WatchedRepo repo = new WatchedRepo(id, getGitDir(path));
+                repos.put(id, repo);
+                watch(repo);
+            }
+        });
+    }
+
+    private static Path getGitDir(String repoPath) {
+        return Paths.get(repoPath, ".git").toAbsolutePath();
+    }
+
+    /**
+     * @return Number of repos checked by polling
+     */
+    public synchronized int getPolledRepoCount() {
+        return (int) repos.values().stream().filter(repo -> repo.isPolled).count();
+    }
+
+    /**
+     * @return Number of watched directories
+     */
+    public synchronized int getWatchCount() {
+        return keys.size();
+    }
+
+    /**
+     * Stop watching all repos and release the watch service.
+     */
+    public synchronized void stop() {
+        isStopped = true;
+        scheduler.shutdownNow();
+        repos.values().forEach(this::unwatch);
+        repos.clear();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                // nothing to release anymore
+            }
+        }
+    }
+
+    /**
+     * Register watches for the Git dir and all ref directories of a repo, or poll it if that is not possible.
+     */
+    private void watch(WatchedRepo repo) {
+        if (!tryWatch(repo)) {
+            repo.isPolled = true;
+            repo.fingerprint = fingerprint(repo.gitDir);
+        }
+    }
+
+    /**
+     * Register watches for the Git dir and all ref directories of a repo.
+     * @return False, if the repo could not be watched (no watch is registered then)
+     */
+    private boolean tryWatch(WatchedRepo repo) {
+        List<Path> dirs = listWatchedDirs(repo.gitDir);
+        if (watchService == null || isWatchLimitReached || dirs.isEmpty() || keys.size() + dirs.size() > maxWatches) {
+            return false;
+        }
+        try {
+            for (Path dir : dirs) {
+                register(repo, dir);
+            }
+            return true;
+        } catch (IOException ex) {
+            Logger.getAnonymousLogger().info("could not watch " + repo.gitDir + ", polling: " + ex.getMessage());
+            isWatchLimitReached = isWatchLimitError(ex);
+            unwatch(repo);
+            return false;
+        }
+    }
+
+    /**
+     * @return True, iff the exception was thrown because the inotify watch limit of the user is reached
+     * (other errors, e.g. a directory deleted meanwhile, only affect a single repo)
+     */
+    private static boolean isWatchLimitError(IOException ex) {
+        return ex.getMessage() != null && ex.getMessage().contains(INOTIFY_LIMIT_MESSAGE);
+    }
+
+    private void register(WatchedRepo repo, Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        keys.put(key, repo);
+        repo.keys.put(key, dir);
+    }
+
+    private void unwatch(WatchedRepo repo) {
+        repo.keys.keySet().forEach(key -> {
+            key.cancel();
+            keys.remove(key);
+        });
+        repo.keys.clear();
+    }
+
+    /**
+     * @return The Git dir and all directories below refs, or an empty list if the Git dir cannot be read
+     */
+    private static List<Path> listWatchedDirs(Path gitDir) {
+        if (!Files.isDirectory(gitDir)) {
+            return Collections.emptyList();
+        }
+        List<Path> dirs = new ArrayList<>();
+        dirs.add(gitDir);
+        try (Stream<Path> refDirs = Files.walk(gitDir.resolve(REFS_DIR))) {
+            dirs.addAll(refDirs.filter(Files::isDirectory).collect(Collectors.toList()));
+        } catch (IOException | UncheckedIOException ex) {
+            // refs are only contained in packed-refs
+        }
+        return dirs;
+    }
+
+    /**
+     * Take events from the watch service until it is closed.
+     */
+    private void processEvents() {
+        while (!isStopped) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            synchronized (this) {
+                WatchedRepo repo = keys.get(key);
+                List<WatchEvent<?>> events = key.pollEvents();
+                if (repo == null) {
+                    continue;
+                }
+                Path dir = repo.keys.get(key);
+                boolean changed = false;
+                for (WatchEvent<?> event : events) {
+                    if (event.kind() == OVERFLOW) {
+                        // events were lost, so every repo may have changed
+                        repos.values().forEach(this::scheduleNotification);
+                        continue;
+                    }
+                    Path name = (Path) event.context();
+                    if (!dir.equals(repo.gitDir)) {
+                        changed = true;
+                        // new ref directories (e.g. for branch names containing "/") are watched as well
+                        Path child = dir.resolve(name);
+                        if (event.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                            watchNewDir(repo, child);
+                        }
+                    } else if (WATCHED_FILES.contains(name.toString())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    scheduleNotification(repo);
+                }
+                if (!key.reset()) {
+                    // directory was deleted
+                    keys.remove(key);
+                    repo.keys.remove(key);
+                    if (dir.equals(repo.gitDir) && !repo.isPolled) {
+                        // repo was (re)moved, poll it to notice when it is restored
+                        unwatch(repo);
+                        repo.isPolled = true;
+                        repo.fingerprint = fingerprint(repo.gitDir);
+                        scheduleNotification(repo);
+                    }
+                }
+            }
+        }
+    }
+
+    private void watchNewDir(WatchedRepo repo, Path dir) {
+        try (Stream<Path> dirs = Files.walk(dir)) {
+            for (Path newDir : dirs.filter(Files::isDirectory).collect(Collectors.toList())) {
+                if (keys.size() >= maxWatches) {
+                    throw new IOException("watch limit reached");
+                }
+                register(repo, newDir);
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            // refs below the directory would be missed, so poll the repo
+            if (ex instanceof IOException && isWatchLimitError((IOException) ex)) {
+                isWatchLimitReached = true;
+            }
+            unwatch(repo);
+            repo.isPolled = true;
+            repo.fingerprint = fingerprint(repo.gitDir);
+        }
+    }
+
+    /**
+     * Notify the listener of a changed repo after the debounce time, unless a notification is already pending.
+     */
+    private void scheduleNotification(WatchedRepo repo) {
+        if (repo.pendingNotification != null || isStopped) {
+            return;
+        }
+        repo.pendingNotification = scheduler.schedule(() -> {
+            synchronized (this) {
+                repo.pendingNotification = null;
+                if (repos.get(repo.id) != repo) {
+                    return;
+                }
+            }
+            try {
+                listener.repoStateChanged(repo.id);
+            } catch (RuntimeException ex) {
+                Logger.getAnonymousLogger().warning("could not handle repo change: " + ex.getMessage());
+            }
+        }, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void pollRepos() {
+        for (WatchedRepo repo : repos.values()) {
+            if (repo.isPolled) {
+                long fingerprint = fingerprint(repo.gitDir);
+                if (fingerprint != repo.fingerprint) {
+                    repo.fingerprint = fingerprint;
+                    scheduleNotification(repo);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param repoPath Path of the repo
+     * @return Time (ms) of the last modification of HEAD, FETCH_HEAD, MERGE_HEAD, packed-refs or any ref
+     *         (0 if none exists)
+     */
+    static long getLastRefChange(String repoPath) {
+        Path gitDir = getGitDir(repoPath);
+        long lastChange = 0;
+        for (String file : WATCHED_FILES) {
+            // the index does not affect the status
+            if (!file.equals("index")) {
+                lastChange = Math.max(lastChange, lastModified(gitDir.resolve(file)));
+            }
+        }
+        try (Stream<Path> refs = Files.walk(gitDir.resolve(REFS_DIR))) {
+            for (Path ref : (Iterable<Path>) refs::iterator) {
+                lastChange = Math.max(lastChange, lastModified(ref));
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            // refs are only contained in packed-refs
+        }
+        return lastChange;
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Hash of the modification times and sizes of the watched files and ref directories of a repo.
+     * Refs are written by renaming lock files, which changes the modification time of their directory.
+     */
+    static long fingerprint(Path gitDir) {
+        long hash = 17;
+        for (String file : WATCHED_FILES) {
+            hash = 31 * hash + fileFingerprint(gitDir.resolve(file));
+        }
+        try (Stream<Path> refDirs = Files.walk(gitDir.resolve(REFS_DIR))) {
+            for (Path dir : (Iterable<Path>) refDirs::iterator) {
+                hash = 31 * hash + fileFingerprint(dir);
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            hash = 31 * hash;
+        }
+        return hash;
+    }
+
+    private static long fileFingerprint(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS) * 31 + attrs.size();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static class WatchedRepo {
+        private final UUID id;
+        private final Path gitDir;
+        // watched directories by key
+        private final Map<WatchKey, Path> keys;
+        private boolean isPolled;
+        private long fingerprint;
+        private ScheduledFuture<?> pendingNotification;
+
+        private WatchedRepo(UUID id, Path gitDir) {
+            this.id = id;
+            this.gitDir = gitDir;
+            this.keys = new HashMap<>();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package at.aau.ainf.gitrepomonitor.core.files;
 
+import at.aau.ainf.gitrepomonitor.core.git.AheadBehind;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.revwalk.RevCommit;
 
@@ -72,6 +73,16 @@ public class RepositoryInformation implements Comparable<RepositoryInformation>,
     private AuthMethod authMethod;
     private RepositoryInformation reflect;
     private RevCommit lastCommit;
+    private AheadBehind aheadBehind;
+    // summary of the last commit (also available if loaded from the persisted snapshot)
+    private String lastCommitID;
+    private Date lastCommitDate;
+    private PersonIdent lastCommitAuthor;
+    private Date lastChecked;
+    private boolean stale;
+    // status determined from local refs only (see GitManager#getLocalRepoStatus)
+    private boolean localStatus;
+    private Date lastFetched;
 
     public RepositoryInformation() {
         // generate random UUID upon creation
@@ -203,16 +214,105 @@ public class RepositoryInformation implements Comparable<RepositoryInformation>,
         return lastCommit;
     }
 
+    public String getLastCommitID() {
+        return lastCommitID;
+    }
+
     public Date getLastCommitDate() {
-        return lastCommit != null ? new Date((long)lastCommit.getCommitTime() * 1000) : null;
+        return lastCommitDate;
     }
 
     public PersonIdent getLastCommitAuthor() {
-        return lastCommit != null ? lastCommit.getAuthorIdent() : null;
+        return lastCommitAuthor;
     }
 
     public void setLastCommit(RevCommit lastCommit) {
         this.lastCommit = lastCommit;
+        if (lastCommit != null) {
+            setLastCommitSummary(lastCommit.getName(), new Date((long)lastCommit.getCommitTime() * 1000),
+                    lastCommit.getAuthorIdent());
+        } else {
+            setLastCommitSummary(null, null, null);
+        }
+    }
+
+    /**
+     * Set the summary of the last commit without keeping the commit itself (which holds its raw data),
+     * e.g. for repos which are only refreshed in the background.
+     * @param lastCommit Last commit (null if there is none)
+     */
+    public void setLastCommitSummary(RevCommit lastCommit) {
+        setLastCommit(lastCommit);
+        this.lastCommit = null;
+    }
+
+    /**
+     * Set the summary of the last commit without the commit itself (e.g. when loaded from the persisted snapshot).
+     * @param id Commit ID
+     * @param date Commit date
+     * @param author Commit author
+     */
+    public void setLastCommitSummary(String id, Date date, PersonIdent author) {
+        this.lastCommitID = id;
+        this.lastCommitDate = date;
+        this.lastCommitAuthor = author;
+    }
+
+    /**
+     * @return Time of the last status check, or null if never checked.
+     */
+    public Date getLastChecked() {
+        return lastChecked;
+    }
+
+    public void setLastChecked(Date lastChecked) {
+        this.lastChecked = lastChecked;
+    }
+
+    /**
+     * @return True, if status and last commit were loaded from the persisted snapshot and not re-checked yet.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+
+    /**
+     * @return True, if the status was determined from the remote-tracking refs of the last fetch, without
+     *         accessing the remote.
+     */
+    public boolean isLocalStatus() {
+        return localStatus;
+    }
+
+    public void setLocalStatus(boolean localStatus) {
+        this.localStatus = localStatus;
+    }
+
+    /**
+     * @return Time of the last fetch (of the application or any other Git client), or null if unknown.
+     */
+    public Date getLastFetched() {
+        return lastFetched;
+    }
+
+    public void setLastFetched(Date lastFetched) {
+        this.lastFetched = lastFetched;
+    }
+
+    /**
+     * @return Commits ahead / behind the remote branch determined by the last status check,
+     *         or null if unknown.
+     */
+    public AheadBehind getAheadBehind() {
+        return aheadBehind;
+    }
+
+    public void setAheadBehind(AheadBehind aheadBehind) {
+        this.aheadBehind = aheadBehind;
     }
 
     @Override
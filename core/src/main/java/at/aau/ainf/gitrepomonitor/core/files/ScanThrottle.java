@@ -0,0 +1,80 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Limits the I/O of low-impact scans, so scans can run in the background while the PC is in use.
+ * Directory reads are spaced evenly to stay below the configured rate, and paused completely while the pause
+ * condition holds (e.g. while Git operations started by the user are running).
+ */
+public class ScanThrottle {
+    // interval in which the pause condition is checked again
+    private static final long PAUSE_POLL_MS = 100;
+
+    private final long intervalNanos;
+    private final int maxThreads;
+    private final BooleanSupplier pauseCondition;
+    private long nextReadTime;
+
+    /**
+     * @param maxDirsPerSecond Max. number of directories read per second (0 for unlimited)
+     * @param maxThreads Max. number of scanner threads per device
+     * @param pauseCondition Scan is paused while true (may be null)
+     */
+    public ScanThrottle(int maxDirsPerSecond, int maxThreads, BooleanSupplier pauseCondition) {
+        this.intervalNanos = maxDirsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxDirsPerSecond : 0;
+        this.maxThreads = Math.max(1, maxThreads);
+        this.pauseCondition = pauseCondition;
+        this.nextReadTime = System.nanoTime();
+    }
+
+    /**
+     * Create throttle using the scan settings, pausing while Git operations started by the user are running.
+     * @param gitOperationCount Supplies the number of running Git operations started by the user
+     * @return Throttle
+     */
+    public static ScanThrottle fromSettings(IntSupplier gitOperationCount) {
+        Settings settings = Settings.getSettings();
+        return new ScanThrottle(settings.getScanThrottleDirsPerSecond(), settings.getScanThrottleThreads(),
+                () -> gitOperationCount.getAsInt() > 0);
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Wait until the next directory may be read.
+     * @param isCancelled Checked while waiting
+     * @return False, if the scan was cancelled or the thread interrupted while waiting
+     */
+    public boolean acquire(BooleanSupplier isCancelled) {
+        try {
+            while (pauseCondition != null && pauseCondition.getAsBoolean()) {
+                if (isCancelled.getAsBoolean()) {
+                    return false;
+                }
+                Thread.sleep(PAUSE_POLL_MS);
+            }
+            if (intervalNanos == 0) {
+                return !isCancelled.getAsBoolean();
+            }
+            long readTime;
+            synchronized (this) {
+                // a paused or idle scan does not build up a burst of reads
+                readTime = Math.max(nextReadTime, System.nanoTime());
+                nextReadTime = readTime + intervalNanos;
+            }
+            long waitNanos = readTime - System.nanoTime();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            return !isCancelled.getAsBoolean();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -7,6 +7,9 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -76,6 +79,28 @@ public class Settings implements Cloneable {
     private boolean cacheEnabled = true;
     private CacheClearMethod clearMethod = CacheClearMethod.NONE;
     private Integer clearValue;
+    private boolean probeBeforeFetch = true;
+    private int maxNetworkOperations = 10;
+    private int maxNetworkOperationsPerHost = 4;
+    private ExecutionMode executionMode = ExecutionMode.THREAD_POOL;
+    private boolean backgroundChecksEnabled = true;
+    private int commitLogCacheSize = 32;
+    private int repoCacheSize = 64;
+    private int packedGitLimit = 10;
+    private int packedGitOpenFiles = 128;
+    private boolean packedGitMMAP = false;
+    private int deltaBaseCacheLimit = 10;
+    private List<String> scanExcludePatterns = new ArrayList<>(Arrays.asList(
+            "**/node_modules", "**/.gradle", "**/.m2", "**/.npm", "**/.cache", "**/__pycache__", "**/.venv",
+            "**/$Recycle.Bin", "**/.Trash*"));
+    private boolean scanSubmodules = false;
+    private int scanThreads = 8;
+    private boolean scanNetworkMounts = false;
+    private boolean scanLowImpact = false;
+    private int scanThrottleDirsPerSecond = 200;
+    private int scanThrottleThreads = 1;
+    private int repoStateMaxWatches = 8192;
+    private int kdfTargetMillis = 250;
 
     public enum CacheClearMethod {
         NONE,
@@ -83,6 +108,11 @@ public class Settings implements Cloneable {
         EXPIRATION_TIME
     }
 
+    public enum ExecutionMode {
+        THREAD_POOL,
+        VIRTUAL_THREADS
+    }
+
     public boolean isCacheEnabled() {
         return cacheEnabled;
     }
@@ -107,6 +137,228 @@ public class Settings implements Cloneable {
         this.clearValue = clearValue;
     }
 
+    /**
+     * @return True, if a status check should query the remote branch head (ls-remote) first
+     *         and only fetch if it differs from the local remote-tracking branch.
+     */
+    public boolean isProbeBeforeFetch() {
+        return probeBeforeFetch;
+    }
+
+    public void setProbeBeforeFetch(boolean probeBeforeFetch) {
+        this.probeBeforeFetch = probeBeforeFetch;
+    }
+
+    /**
+     * @return Max. number of network operations (fetch, pull, connection test) running at the same time.
+     */
+    public int getMaxNetworkOperations() {
+        return maxNetworkOperations;
+    }
+
+    public void setMaxNetworkOperations(int maxNetworkOperations) {
+        this.maxNetworkOperations = maxNetworkOperations;
+    }
+
+    /**
+     * @return Upper bound of network operations running at the same time against a single host.
+     *         The actual limit adapts to the observed latency and error rate of the host.
+     */
+    public int getMaxNetworkOperationsPerHost() {
+        return maxNetworkOperationsPerHost;
+    }
+
+    public void setMaxNetworkOperationsPerHost(int maxNetworkOperationsPerHost) {
+        this.maxNetworkOperationsPerHost = maxNetworkOperationsPerHost;
+    }
+
+    /**
+     * @return Execution mode of async operations (applied at startup).
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * @return True, if repos on the Watchlist should be checked periodically in the background.
+     */
+    public boolean isBackgroundChecksEnabled() {
+        return backgroundChecksEnabled;
+    }
+
+    public void setBackgroundChecksEnabled(boolean backgroundChecksEnabled) {
+        this.backgroundChecksEnabled = backgroundChecksEnabled;
+    }
+
+    /**
+     * @return Max. size of the in-memory commit log cache in MB.
+     */
+    public int getCommitLogCacheSize() {
+        return commitLogCacheSize;
+    }
+
+    public void setCommitLogCacheSize(int commitLogCacheSize) {
+        this.commitLogCacheSize = commitLogCacheSize;
+    }
+
+    /**
+     * @return Max. number of repositories kept open.
+     */
+    public int getRepoCacheSize() {
+        return repoCacheSize;
+    }
+
+    public void setRepoCacheSize(int repoCacheSize) {
+        this.repoCacheSize = repoCacheSize;
+    }
+
+    /**
+     * @return Max. memory used for cached pack file windows of all repositories in MB.
+     */
+    public int getPackedGitLimit() {
+        return packedGitLimit;
+    }
+
+    public void setPackedGitLimit(int packedGitLimit) {
+        this.packedGitLimit = packedGitLimit;
+    }
+
+    /**
+     * @return Max. number of pack files kept open.
+     */
+    public int getPackedGitOpenFiles() {
+        return packedGitOpenFiles;
+    }
+
+    public void setPackedGitOpenFiles(int packedGitOpenFiles) {
+        this.packedGitOpenFiles = packedGitOpenFiles;
+    }
+
+    /**
+     * @return True, if pack files should be accessed using memory mapping.
+     */
+    public boolean isPackedGitMMAP() {
+        return packedGitMMAP;
+    }
+
+    public void setPackedGitMMAP(boolean packedGitMMAP) {
+        this.packedGitMMAP = packedGitMMAP;
+    }
+
+    /**
+     * @return Max. memory used for cached delta bases in MB.
+     */
+    public int getDeltaBaseCacheLimit() {
+        return deltaBaseCacheLimit;
+    }
+
+    public void setDeltaBaseCacheLimit(int deltaBaseCacheLimit) {
+        this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+    }
+
+    /**
+     * @return Glob patterns of directories skipped by repo scans (matched against the absolute path).
+     */
+    public List<String> getScanExcludePatterns() {
+        return scanExcludePatterns;
+    }
+
+    public void setScanExcludePatterns(List<String> scanExcludePatterns) {
+        this.scanExcludePatterns = scanExcludePatterns;
+    }
+
+    /**
+     * @return True, if repo scans should also search the working trees of found repos (e.g. for submodules).
+     */
+    public boolean isScanSubmodules() {
+        return scanSubmodules;
+    }
+
+    public void setScanSubmodules(boolean scanSubmodules) {
+        this.scanSubmodules = scanSubmodules;
+    }
+
+    /**
+     * @return Number of threads used by repo scans (per device for whole-PC scans).
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    /**
+     * @return True, if whole-PC scans should include network filesystems (Linux only).
+     */
+    public boolean isScanNetworkMounts() {
+        return scanNetworkMounts;
+    }
+
+    public void setScanNetworkMounts(boolean scanNetworkMounts) {
+        this.scanNetworkMounts = scanNetworkMounts;
+    }
+
+    /**
+     * @return True, if repo scans should be throttled to keep the PC responsive.
+     */
+    public boolean isScanLowImpact() {
+        return scanLowImpact;
+    }
+
+    public void setScanLowImpact(boolean scanLowImpact) {
+        this.scanLowImpact = scanLowImpact;
+    }
+
+    /**
+     * @return Max. number of directories read per second by low-impact scans (0 for unlimited).
+     */
+    public int getScanThrottleDirsPerSecond() {
+        return scanThrottleDirsPerSecond;
+    }
+
+    public void setScanThrottleDirsPerSecond(int scanThrottleDirsPerSecond) {
+        this.scanThrottleDirsPerSecond = scanThrottleDirsPerSecond;
+    }
+
+    /**
+     * @return Number of threads used by low-impact scans (per device for whole-PC scans).
+     */
+    public int getScanThrottleThreads() {
+        return scanThrottleThreads;
+    }
+
+    public void setScanThrottleThreads(int scanThrottleThreads) {
+        this.scanThrottleThreads = scanThrottleThreads;
+    }
+
+    /**
+     * @return Max. number of directories watched for changes of the repo state (further repos are polled).
+     */
+    public int getRepoStateMaxWatches() {
+        return repoStateMaxWatches;
+    }
+
+    public void setRepoStateMaxWatches(int repoStateMaxWatches) {
+        this.repoStateMaxWatches = repoStateMaxWatches;
+    }
+
+    /**
+     * @return Time in ms the key derivation from the master password should take on this host.
+     */
+    public int getKdfTargetMillis() {
+        return kdfTargetMillis;
+    }
+
+    public void setKdfTargetMillis(int kdfTargetMillis) {
+        this.kdfTargetMillis = kdfTargetMillis;
+    }
+
     @Override
     public Object clone() {
         try {
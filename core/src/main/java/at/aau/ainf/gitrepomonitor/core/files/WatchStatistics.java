@@ -0,0 +1,51 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import java.util.UUID;
+
+/**
+ * Polling state of a repo on the Watchlist used for background status checks.
+ */
+public class WatchStatistics {
+    private final UUID repoID;
+    // current polling interval in ms
+    private long pollInterval;
+    // time of next scheduled check (epoch ms)
+    private long nextCheck;
+    // time at which a remote change was last observed (epoch ms, 0 if never)
+    private long lastChange;
+
+    public WatchStatistics(UUID repoID, long pollInterval, long nextCheck, long lastChange) {
+        this.repoID = repoID;
+        this.pollInterval = pollInterval;
+        this.nextCheck = nextCheck;
+        this.lastChange = lastChange;
+    }
+
+    public UUID getRepoID() {
+        return repoID;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public long getNextCheck() {
+        return nextCheck;
+    }
+
+    public void setNextCheck(long nextCheck) {
+        this.nextCheck = nextCheck;
+    }
+
+    public long getLastChange() {
+        return lastChange;
+    }
+
+    public void setLastChange(long lastChange) {
+        this.lastChange = lastChange;
+    }
+}
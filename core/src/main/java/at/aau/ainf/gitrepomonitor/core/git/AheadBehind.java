@@ -0,0 +1,130 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Number of commits a local branch is ahead of / behind its remote counterpart.
+ */
+public class AheadBehind {
+    private final int ahead;
+    private final int behind;
+    private final boolean aheadCapped;
+    private final boolean behindCapped;
+
+    public AheadBehind(int ahead, int behind) {
+        this(ahead, behind, false, false);
+    }
+
+    public AheadBehind(int ahead, int behind, boolean aheadCapped, boolean behindCapped) {
+        this.ahead = ahead;
+        this.behind = behind;
+        this.aheadCapped = aheadCapped;
+        this.behindCapped = behindCapped;
+    }
+
+    /**
+     * Count the commits exclusive to {@code local} (ahead) and exclusive to {@code remote} (behind).
+     * Only the commits between the merge base(s) and both tips are walked, so the cost depends on how far
+     * the two branches diverged and not on the size of the history.
+     * @param repo Repository containing both commits
+     * @param local Tip of the local branch (may be null, e.g. if the branch has no commits yet)
+     * @param remote Tip of the remote branch (may be null)
+     * @param cap Stop counting a side once it reaches this many commits (values <= 0 disable the cap)
+     * @return Ahead / behind counts
+     * @throws IOException If the commits cannot be read
+     */
+    public static AheadBehind count(Repository repo, ObjectId local, ObjectId remote, int cap) throws IOException {
+        try (RevWalk walk = new RevWalk(repo)) {
+            RevCommit localCommit = local != null ? walk.parseCommit(local) : null;
+            RevCommit remoteCommit = remote != null ? walk.parseCommit(remote) : null;
+
+            List<RevCommit> mergeBases = new ArrayList<>();
+            if (localCommit != null && remoteCommit != null) {
+                walk.setRevFilter(RevFilter.MERGE_BASE);
+                walk.markStart(localCommit);
+                walk.markStart(remoteCommit);
+                for (RevCommit base = walk.next(); base != null; base = walk.next()) {
+                    mergeBases.add(base);
+                }
+                walk.reset();
+                walk.setRevFilter(RevFilter.ALL);
+            }
+
+            int ahead = countExclusive(walk, localCommit, mergeBases, cap);
+            walk.reset();
+            int behind = countExclusive(walk, remoteCommit, mergeBases, cap);
+            return new AheadBehind(ahead, behind, cap > 0 && ahead >= cap, cap > 0 && behind >= cap);
+        }
+    }
+
+    public static AheadBehind count(Repository repo, ObjectId local, ObjectId remote) throws IOException {
+        return count(repo, local, remote, 0);
+    }
+
+    /**
+     * Count commits reachable from {@code tip} but not from any of the merge bases.
+     * @param walk Walk to use (must be reset)
+     * @param tip Start commit (if null, 0 is returned)
+     * @param mergeBases Commits at which to stop walking
+     * @param cap Maximum count (<= 0 for no limit)
+     * @return Number of exclusive commits (at most {@code cap})
+     * @throws IOException If commits cannot be read
+     */
+    private static int countExclusive(RevWalk walk, RevCommit tip, List<RevCommit> mergeBases, int cap) throws IOException {
+        if (tip == null) {
+            return 0;
+        }
+        walk.markStart(tip);
+        for (RevCommit base : mergeBases) {
+            walk.markUninteresting(base);
+        }
+        int count = 0;
+        while ((cap <= 0 || count < cap) && walk.next() != null) {
+            count++;
+        }
+        return count;
+    }
+
+    public int getAhead() {
+        return ahead;
+    }
+
+    public int getBehind() {
+        return behind;
+    }
+
+    /**
+     * @return True, if counting stopped at the cap (i.e. the branch is at least {@link #getAhead()} commits ahead)
+     */
+    public boolean isAheadCapped() {
+        return aheadCapped;
+    }
+
+    /**
+     * @return True, if counting stopped at the cap (i.e. the branch is at least {@link #getBehind()} commits behind)
+     */
+    public boolean isBehindCapped() {
+        return behindCapped;
+    }
+
+    public boolean isAhead() {
+        return ahead > 0;
+    }
+
+    public boolean isBehind() {
+        return behind > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "\u2191" + ahead + (aheadCapped ? "+" : "") + " \u2193" + behind + (behindCapped ? "+" : "");
+    }
+}
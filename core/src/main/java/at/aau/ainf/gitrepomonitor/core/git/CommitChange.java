@@ -8,6 +8,7 @@ import java.util.List;
 /**
  * Wrapper for a commit change.
  * Stores commit and all associated file changes.
+ * File changes may be loaded on demand (see {@link GitManager#getFileChanges(at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation, CommitChange)}).
  */
 public class CommitChange {
     private RevCommit commit;
@@ -18,11 +19,30 @@ public class CommitChange {
         this.fileChanges = fileChanges;
     }
 
+    /**
+     * Create a commit change without file changes (i.e. metadata only).
+     * @param commit Commit
+     */
+    public CommitChange(RevCommit commit) {
+        this(commit, null);
+    }
+
     public RevCommit getCommit() {
         return commit;
     }
 
+    /**
+     * @return File changes of the commit or null if they have not been loaded yet.
+     */
     public List<DiffEntry> getFileChanges() {
         return fileChanges;
     }
+
+    public void setFileChanges(List<DiffEntry> fileChanges) {
+        this.fileChanges = fileChanges;
+    }
+
+    public boolean isFileChangesLoaded() {
+        return fileChanges != null;
+    }
 }
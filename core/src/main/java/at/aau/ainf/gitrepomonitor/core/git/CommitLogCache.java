@@ -0,0 +1,224 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of commit logs keyed by repo path and HEAD commit.
+ * Each entry holds the part of the log loaded so far (starting at HEAD), so further pages extend the entry.
+ * Entries are evicted in LRU order once the estimated size of all entries exceeds the max. size.
+ * Since the key contains HEAD, moved HEADs never return stale logs; {@link #invalidate(String)} additionally
+ * frees entries of a repo right away.
+ */
+public class CommitLogCache {
+    // rough estimates of the heap usage of the cached objects
+    private static final int COMMIT_OVERHEAD_BYTES = 128;
+    private static final int DIFF_ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long maxSizeBytes;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long sizeBytes;
+
+    /**
+     * @param maxSizeBytes Max. estimated size of all cached logs in bytes
+     */
+    public CommitLogCache(long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+        // access order for LRU eviction
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get a page of a cached log.
+     * @param path Repo path
+     * @param head Current HEAD of the repo
+     * @param afterCommit Last commit of the previous page (null for first page)
+     * @param limit Max. number of commits in page
+     * @return The page or null if the requested commits are not cached
+     */
+    public synchronized List<CommitChange> getPage(String path, ObjectId head, ObjectId afterCommit, int limit) {
+        Entry entry = entries.get(new Key(path, head));
+        if (entry != null) {
+            int start = afterCommit == null ? 0 : entry.indexOf(afterCommit) + 1;
+            // start == 0 with afterCommit set means afterCommit is not cached
+            if ((afterCommit == null || start > 0) && (entry.complete || start + limit <= entry.commits.size())) {
+                hits.incrementAndGet();
+                return new ArrayList<>(entry.commits.subList(start, Math.min(start + limit, entry.commits.size())));
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Add a loaded page to the cached log of the repo.
+     * The page is only cached if it continues the cached part of the log.
+     * @param path Repo path
+     * @param head Current HEAD of the repo
+     * @param afterCommit Last commit of the previous page (null for first page)
+     * @param limit Max. number of commits requested (if the page contains less, the log is complete)
+     * @param page Loaded page
+     */
+    public synchronized void putPage(String path, ObjectId head, ObjectId afterCommit, int limit, List<CommitChange> page) {
+        Key key = new Key(path, head);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (afterCommit != null) {
+                return;
+            }
+            entry = new Entry();
+            entries.put(key, entry);
+        } else if (afterCommit == null ? !entry.commits.isEmpty() :
+                entry.commits.isEmpty() || !entry.commits.get(entry.commits.size() - 1).getCommit().equals(afterCommit)) {
+            return;
+        }
+
+        entry.commits.addAll(page);
+        entry.complete = page.size() < limit;
+        updateSize(entry);
+        evict();
+    }
+
+    /**
+     * @param path Repo path
+     * @param head Current HEAD of the repo
+     * @return Cached number of commits reachable from HEAD or -1 if unknown
+     */
+    public synchronized int getCommitCount(String path, ObjectId head) {
+        Entry entry = entries.get(new Key(path, head));
+        if (entry != null && entry.commitCount >= 0) {
+            hits.incrementAndGet();
+            return entry.commitCount;
+        }
+        misses.incrementAndGet();
+        return -1;
+    }
+
+    public synchronized void putCommitCount(String path, ObjectId head, int commitCount) {
+        entries.computeIfAbsent(new Key(path, head), k -> new Entry()).commitCount = commitCount;
+        evict();
+    }
+
+    /**
+     * Re-estimate the size of an entry, e.g. after file changes of a cached commit have been loaded.
+     * @param path Repo path
+     * @param head Current HEAD of the repo
+     */
+    public synchronized void update(String path, ObjectId head) {
+        Entry entry = entries.get(new Key(path, head));
+        if (entry != null) {
+            updateSize(entry);
+            evict();
+        }
+    }
+
+    /**
+     * Remove all cached logs of a repo.
+     * @param path Repo path
+     */
+    public synchronized void invalidate(String path) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().path.equals(path)) {
+                sizeBytes -= e.getValue().sizeBytes;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Estimated size of all cached logs in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    private void updateSize(Entry entry) {
+        long size = 0;
+        for (CommitChange change : entry.commits) {
+            byte[] raw = change.getCommit().getRawBuffer();
+            size += COMMIT_OVERHEAD_BYTES + (raw != null ? raw.length : 0);
+            if (change.isFileChangesLoaded()) {
+                for (DiffEntry diff : change.getFileChanges()) {
+                    size += DIFF_ENTRY_OVERHEAD_BYTES + 2L * (diff.getOldPath().length() + diff.getNewPath().length());
+                }
+            }
+        }
+        sizeBytes += size - entry.sizeBytes;
+        entry.sizeBytes = size;
+    }
+
+    /**
+     * Evict least recently used entries until the size limit is met (the most recent entry is always kept).
+     */
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (sizeBytes > maxSizeBytes && entries.size() > 1 && it.hasNext()) {
+            Entry entry = it.next();
+            sizeBytes -= entry.sizeBytes;
+            it.remove();
+        }
+    }
+
+    private static class Key {
+        private final String path;
+        private final ObjectId head;
+
+        private Key(String path, ObjectId head) {
+            this.path = path;
+            this.head = head.copy();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return path.equals(key.path) && head.equals(key.head);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, head);
+        }
+    }
+
+    private static class Entry {
+        private final List<CommitChange> commits = new ArrayList<>();
+        private boolean complete;
+        private int commitCount = -1;
+        private long sizeBytes;
+
+        private int indexOf(ObjectId commit) {
+            for (int i = 0; i < commits.size(); i++) {
+                if (commits.get(i).getCommit().equals(commit)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
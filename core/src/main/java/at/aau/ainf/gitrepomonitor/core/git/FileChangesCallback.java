@@ -0,0 +1,13 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.diff.DiffEntry;
+
+import java.util.List;
+
+/**
+ * Callback for async file change (diff) computation of a single commit.
+ */
+public interface FileChangesCallback {
+
+    void finished(boolean success, List<DiffEntry> fileChanges, Exception ex);
+}
@@ -1,7 +1,9 @@
 package at.aau.ainf.gitrepomonitor.core.git;
 
+import at.aau.ainf.gitrepomonitor.core.files.AsyncExecutors;
 import at.aau.ainf.gitrepomonitor.core.files.FileManager;
 import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
+import at.aau.ainf.gitrepomonitor.core.files.Settings;
 import at.aau.ainf.gitrepomonitor.core.files.Utils;
 import at.aau.ainf.gitrepomonitor.core.authentication.Authenticator;
 import org.eclipse.jgit.api.*;
@@ -12,19 +14,27 @@ import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.transport.FetchConnection;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.EmptyTreeIterator;
-import org.eclipse.jgit.util.MutableInteger;
 
 import javax.naming.AuthenticationException;
 import javax.security.auth.login.CredentialException;
 import java.io.File;
 import java.io.IOException;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.URISyntaxException;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation.RepoStatus.*;
@@ -34,7 +44,11 @@ import static at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation.RepoSt
  */
 public class GitManager {
     private static GitManager instance;
+    // max. number of log walks kept open for loading further pages
+    private static final int MAX_LOG_CURSORS = 4;
     private static final String PATTERN_HEAD_COMMIT = ".*HEAD$";
+    // max. number of commits counted per side when determining ahead / behind
+    private static final int STATUS_COMMIT_COUNT_CAP = 1000;
 
     public static synchronized GitManager getInstance() {
         if (instance == null) {
@@ -49,45 +63,160 @@ public class GitManager {
      * @throws IOException If error during Git config read occurs.
      */
     public static void setAuthMethod(RepositoryInformation repoInfo) throws IOException {
-        Repository repo = new FileRepositoryBuilder()
+        String originURL;
+        try (Repository repo = new FileRepositoryBuilder()
                 .setGitDir(new File(repoInfo.getPath() + "/.git"))
-                .build();
+                .build()) {
+            originURL = repo.getConfig().getString("remote", "origin", "url");
+        }
+        repoInfo.setAuthMethod(getAuthMethod(originURL));
+    }
 
-        String originURL = repo.getConfig().getString("remote", "origin", "url");
+    /**
+     * Get the auth method required by a remote URL.
+     * @param originURL URL of the origin remote (null if none)
+     * @return Auth method
+     */
+    public static RepositoryInformation.AuthMethod getAuthMethod(String originURL) {
         if (originURL == null) {
-            repoInfo.setAuthMethod(RepositoryInformation.AuthMethod.NONE);
+            return RepositoryInformation.AuthMethod.NONE;
         } else if (originURL.contains("https://")) {
-            repoInfo.setAuthMethod(RepositoryInformation.AuthMethod.HTTPS);
+            return RepositoryInformation.AuthMethod.HTTPS;
         } else {
-            repoInfo.setAuthMethod(RepositoryInformation.AuthMethod.SSL);
+            return RepositoryInformation.AuthMethod.SSL;
         }
     }
 
-    // cache for Git objects
-    private final HashMap<String, Git> repoCache;
+    // cache for opened repositories
+    private final RepoCache repoCache;
     private final FileManager fileManager;
-    // thread pool for async operations
-    private final ThreadPoolExecutor executor;
+    // executor for async local operations (limited to the number of processors)
+    private final Executor executor;
+    // scheduler for network operations (limits concurrency per remote host)
+    private final HostScheduler hostScheduler;
+    // cache for commit logs (keyed by repo path and HEAD)
+    private final CommitLogCache commitLogCache;
+    // open log walks by repo path, continuing the log after the last loaded page (LRU order)
+    private final LinkedHashMap<String, LogCursor> logCursors = new LinkedHashMap<>(16, 0.75f, true);
     private PullListener pullListener;
+    // serializes the operations on each repo
+    private final RepoOperationQueue operationQueue = new RepoOperationQueue();
+    // number of running async operations started by the user (low-impact scans pause while > 0)
+    private final AtomicInteger activeOperations = new AtomicInteger();
 
     protected GitManager() {
         this.repoCache = createRepoCache();
         this.fileManager = createFileManager();
-        this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(10, r -> {
-            Thread t = Executors.defaultThreadFactory().newThread(r);
-            t.setDaemon(true);
-            return t;
-        });
+        int localLimit = Math.max(4, Runtime.getRuntime().availableProcessors());
+        this.executor = AsyncExecutors.limit(AsyncExecutors.newExecutor(localLimit), localLimit);
+        this.hostScheduler = createHostScheduler();
+        this.commitLogCache = createCommitLogCache();
     }
 
-    protected HashMap<String, Git> createRepoCache() {
-        return new HashMap<>();
+    /**
+     * Create the repository cache and apply JGit pack file cache settings.
+     * @return Repository cache
+     */
+    protected RepoCache createRepoCache() {
+        Settings settings = Settings.getSettings();
+        WindowCacheConfig config = new WindowCacheConfig();
+        config.setPackedGitLimit(settings.getPackedGitLimit() * 1024L * 1024L);
+        config.setPackedGitOpenFiles(settings.getPackedGitOpenFiles());
+        config.setPackedGitMMAP(settings.isPackedGitMMAP());
+        config.setDeltaBaseCacheLimit(settings.getDeltaBaseCacheLimit() * 1024 * 1024);
+        config.install();
+        return new RepoCache(settings.getRepoCacheSize());
     }
 
     protected FileManager createFileManager() {
         return FileManager.getInstance();
     }
 
+    protected CommitLogCache createCommitLogCache() {
+        return new CommitLogCache(Settings.getSettings().getCommitLogCacheSize() * 1024L * 1024L);
+    }
+
+    public CommitLogCache getCommitLogCache() {
+        return commitLogCache;
+    }
+
+    protected HostScheduler createHostScheduler() {
+        Settings settings = Settings.getSettings();
+        return new HostScheduler(settings.getMaxNetworkOperations(), settings.getMaxNetworkOperationsPerHost());
+    }
+
+    /**
+     * @return Number of async Git operations started by the user currently running
+     * (background status checks, see {@link #updateRepoStatusInBackground}, are not counted)
+     */
+    public int getActiveOperationCount() {
+        return activeOperations.get();
+    }
+
+    /**
+     * Queue a network operation of the repo on the scheduler of its remote host,
+     * after all operations submitted before on the same repo.
+     */
+    private void submitRemote(RepositoryInformation repo, Callable<Boolean> operation) {
+        operationQueue.submit(repo.getPath(), null, operation, (operations, done) ->
+                submitToRemoteHost(repo, tracked(operations.get(0), true, done)));
+    }
+
+    /**
+     * Execute a local operation on the local executor, after all operations submitted before on the same repo.
+     */
+    private void executeLocal(RepositoryInformation repo, Runnable operation) {
+        operationQueue.submit(repo.getPath(), null, operation, (operations, done) ->
+                executor.execute(() -> {
+                    activeOperations.incrementAndGet();
+                    try {
+                        operations.get(0).run();
+                    } finally {
+                        activeOperations.decrementAndGet();
+                        done.run();
+                    }
+                }));
+    }
+
+    /**
+     * Queue a status check of the repo. Requests submitted while a check of the repo with the same kind of credentials
+     * (provided or not) is pending are merged into it, so a request without credentials never answers one with them.
+     * The check is counted as active unless all merged requests are background checks.
+     */
+    private void submitStatusCheck(RepositoryInformation repo, StatusCheckRequest request) {
+        String coalesceKey = request.hasCredentials() ? "status:credentials" : "status";
+        operationQueue.submit(repo.getPath(), coalesceKey, request, (requests, done) ->
+                submitToRemoteHost(repo, tracked(() -> checkStatus(repo, requests),
+                        requests.stream().anyMatch(r -> !r.background), done)));
+    }
+
+    /**
+     * Submit an operation to the scheduler of the remote host of the repo.
+     * The host is resolved on the local executor, since reading the repo config may block (e.g. the FX thread).
+     */
+    private void submitToRemoteHost(RepositoryInformation repo, Callable<Boolean> operation) {
+        executor.execute(() -> hostScheduler.submit(getRemoteHost(repo), operation));
+    }
+
+    /**
+     * Wrap an operation to report when it is done and, if requested, count it as active while it runs.
+     */
+    private Callable<Boolean> tracked(Callable<Boolean> operation, boolean counted, Runnable done) {
+        return () -> {
+            if (counted) {
+                activeOperations.incrementAndGet();
+            }
+            try {
+                return operation.call();
+            } finally {
+                if (counted) {
+                    activeOperations.decrementAndGet();
+                }
+                done.run();
+            }
+        };
+    }
+
     public void setPullListener(PullListener pullListener) {
         this.pullListener = pullListener;
     }
@@ -106,15 +235,56 @@ public class GitManager {
      * @param progressMonitor Monitor for progress updates.
      */
     public void pullRepoAsync(RepositoryInformation repo, char[] masterPW, PullCallback cb, ProgressMonitor progressMonitor) {
-        executor.submit(() -> {
-            MergeResult.MergeStatus status;
+        pullRepoAsync(repo, masterPW, progressMonitor).thenAccept(result -> notifyPullCallback(result, cb));
+    }
+
+    /**
+     * Perform async pull command using stored credentials.
+     * @param repo Repo to perform pull on.
+     * @param masterPW Master Password (if null then try using cache)
+     * @param progressMonitor Monitor for progress updates.
+     * @return Future of the pull result. If cancelled before the pull started, the pull is not performed.
+     */
+    public CompletableFuture<PullCallback.PullResult> pullRepoAsync(RepositoryInformation repo, char[] masterPW, ProgressMonitor progressMonitor) {
+        return submitPull(repo, null, () -> pullRepo(repo, masterPW, progressMonitor));
+    }
+
+    /**
+     * Queue a pull of the repo and complete the returned future with its result (failed pulls included).
+     * @param repo Repo to perform pull on.
+     * @param authenticator Authenticator used by the pull, destroyed once the pull finished or was skipped (nullable)
+     * @param pull Performs the pull
+     * @return Future of the pull result
+     */
+    private CompletableFuture<PullCallback.PullResult> submitPull(RepositoryInformation repo, Authenticator authenticator,
+                                                                 Callable<MergeResult.MergeStatus> pull) {
+        CompletableFuture<PullCallback.PullResult> future = new CompletableFuture<>();
+        PullCallback cb = (results, pullsSuccessful, pullsFailed, wrongMasterPW) -> future.complete(results.isEmpty() ?
+                new PullCallback.PullResult(repo, MergeResult.MergeStatus.FAILED, null, pullsFailed == 0, wrongMasterPW) :
+                results.get(0));
+        submitRemote(repo, () -> {
             try {
-                status = pullRepo(repo, masterPW, progressMonitor);
-                cb.finished(repo, status, null);
+                // cancelled before started
+                if (future.isDone()) {
+                    return true;
+                }
+                cb.finished(repo, pull.call(), null);
             } catch (Exception e) {
                 handlePullException(e, cb, repo);
+                return !isRemoteFailure(e);
+            } finally {
+                if (authenticator != null) {
+                    authenticator.destroy();
+                }
             }
+            return true;
         });
+        return future;
+    }
+
+    private void notifyPullCallback(PullCallback.PullResult result, PullCallback cb) {
+        cb.finished(Collections.singletonList(result), result.isSuccess() ? 1 : 0, result.isSuccess() ? 0 : 1,
+                result.isWrongMasterPW());
     }
 
     /**
@@ -126,38 +296,71 @@ public class GitManager {
      *           resembles the number of repos which could be checked without any credentials.
      */
     public void updateWatchlistStatusAsync(char[] masterPW, UpdateStatusCallback cb) {
-        List<RepositoryInformation> watchlist = fileManager.getWatchlist();
-        MutableInteger checksFinished = new MutableInteger();
-        checksFinished.value = 0;
-        MutableInteger checksSuccessful = new MutableInteger();
-        checksSuccessful.value = 0;
+        updateWatchlistStatusBatch(masterPW).getSummary().thenAccept(summary -> cb.finished(summary.isSuccess(),
+                summary.getSuccessCount(),
+                summary.getFailedCount(),
+                toException(summary.getErrors().values().stream().findFirst().orElse(null))));
+    }
 
+    /**
+     * Updates the status of all repositories on the Watchlist asynchronously.
+     * The master password is used to access stored credential information.
+     * @param masterPW Master Password
+     * @return Batch providing the status future of each repo (failing if the status could not be determined).
+     */
+    public RepoBatch<RepositoryInformation.RepoStatus> updateWatchlistStatusBatch(char[] masterPW) {
+        List<RepositoryInformation> watchlist = fileManager.getWatchlist();
         // load credentials of all repos if correct masterPW
         Map<UUID, Authenticator> authInfo = getAuthenticatorIfPossible(masterPW, watchlist);
 
+        Map<UUID, CompletableFuture<RepositoryInformation.RepoStatus>> checks = new LinkedHashMap<>();
         for (RepositoryInformation repo : watchlist) {
-            updateRepoStatusAsync(repo, Optional.ofNullable(authInfo.get(repo.getID())).orElse(new Authenticator()),
-                    (success, reposChecked, reposFailed, ex) -> {
-                        checksFinished.value++;
-                        if (success) checksSuccessful.value++;
-                        // once all checks have finished, call callback
-                        if (checksFinished.value == watchlist.size()) {
-                            cb.finished(checksSuccessful.value == checksFinished.value,
-                                    checksSuccessful.value,
-                                    checksFinished.value - checksSuccessful.value,
-                                    ex);
-                        }
-                    });
-        }
-        if (watchlist.isEmpty()) {
-            cb.finished(true, 0, 0, null);
+            checks.put(repo.getID(), updateRepoStatusAsync(repo,
+                    Optional.ofNullable(authInfo.get(repo.getID())).orElse(new Authenticator())));
         }
+        return new RepoBatch<>(checks, status -> true);
     }
 
     public void updateWatchlistStatusAsync(UpdateStatusCallback cb) {
         updateWatchlistStatusAsync(null, cb);
     }
 
+    /**
+     * Updates the status of all repositories on the Watchlist from their local refs only (no network access),
+     * see {@link #getLocalRepoStatus(RepositoryInformation)}. The repos are checked in parallel.
+     * @param cb Called when all repositories on the Watchlist have been checked.
+     */
+    public void updateWatchlistLocalStatusAsync(UpdateStatusCallback cb) {
+        List<RepositoryInformation> watchlist = fileManager.getWatchlist();
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        for (RepositoryInformation repo : watchlist) {
+            checks.add(CompletableFuture.supplyAsync(() -> updateLocalRepoStatus(repo), executor));
+        }
+        CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0])).whenComplete((v, ex) -> {
+            int reposChecked = (int) checks.stream().filter(check -> check.getNow(false)).count();
+            cb.finished(reposChecked == watchlist.size(), reposChecked, watchlist.size() - reposChecked, null);
+        });
+    }
+
+    /**
+     * Update the status of a repo from its local refs only.
+     * @param repo Repo to update status of
+     * @return True, if the status could be determined
+     */
+    private boolean updateLocalRepoStatus(RepositoryInformation repo) {
+        RepositoryInformation repoInfo = fileManager.getRepo(repo.getID());
+        if (repoInfo == null) {
+            return false;
+        }
+        Date checkStart = new Date();
+        RepositoryInformation.RepoStatus status = getLocalRepoStatus(repoInfo);
+        if (status == null) {
+            return false;
+        }
+        fileManager.updateLocalRepoStatus(repoInfo.getID(), status, checkStart);
+        return true;
+    }
+
     /**
      * Update the status of given repo asynchronously.
      * @param repo Repo to update status of.
@@ -165,16 +368,7 @@ public class GitManager {
      * @param cb Callback
      */
     public void updateRepoStatusAsync(RepositoryInformation repo, Authenticator authenticator, UpdateStatusCallback cb) {
-        executor.submit(() -> {
-            try {
-                updateRepoStatus(repo, authenticator);
-                cb.finished(true, 1, 0, null);
-            } catch (Exception e) {
-                cb.finished(false, 0, 1, e);
-            } finally {
-                authenticator.destroy();
-            }
-        });
+        notifyStatusCallback(updateRepoStatusAsync(repo, authenticator), cb);
     }
 
     /**
@@ -184,14 +378,114 @@ public class GitManager {
      * @param cb Callback
      */
     public void updateRepoStatusAsync(RepositoryInformation repo, char[] masterPW, UpdateStatusCallback cb) {
-        executor.submit(() -> {
-            try {
-                updateRepoStatus(repo, masterPW);
-                cb.finished(true, 1, 0,null);
-            } catch (Exception e) {
-                cb.finished(false, 0, 1, e);
+        notifyStatusCallback(updateRepoStatusAsync(repo, masterPW), cb);
+    }
+
+    /**
+     * Update the status of given repo asynchronously.
+     * @param repo Repo to update status of.
+     * @param authenticator Authenticator for repo access.
+     * @return Future of the new status. If cancelled before the check started, the check is not performed.
+     */
+    public CompletableFuture<RepositoryInformation.RepoStatus> updateRepoStatusAsync(RepositoryInformation repo, Authenticator authenticator) {
+        CompletableFuture<RepositoryInformation.RepoStatus> future = new CompletableFuture<>();
+        submitStatusCheck(repo, new StatusCheckRequest(authenticator, null, false, future));
+        return future;
+    }
+
+    /**
+     * Update the status of given repo asynchronously.
+     * @param repo Repo to update status of.
+     * @param masterPW Master Password
+     * @return Future of the new status. If cancelled before the check started, the check is not performed.
+     */
+    public CompletableFuture<RepositoryInformation.RepoStatus> updateRepoStatusAsync(RepositoryInformation repo, char[] masterPW) {
+        CompletableFuture<RepositoryInformation.RepoStatus> future = new CompletableFuture<>();
+        submitStatusCheck(repo, new StatusCheckRequest(null, masterPW, false, future));
+        return future;
+    }
+
+    /**
+     * Update the status of given repo asynchronously, using cached credentials only.
+     * Unlike checks requested by the user, background checks do not pause low-impact scans.
+     * @param repo Repo to update status of.
+     * @param cb Callback
+     */
+    public void updateRepoStatusInBackground(RepositoryInformation repo, UpdateStatusCallback cb) {
+        CompletableFuture<RepositoryInformation.RepoStatus> future = new CompletableFuture<>();
+        submitStatusCheck(repo, new StatusCheckRequest(null, null, true, future));
+        notifyStatusCallback(future, cb);
+    }
+
+    private void notifyStatusCallback(CompletableFuture<RepositoryInformation.RepoStatus> future, UpdateStatusCallback cb) {
+        future.whenComplete((status, ex) -> cb.finished(ex == null, ex == null ? 1 : 0, ex == null ? 0 : 1, toException(ex)));
+    }
+
+    private static Exception toException(Throwable ex) {
+        return ex == null || ex instanceof Exception ? (Exception) ex : new RuntimeException(ex);
+    }
+
+    /**
+     * Check the status of a repo once for all merged requests which have not been cancelled.
+     * The credentials of the first of these requests are used, preferring requests of the user over background ones.
+     * @param repo Repo to update status of.
+     * @param requests Merged requests
+     * @return False, iff the remote could not be accessed properly.
+     */
+    private boolean checkStatus(RepositoryInformation repo, List<StatusCheckRequest> requests) {
+        StatusCheckRequest request = requests.stream()
+                .filter(r -> !r.future.isDone())
+                .min(Comparator.comparing(r -> r.background))
+                .orElse(null);
+        if (request == null) {
+            requests.stream().filter(r -> r.authenticator != null).forEach(r -> r.authenticator.destroy());
+            return true;
+        }
+        RepositoryInformation.RepoStatus status = null;
+        Exception error = null;
+        try {
+            status = request.authenticator != null ?
+                    updateRepoStatus(repo, request.authenticator) :
+                    updateRepoStatus(repo, request.masterPW);
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            requests.stream().filter(r -> r.authenticator != null).forEach(r -> r.authenticator.destroy());
+        }
+        for (StatusCheckRequest merged : requests) {
+            if (error == null) {
+                merged.future.complete(status);
+            } else {
+                merged.future.completeExceptionally(error);
             }
-        });
+        }
+        return error != null || !isRemoteFailure(status);
+    }
+
+    /**
+     * Request of an async status check (either with authenticator or master password).
+     */
+    private static class StatusCheckRequest {
+        private final Authenticator authenticator;
+        private final char[] masterPW;
+        // true, iff not requested by the user
+        private final boolean background;
+        private final CompletableFuture<RepositoryInformation.RepoStatus> future;
+
+        private StatusCheckRequest(Authenticator authenticator, char[] masterPW, boolean background,
+                                   CompletableFuture<RepositoryInformation.RepoStatus> future) {
+            this.authenticator = authenticator;
+            this.masterPW = masterPW;
+            this.background = background;
+            this.future = future;
+        }
+
+        /**
+         * @return True, iff credentials were provided (a master password or an authenticator holding credentials)
+         */
+        private boolean hasCredentials() {
+            return authenticator != null ? authenticator.hasInformation() : masterPW != null;
+        }
     }
 
     /**
@@ -201,38 +495,30 @@ public class GitManager {
      * @param progressMonitor Monitor for progress updates.
      */
     public void pullWatchlistAsync(char[] masterPW, PullCallback cb, ProgressMonitor progressMonitor) {
-        List<RepositoryInformation> watchlist = fileManager.getWatchlist();
-        MutableInteger pullsFinished = new MutableInteger();
-        pullsFinished.value = 0;
-        MutableInteger pullsSuccess = new MutableInteger();
-        pullsSuccess.value = 0;
-        MutableInteger pullsFailed = new MutableInteger();
-        pullsFailed.value = 0;
-        AtomicBoolean wrongMasterPW = new AtomicBoolean(false);
+        pullWatchlistBatch(masterPW, progressMonitor).getSummary().thenAccept(summary -> {
+            List<PullCallback.PullResult> pullResults = new ArrayList<>(summary.getResults().values());
+            cb.finished(pullResults, summary.getSuccessCount(), summary.getFailedCount(),
+                    pullResults.stream().anyMatch(PullCallback.PullResult::isWrongMasterPW));
+        });
+    }
 
+    /**
+     * Execute async pull commands for all repos on the Watchlist.
+     * @param masterPW Master password
+     * @param progressMonitor Monitor for progress updates.
+     * @return Batch providing the pull result of each repo. Failed pulls complete normally with an unsuccessful result.
+     */
+    public RepoBatch<PullCallback.PullResult> pullWatchlistBatch(char[] masterPW, ProgressMonitor progressMonitor) {
+        List<RepositoryInformation> watchlist = fileManager.getWatchlist();
         // load credentials of all repos if correct masterPW
         Map<UUID, Authenticator> authInfo = getAuthenticatorIfPossible(masterPW, watchlist);
 
-        List<PullCallback.PullResult> pullResults = new ArrayList<>();
+        Map<UUID, CompletableFuture<PullCallback.PullResult>> pulls = new LinkedHashMap<>();
         for (RepositoryInformation repo : watchlist) {
-            pullRepoAsync(repo, Optional.ofNullable(authInfo.get(repo.getID())).orElse(new Authenticator()),
-                    (results, pullsSuccessCount, pullsFailedCount, wrongMP) -> {
-                synchronized (cb) {
-                    pullsFinished.value++;
-                    pullResults.addAll(results);
-                    pullsSuccess.value += pullsSuccessCount;
-                    pullsFailed.value += pullsFailedCount;
-                    wrongMasterPW.set(wrongMasterPW.get() || wrongMP);
-                    // once all pulls have finished, call callback
-                    if (pullsFinished.value == watchlist.size()) {
-                        cb.finished(pullResults, pullsSuccess.value, pullsFailed.value, wrongMasterPW.get());
-                    }
-                }
-            }, progressMonitor);
-        }
-        if (watchlist.isEmpty()) {
-            cb.finished(new ArrayList<>(), 0,0, false);
+            pulls.put(repo.getID(), pullRepoAsync(repo,
+                    Optional.ofNullable(authInfo.get(repo.getID())).orElse(new Authenticator()), progressMonitor));
         }
+        return new RepoBatch<>(pulls, PullCallback.PullResult::isSuccess);
     }
 
     /**
@@ -241,7 +527,7 @@ public class GitManager {
      * @param cb Callback to be called when process finishes.
      */
     public void getLogAsync(RepositoryInformation repo, LogCallback cb) {
-        executor.submit(() -> {
+        executeLocal(repo, () -> {
             try {
                 cb.finished(true, getLog(repo));
             } catch (Exception ex) {
@@ -258,7 +544,12 @@ public class GitManager {
      * @throws GitAPIException If error during log generation occurs.
      */
     public List<CommitChange> getLog(RepositoryInformation repo) throws IOException, GitAPIException {
-        Git git = getRepoGit(repo.getPath());
+        try (Git git = getRepoGit(repo.getPath())) {
+            return getLog(git);
+        }
+    }
+
+    private List<CommitChange> getLog(Git git) throws IOException, GitAPIException {
         Iterable<RevCommit> log = git.log().call();
         List<CommitChange> changes = new ArrayList<>();
 
@@ -278,6 +569,215 @@ public class GitManager {
         return changes;
     }
 
+    /**
+     * Asynchronously gets a page of commits (metadata only, see {@link #getLogPage(RepositoryInformation, ObjectId, int)}).
+     * @param repo The repository.
+     * @param afterCommit Last commit of the previous page (null for first page)
+     * @param limit Max. number of commits in page
+     * @param cb Callback to be called when process finishes.
+     */
+    public void getLogPageAsync(RepositoryInformation repo, ObjectId afterCommit, int limit, LogCallback cb) {
+        executeLocal(repo, () -> {
+            try {
+                cb.finished(true, getLogPage(repo, afterCommit, limit));
+            } catch (Exception ex) {
+                cb.finished(ex);
+            }
+        });
+    }
+
+    /**
+     * Returns a page of commits reachable from HEAD in log order.
+     * Only commit metadata is loaded, file changes can be loaded per commit using
+     * {@link #getFileChanges(RepositoryInformation, CommitChange)}.
+     * @param repo The repository.
+     * @param afterCommit Last commit of the previous page, i.e. the page starts with the commit following it
+     *                    (null to start at HEAD)
+     * @param limit Max. number of commits in page
+     * @return Commits of the page without file changes (empty if there are no more commits)
+     * @throws IOException If repository path is invalid or commits cannot be read
+     */
+    public List<CommitChange> getLogPage(RepositoryInformation repo, ObjectId afterCommit, int limit) throws IOException {
+        try (Git git = getRepoGit(repo.getPath())) {
+            return getLogPage(git.getRepository(), repo.getPath(), afterCommit, limit);
+        }
+    }
+
+    private List<CommitChange> getLogPage(Repository repository, String path, ObjectId afterCommit, int limit) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return new ArrayList<>();
+        }
+        List<CommitChange> cachedPage = commitLogCache.getPage(path, head, afterCommit, limit);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        List<CommitChange> page;
+        LogCursor cursor = takeLogCursor(path, head, afterCommit);
+        try {
+            if (cursor == null) {
+                cursor = new LogCursor(path, head, afterCommit);
+            }
+            page = cursor.next(limit);
+        } catch (IOException | RuntimeException ex) {
+            if (cursor != null) {
+                cursor.close();
+            }
+            throw ex;
+        }
+        if (page.size() < limit) {
+            // log is complete
+            cursor.close();
+        } else {
+            putLogCursor(cursor);
+        }
+        commitLogCache.putPage(path, head, afterCommit, limit, page);
+        return page;
+    }
+
+    /**
+     * Close the cached repository at the given path and the log walk using it, e.g. after the repo was removed or
+     * its path became invalid. Operations still using the repository keep it open until they are done.
+     * @param path Repo path
+     */
+    public void releaseRepo(String path) {
+        LogCursor cursor;
+        synchronized (logCursors) {
+            cursor = logCursors.remove(path);
+        }
+        if (cursor != null) {
+            cursor.close();
+        }
+        repoCache.invalidate(path);
+    }
+
+    /**
+     * Take the open log walk of a repo if it continues after {@code afterCommit}.
+     * Other walks of the repo are closed.
+     * @return The log walk or null if there is none
+     */
+    private LogCursor takeLogCursor(String path, ObjectId head, ObjectId afterCommit) {
+        LogCursor cursor;
+        synchronized (logCursors) {
+            cursor = logCursors.remove(path);
+        }
+        if (cursor != null && (afterCommit == null || !cursor.continues(head, afterCommit))) {
+            cursor.close();
+            return null;
+        }
+        return cursor;
+    }
+
+    private void putLogCursor(LogCursor cursor) {
+        List<LogCursor> evicted = new ArrayList<>();
+        synchronized (logCursors) {
+            LogCursor replaced = logCursors.put(cursor.path, cursor);
+            if (replaced != null) {
+                evicted.add(replaced);
+            }
+            Iterator<LogCursor> it = logCursors.values().iterator();
+            while (logCursors.size() > MAX_LOG_CURSORS && it.hasNext()) {
+                evicted.add(it.next());
+                it.remove();
+            }
+        }
+        evicted.forEach(LogCursor::close);
+    }
+
+    /**
+     * Asynchronously gets the total number of commits reachable from HEAD.
+     * The commits are counted outside of the operation queue of the repo, so the (possibly long) walk does not delay
+     * loading further log pages.
+     * @param repo The repository.
+     * @return Future of the number of commits
+     */
+    public CompletableFuture<Integer> getCommitCountAsync(RepositoryInformation repo) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getCommitCount(repo);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get total number of commits reachable from HEAD.
+     * @param repo The repository.
+     * @return Number of commits
+     * @throws IOException If repository path is invalid or commits cannot be read
+     */
+    public int getCommitCount(RepositoryInformation repo) throws IOException {
+        try (Git git = getRepoGit(repo.getPath())) {
+            return getCommitCount(git.getRepository(), repo.getPath());
+        }
+    }
+
+    private int getCommitCount(Repository repository, String path) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return 0;
+        }
+        int count = commitLogCache.getCommitCount(path, head);
+        if (count >= 0) {
+            return count;
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(head));
+            count = 0;
+            while (walk.next() != null) {
+                count++;
+            }
+        }
+        commitLogCache.putCommitCount(path, head, count);
+        return count;
+    }
+
+    /**
+     * Asynchronously computes the file changes of a commit and stores them in {@code commitChange}.
+     * @param repo The repository.
+     * @param commitChange Commit to compute file changes for.
+     * @param cb Callback to be called when process finishes.
+     */
+    public void getFileChangesAsync(RepositoryInformation repo, CommitChange commitChange, FileChangesCallback cb) {
+        executeLocal(repo, () -> {
+            try {
+                cb.finished(true, getFileChanges(repo, commitChange), null);
+            } catch (Exception ex) {
+                cb.finished(false, null, ex);
+            }
+        });
+    }
+
+    /**
+     * Computes the file changes of a commit compared to its first parent (or the empty repository for the
+     * initial commit) and stores them in {@code commitChange}. If already loaded, the stored changes are returned.
+     * @param repo The repository.
+     * @param commitChange Commit to compute file changes for.
+     * @return File changes of the commit
+     * @throws IOException If repository path is invalid
+     * @throws GitAPIException If error during diff calculation occurs.
+     */
+    public List<DiffEntry> getFileChanges(RepositoryInformation repo, CommitChange commitChange) throws IOException, GitAPIException {
+        if (!commitChange.isFileChangesLoaded()) {
+            try (Git git = getRepoGit(repo.getPath())) {
+                RevCommit commit = commitChange.getCommit();
+                List<DiffEntry> diffs = commit.getParentCount() > 0 ?
+                        getDiff(git, commit.getParent(0), commit) :
+                        getDiff(git, commit);
+                commitChange.setFileChanges(diffs);
+                // cached commits grow by their file changes
+                ObjectId head = git.getRepository().resolve(Constants.HEAD);
+                if (head != null) {
+                    commitLogCache.update(repo.getPath(), head);
+                }
+            }
+        }
+        return commitChange.getFileChanges();
+    }
+
     /**
      * Test the connection / authentication for the provided repo asynchronously.
      * @param repo Repo to test
@@ -285,10 +785,11 @@ public class GitManager {
      * @param cb Callback
      */
     public void testRepoConnectionAsync(RepositoryInformation repo, Authenticator authenticator, ConnectionTestCallback cb) {
-        executor.submit(() -> {
+        submitRemote(repo, () -> {
             RepositoryInformation.RepoStatus testResult = testRepoConnection(repo, authenticator);
             authenticator.destroy();
             cb.finished(testResult);
+            return !isRemoteFailure(testResult);
         });
     }
 
@@ -300,8 +801,7 @@ public class GitManager {
      */
     private RepositoryInformation.RepoStatus testRepoConnection(RepositoryInformation repo, Authenticator authenticator) {
         RepositoryInformation.RepoStatus status;
-        try {
-            Git git = getRepoGit(repo.getPath());
+        try (Git git = getRepoGit(repo.getPath())) {
             status = getRepoStatus(git, authenticator);
         } catch (IOException e) {
             status = PATH_INVALID;
@@ -318,31 +818,32 @@ public class GitManager {
      */
     public Collection<Branch> getBranchNames(String path) throws IOException, GitAPIException {
         Map<String, Branch> branches = new HashMap<>();
-        Git repoGit = getRepoGit(path);
-        // add all local branches to list
-        List<Ref> localBranches = repoGit
-                .branchList()
-                .call();
-        for (Ref b : localBranches) {
-            Branch branch = new Branch(b.getName(), false);
-            branches.put(branch.getShortName(), branch);
-        }
-
-        // add all remote branches which are not also local
-        List<Ref> remoteBranches = repoGit
-                .branchList()
-                .setListMode(ListBranchCommand.ListMode.REMOTE)
-                .call();
-        for (Ref b : remoteBranches) {
-            if (!Pattern.matches(PATTERN_HEAD_COMMIT, b.getName())) {
-                Branch branch = new Branch(b.getName(), true);
-                if (!branches.containsKey(branch.getShortName())) {
-                    branches.put(branch.getShortName(), branch);
+        try (Git repoGit = getRepoGit(path)) {
+            // add all local branches to list
+            List<Ref> localBranches = repoGit
+                    .branchList()
+                    .call();
+            for (Ref b : localBranches) {
+                Branch branch = new Branch(b.getName(), false);
+                branches.put(branch.getShortName(), branch);
+            }
+
+            // add all remote branches which are not also local
+            List<Ref> remoteBranches = repoGit
+                    .branchList()
+                    .setListMode(ListBranchCommand.ListMode.REMOTE)
+                    .call();
+            for (Ref b : remoteBranches) {
+                if (!Pattern.matches(PATTERN_HEAD_COMMIT, b.getName())) {
+                    Branch branch = new Branch(b.getName(), true);
+                    if (!branches.containsKey(branch.getShortName())) {
+                        branches.put(branch.getShortName(), branch);
+                    }
                 }
             }
-        }
 
-        return branches.values();
+            return branches.values();
+        }
     }
 
     /**
@@ -352,9 +853,10 @@ public class GitManager {
      * @throws IOException
      */
     public Branch getSelectedBranch(String path) throws IOException {
-        Git repoGit = getRepoGit(path);
-        // selected branch is always local
-        return new Branch("refs/heads/" + repoGit.getRepository().getBranch(), false);
+        try (Git repoGit = getRepoGit(path)) {
+            // selected branch is always local
+            return new Branch("refs/heads/" + repoGit.getRepository().getBranch(), false);
+        }
     }
 
     /**
@@ -365,10 +867,12 @@ public class GitManager {
      * @throws GitAPIException
      */
     public void checkout(RepositoryInformation repo, String branchName) throws IOException, GitAPIException {
-        Git repoGit = getRepoGit(repo.getPath());
-        repoGit.checkout()
-                .setName(branchName)
-                .call();
+        try (Git repoGit = getRepoGit(repo.getPath())) {
+            repoGit.checkout()
+                    .setName(branchName)
+                    .call();
+        }
+        commitLogCache.invalidate(repo.getPath());
         repo.setLastCommit(getLastCommit(repo));
     }
 
@@ -380,45 +884,40 @@ public class GitManager {
      * @throws GitAPIException
      */
     public void createBranch(RepositoryInformation repo, String branchName) throws IOException, GitAPIException {
-        Git repoGit = getRepoGit(repo.getPath());
-        repoGit.branchCreate()
-                .setName(branchName)
-                .call();
+        try (Git repoGit = getRepoGit(repo.getPath())) {
+            repoGit.branchCreate()
+                    .setName(branchName)
+                    .call();
+        }
     }
 
     /**
-     * Get a Repository object for the repository at the provided path
+     * Get a Git object for the repository at the provided path.
+     * The repository is taken from the repo cache and must be released by closing the returned object.
      * @param path Path of the folder wrapping the git repository
-     * @return Repository at specified path
+     * @return Git of the repository at specified path
      * @throws IOException If path does not point to a valid repository
      */
-    private synchronized Git getRepoGit(String path) throws IOException {
-        Git repoGit = repoCache.get(path);
-        if (repoGit == null) {
-            Repository repo = new FileRepositoryBuilder()
-                    .setGitDir(new File(path + "/.git"))
-                    .build();
-            repoGit = new Git(repo);
-            repoCache.put(path, repoGit);
-        }
-        return repoGit;
+    private Git getRepoGit(String path) throws IOException {
+        return repoCache.open(path);
     }
 
     /**
-     * Get all commits between {@code from} and {@code to} commit.
+     * Get the number of commits between {@code from} and {@code to} commit.
      * @param git Git of repo
-     * @param from Start of commit list
-     * @param to End of commit list
-     * @return All commits between {@code from} and {@code to}.
+     * @param from Start of commit range
+     * @param to End of commit range
+     * @return Number of commits reachable from {@code to} but not from {@code from}.
      */
-    private List<RevCommit> getCommitsInRange(Git git, ObjectId from, ObjectId to) {
-        List<RevCommit> commits = new ArrayList<>();
+    private int getCommitCountInRange(Git git, ObjectId from, ObjectId to) {
+        if (from == null || to == null) {
+            return 0;
+        }
         try {
-            git.log().addRange(from, to).call().forEach(commits::add);
-        } catch(Exception ex) {
-            return new ArrayList<>();
+            return AheadBehind.count(git.getRepository(), from, to).getBehind();
+        } catch (Exception ex) {
+            return 0;
         }
-        return commits;
     }
 
     /**
@@ -436,6 +935,7 @@ public class GitManager {
     private MergeResult.MergeStatus pullRepo(RepositoryInformation repo, Authenticator authenticator, ProgressMonitor progressMonitor) throws IOException, CredentialException, CheckoutConflictException, WrongRepositoryStateException {
         Git git = getRepoGit(repo.getPath());
         RepositoryInformation repoInfo = fileManager.getRepo(repo.getID());
+        boolean fetched = false;
 
         try {
             ObjectId oldHead = git.getRepository().resolve("HEAD");
@@ -444,10 +944,11 @@ public class GitManager {
                     .setProgressMonitor(progressMonitor);
             authenticator.configure(cmd);
             PullResult pullResult = cmd.call();
+            fetched = pullResult.getFetchResult() != null;
             ObjectId head = git.getRepository().resolve("HEAD");
 
             // set new update count
-            fileManager.setNewChanges(repo.getID(), getCommitsInRange(git, oldHead, head).size());
+            fileManager.setNewChanges(repo.getID(), getCommitCountInRange(git, oldHead, head));
             repo.setLastCommit(getLastCommit(repo));
 
             notifyPullListener(repo, pullResult.getMergeResult().getMergeStatus());
@@ -464,7 +965,15 @@ public class GitManager {
         } catch (GitAPIException ex) {
             throw new SecurityException("authentication failed");
         } finally {
-            updateRepoStatus(repo, authenticator);
+            git.close();
+            commitLogCache.invalidate(repo.getPath());
+            // the fetch of the pull updated the remote-tracking refs, so the status is known without fetching again
+            RepositoryInformation.RepoStatus status = fetched ? getLocalRepoStatus(repoInfo) : null;
+            if (status != null) {
+                fileManager.updateRepoStatus(repoInfo.getID(), status);
+            } else {
+                updateRepoStatus(repo, authenticator);
+            }
         }
     }
 
@@ -483,37 +992,57 @@ public class GitManager {
     private MergeResult.MergeStatus pullRepo(RepositoryInformation repo, char[] masterPW, ProgressMonitor progressMonitor) throws IOException, GitAPIException, CredentialException, AuthenticationException {
         RepositoryInformation repoInfo = fileManager.getRepo(repo.getID());
         Authenticator authenticator = Authenticator.getFor(repoInfo, masterPW);
-        MergeResult.MergeStatus status = pullRepo(repo, authenticator, progressMonitor);
-        authenticator.destroy();
-        return status;
+        try {
+            return pullRepo(repo, authenticator, progressMonitor);
+        } finally {
+            authenticator.destroy();
+        }
     }
 
     /**
      * Perform async pull command.
      * @param repo Repo to perform pull on.
      * @param authenticator Auth credentials
-     * @param cb Callback
      * @param progressMonitor Monitor for progress updates.
+     * @return Future of the pull result
      */
-    private void pullRepoAsync(RepositoryInformation repo, Authenticator authenticator, PullCallback cb, ProgressMonitor progressMonitor) {
-        executor.submit(() -> {
-            MergeResult.MergeStatus status;
-            try {
-                // detect wrong master password
-                if (repo.getAuthID() != null && !authenticator.hasInformation()) {
-                    // explicitly update status since pull is never executed in this case
-                    fileManager.updateRepoStatus(repo.getID(), WRONG_MASTER_PW);
-                    throw new AuthenticationException("wrong master password");
-                }
-
-                status = pullRepo(repo, authenticator, progressMonitor);
-                cb.finished(repo, status, null);
-            } catch (Exception e) {
-                handlePullException(e, cb, repo);
+    private CompletableFuture<PullCallback.PullResult> pullRepoAsync(RepositoryInformation repo, Authenticator authenticator, ProgressMonitor progressMonitor) {
+        return submitPull(repo, authenticator, () -> {
+            // detect wrong master password
+            if (repo.getAuthID() != null && !authenticator.hasInformation()) {
+                // explicitly update status since pull is never executed in this case
+                fileManager.updateRepoStatus(repo.getID(), WRONG_MASTER_PW);
+                throw new AuthenticationException("wrong master password");
             }
+            return pullRepo(repo, authenticator, progressMonitor);
         });
     }
 
+    /**
+     * Get the host of the remote of a repo, which is used to group network operations.
+     * @param repo Repo
+     * @return Host key (see {@link HostScheduler#getHost(String)})
+     */
+    private String getRemoteHost(RepositoryInformation repo) {
+        return HostScheduler.getHost(getRemoteURL(repo.getPath()));
+    }
+
+    /**
+     * @param status Result of a status check
+     * @return True, iff the status indicates that the remote could not be accessed properly.
+     */
+    private boolean isRemoteFailure(RepositoryInformation.RepoStatus status) {
+        return status == INACCESSIBLE_REMOTE || status == UNKNOWN_ERROR;
+    }
+
+    /**
+     * @param ex Exception thrown by a network operation
+     * @return True, iff the exception indicates that the remote could not be accessed properly.
+     */
+    private boolean isRemoteFailure(Exception ex) {
+        return ex instanceof TransportException || ex instanceof org.eclipse.jgit.errors.TransportException;
+    }
+
     /**
      * Call callback according to exception.
      * @param ex Exception to handle.
@@ -551,6 +1080,70 @@ public class GitManager {
         cmd.call();
     }
 
+    /**
+     * @return True, if any network interface other than loopback is up.
+     */
+    protected boolean isNetworkAvailable() {
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (networkInterface.isUp() && !networkInterface.isLoopback()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (SocketException ex) {
+            // let the status check find out
+            return true;
+        }
+    }
+
+    /**
+     * @return True, if remote branch heads should be probed before fetching.
+     */
+    protected boolean isProbeBeforeFetchEnabled() {
+        return Settings.getSettings().isProbeBeforeFetch();
+    }
+
+    /**
+     * Query the head of the remote branch of the current branch (ls-remote) and compare it to the local
+     * remote-tracking branch. Only the current branch is requested, which (using protocol v2) limits the
+     * ref advertisement to this single ref.
+     * @param repoGit Git of repo to check
+     * @param authenticator Auth credentials
+     * @return False, iff the remote branch head is equal to the local remote-tracking branch.
+     *         True, if they differ or the comparison is not possible (e.g. no remote-tracking branch yet).
+     * @throws GitAPIException If the remote cannot be accessed
+     */
+    protected boolean isRemoteBranchChanged(Git repoGit, Authenticator authenticator) throws GitAPIException {
+        Repository repository = repoGit.getRepository();
+        try {
+            String branch = repository.getBranch();
+            ObjectId trackingHead = branch != null ? repository.resolve("refs/remotes/origin/" + branch) : null;
+            if (trackingHead == null) {
+                return true;
+            }
+
+            String remoteRef = Constants.R_HEADS + branch;
+            try (Transport transport = Transport.open(repository, "origin")) {
+                authenticator.configure(transport);
+                try (FetchConnection conn = transport.openFetch(
+                        Collections.singletonList(new RefSpec(remoteRef)), remoteRef)) {
+                    Ref advertised = conn.getRef(remoteRef);
+                    return advertised == null || !trackingHead.equals(advertised.getObjectId());
+                }
+            }
+        } catch (org.eclipse.jgit.errors.TransportException ex) {
+            throw new TransportException(ex.getMessage(), ex);
+        } catch (URISyntaxException ex) {
+            throw new InvalidRemoteException(ex.getMessage());
+        } catch (IOException ex) {
+            // let the fetch report any other problems
+            return true;
+        }
+    }
+
     /**
      * Get authenticators for specified repos.
      * @param masterPW Master password
@@ -576,13 +1169,13 @@ public class GitManager {
      * @param masterPW Master Password for stored credentials
      * @throws IOException If repo path is invalid
      */
-    private void updateRepoStatus(RepositoryInformation repo, char[] masterPW) throws IOException, AuthenticationException {
+    private RepositoryInformation.RepoStatus updateRepoStatus(RepositoryInformation repo, char[] masterPW) throws IOException, AuthenticationException {
         RepositoryInformation repoInfo = fileManager.getRepo(repo.getID());
         // if master password is provided & repo has authentication method specified, use those credentials
         Authenticator authenticator = null;
         try {
             authenticator = Authenticator.getFor(repoInfo, masterPW);
-            updateRepoStatus(repo, authenticator);
+            return updateRepoStatus(repo, authenticator);
         } catch (SecurityException | AuthenticationException ex) {
             fileManager.updateRepoStatus(repoInfo.getID(), WRONG_MASTER_PW);
             throw ex;
@@ -598,20 +1191,37 @@ public class GitManager {
      * @param authenticator Auth credentials for repo.
      * @throws IOException
      */
-    private void updateRepoStatus(RepositoryInformation repo, Authenticator authenticator) throws IOException {
+    private RepositoryInformation.RepoStatus updateRepoStatus(RepositoryInformation repo, Authenticator authenticator) throws IOException {
         RepositoryInformation repoInfo = fileManager.getRepo(repo.getID());
+        RepositoryInformation.RepoStatus previousStatus = repoInfo.getStatus();
         RepositoryInformation.RepoStatus status = WRONG_MASTER_PW;
+        // without network, the status is determined from the refs of the last fetch
+        RepositoryInformation.RepoStatus localStatus = null;
+        Date checkStart = new Date();
         try {
             if (!Utils.validateRepositoryPath(repoInfo.getPath())) {
                 status = PATH_INVALID;
             } else if (repoInfo.getAuthID() != null && !authenticator.hasInformation()) {
                 throw new SecurityException("wrong master password");
+            } else if (!HostScheduler.LOCAL_HOST.equals(getRemoteHost(repoInfo)) && !isNetworkAvailable() &&
+                    (localStatus = getLocalRepoStatus(repoInfo)) != null) {
+                status = localStatus;
             } else {
-                status = getRepoStatus(getRepoGit(repo.getPath()), authenticator);
+                try (Git git = getRepoGit(repo.getPath())) {
+                    status = getRepoStatus(git, authenticator, repoInfo);
+                }
             }
         } finally {
-            fileManager.updateRepoStatus(repoInfo.getID(), status);
+            if (status != previousStatus) {
+                commitLogCache.invalidate(repoInfo.getPath());
+            }
+            if (localStatus != null) {
+                fileManager.updateLocalRepoStatus(repoInfo.getID(), status, checkStart);
+            } else {
+                fileManager.updateRepoStatus(repoInfo.getID(), status);
+            }
         }
+        return status;
     }
 
 
@@ -621,28 +1231,29 @@ public class GitManager {
      * @return Status of the repository
      */
     protected RepositoryInformation.RepoStatus getRepoStatus(Git repoGit, Authenticator authenticator) throws IOException {
+        return getRepoStatus(repoGit, authenticator, null);
+    }
+
+    /**
+     * Gets the current status of the given repository.
+     * If {@code repoInfo} is provided, the ahead / behind counts determined during the check are set on it.
+     * @param repoGit Repository to check
+     * @param authenticator Auth credentials for repo
+     * @param repoInfo Repo info to store ahead / behind counts on (may be null)
+     * @return Status of the repository
+     */
+    protected RepositoryInformation.RepoStatus getRepoStatus(Git repoGit, Authenticator authenticator,
+                                                             RepositoryInformation repoInfo) throws IOException {
         RepositoryInformation.RepoStatus status;
+        AheadBehind aheadBehind = null;
 
         try {
-            // update refs
-            fetchRepo(repoGit, authenticator);
-            // query remote heads
-            LsRemoteCommand cmd = repoGit.lsRemote().setHeads(true);
-            authenticator.configure(cmd);
-            boolean pullAvailable = remoteChangesAvailable(repoGit);
-            boolean pushAvailable = localChangesAvailable(repoGit);
-
-            if (repoGit.getRepository().readMergeHeads() != null) {
-                status = MERGE_NEEDED;
-            } else if (pullAvailable && pushAvailable) {
-                status = PULL_PUSH_AVAILABLE;
-            } else if (pullAvailable) {
-                status = PULL_AVAILABLE;
-            } else if (pushAvailable) {
-                status = PUSH_AVAILABLE;
-            } else {
-                status = UP_TO_DATE;
+            // update refs (skip fetch if remote branch head is known to be unchanged)
+            if (!isProbeBeforeFetchEnabled() || isRemoteBranchChanged(repoGit, authenticator)) {
+                fetchRepo(repoGit, authenticator);
             }
+            aheadBehind = getAheadBehind(repoGit);
+            status = getStatus(repoGit.getRepository(), aheadBehind);
         }
         catch (IllegalStateException ex) {
             status = NO_REMOTE_BRANCH;
@@ -660,34 +1271,68 @@ public class GitManager {
             status = UNKNOWN_ERROR;
         }
 
+        if (repoInfo != null) {
+            repoInfo.setAheadBehind(aheadBehind);
+        }
         return status;
     }
 
     /**
-     * Check if local changes are available to pull.
-     * @param git Git of repository
-     * @return True, iff local changes are available.
+     * Gets the status of the given repository from its local refs only (no network access), i.e. the current
+     * branch is compared to its remote-tracking branch as of the last fetch.
+     * The ahead / behind counts and the time of the last fetch (FETCH_HEAD) are set on the repo.
+     * @param repo Repo to check
+     * @return Status of the repository, or null if it cannot be read
+     */
+    public RepositoryInformation.RepoStatus getLocalRepoStatus(RepositoryInformation repo) {
+        try (Git git = getRepoGit(repo.getPath())) {
+            if (git.getRepository().getConfig().getString("remote", "origin", "url") == null) {
+                repo.setAheadBehind(null);
+                return NO_REMOTE;
+            }
+            File fetchHead = new File(git.getRepository().getDirectory(), "FETCH_HEAD");
+            repo.setLastFetched(fetchHead.exists() ? new Date(fetchHead.lastModified()) : null);
+            AheadBehind aheadBehind = getAheadBehind(git);
+            repo.setAheadBehind(aheadBehind);
+            return getStatus(git.getRepository(), aheadBehind);
+        } catch (IllegalStateException ex) {
+            repo.setAheadBehind(null);
+            return NO_REMOTE_BRANCH;
+        } catch (IOException | GitAPIException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param repository Repository to check
+     * @param aheadBehind Ahead / behind counts of the current branch
+     * @return Status according to the merge state and the ahead / behind counts
      * @throws IOException
-     * @throws GitAPIException
      */
-    protected boolean localChangesAvailable(Git git) throws IOException, GitAPIException {
-        Repository repository = git.getRepository();
-        String branch = repository.getBranch();
-        ObjectId fetchHead = repository.resolve("refs/remotes/origin/"+branch);
-        ObjectId head = repository.resolve("refs/heads/"+branch);
-        // check if there are any commits in local tree which are not in remote tree
-        return !getExclusiveCommits(git.log().add(fetchHead).call(), git.log().add(head).call()).isEmpty();
+    private RepositoryInformation.RepoStatus getStatus(Repository repository, AheadBehind aheadBehind) throws IOException {
+        if (repository.readMergeHeads() != null) {
+            return MERGE_NEEDED;
+        } else if (aheadBehind.isBehind() && aheadBehind.isAhead()) {
+            return PULL_PUSH_AVAILABLE;
+        } else if (aheadBehind.isBehind()) {
+            return PULL_AVAILABLE;
+        } else if (aheadBehind.isAhead()) {
+            return PUSH_AVAILABLE;
+        } else {
+            return UP_TO_DATE;
+        }
     }
 
     /**
-     * Check if remote changes are available to pull.
+     * Count the commits by which the current branch is ahead of / behind its remote branch.
+     * Counting stops at {@link #STATUS_COMMIT_COUNT_CAP} commits per side.
      * @param git Git of repository
-     * @return True, iff remote changes are available.
+     * @return Ahead / behind counts of the current branch.
      * @throws IOException
      * @throws GitAPIException
      * @throws IllegalStateException If the current branch is local-only, i.e. has no remote branch associated
      */
-    protected boolean remoteChangesAvailable(Git git) throws IOException, GitAPIException, IllegalStateException {
+    protected AheadBehind getAheadBehind(Git git) throws IOException, GitAPIException, IllegalStateException {
         Repository repository = git.getRepository();
         String branch = repository.getBranch();
         ObjectId fetchHead = repository.resolve("refs/remotes/origin/"+branch);
@@ -695,29 +1340,7 @@ public class GitManager {
             throw new IllegalStateException("current branch has no remote branch associated");
         }
         ObjectId head = repository.resolve("refs/heads/"+branch);
-        // check if there are any commits in remote tree which are not in local tree
-        return !getExclusiveCommits(git.log().add(head).call(), git.log().add(fetchHead).call()).isEmpty();
-    }
-
-    /**
-     * Compare 'comparable' to 'base' and get the commits exclusive to 'comparable' (i.e. which do not exists in 'base')
-     * @param base
-     * @param comparable
-     * @return
-     */
-    private List<RevCommit> getExclusiveCommits(Iterable<RevCommit> base, Iterable<RevCommit> comparable) {
-        List<RevCommit> exclusiveCommits = new ArrayList<>();
-        Set<RevCommit> baseCommits = new HashSet<>();
-        base.forEach(baseCommits::add);
-        Set<RevCommit> comparableCommits = new HashSet<>();
-        comparable.forEach(comparableCommits::add);
-
-        for (RevCommit rc : comparableCommits) {
-            if (!baseCommits.contains(rc)) {
-                exclusiveCommits.add(rc);
-            }
-        }
-        return exclusiveCommits;
+        return AheadBehind.count(repository, head, fetchHead, STATUS_COMMIT_COUNT_CAP);
     }
 
     /**
@@ -784,11 +1407,20 @@ public class GitManager {
 
     /**
      * Check if a repo has a remote specified.
+     * The repo is opened only for this check instead of via the repo cache, since it is used for repos found by
+     * scans, which would otherwise evict the watched repos from the cache.
      * @param path Path of repo to check.
      * @return True, iff repo config has remote path.
      */
     public boolean hasRemoteRepository(String path) {
-        return getRemoteURL(path) != null;
+        try (Repository repo = new FileRepositoryBuilder()
+                .setGitDir(new File(path + "/.git"))
+                .setMustExist(true)
+                .build()) {
+            return repo.getConfig().getString("remote", "origin", "url") != null;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
@@ -797,16 +1429,107 @@ public class GitManager {
      * @return Remote URL of the repo.
      */
     public String getRemoteURL(String path) {
-        try {
-            Repository repo = getRepoGit(path).getRepository();
-            return repo.getConfig().getString("remote", "origin", "url");
+        try (Git git = getRepoGit(path)) {
+            return git.getRepository().getConfig().getString("remote", "origin", "url");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the commit of the remote-tracking branch of the current branch, i.e. the remote state known locally.
+     * @param repo Repo to check
+     * @return Commit ID of refs/remotes/origin/[current branch] or null if it does not exist or cannot be read.
+     */
+    public ObjectId getRemoteBranchHead(RepositoryInformation repo) {
+        try (Git git = getRepoGit(repo.getPath())) {
+            Repository repository = git.getRepository();
+            String branch = repository.getBranch();
+            return branch != null ? repository.resolve("refs/remotes/origin/" + branch) : null;
         } catch (IOException e) {
             return null;
         }
     }
 
     public RevCommit getLastCommit(RepositoryInformation repo) throws IOException, GitAPIException {
-        Git git = getRepoGit(repo.getPath());
-        return git.log().setMaxCount(1).call().iterator().next();
+        try (Git git = getRepoGit(repo.getPath())) {
+            return git.log().setMaxCount(1).call().iterator().next();
+        }
+    }
+
+    /**
+     * Read the commit of HEAD, opening the repo only for this read instead of via the repo cache
+     * (e.g. for repos which are not watched, so they do not evict the watched ones from the cache).
+     * @param path Path of the repo
+     * @return Commit of HEAD or null if there is none
+     * @throws IOException If the repo cannot be read
+     */
+    public static RevCommit readLastCommit(String path) throws IOException {
+        try (Repository repo = new FileRepositoryBuilder()
+                .setGitDir(new File(path + "/.git"))
+                .setMustExist(true)
+                .build()) {
+            ObjectId head = repo.resolve(Constants.HEAD);
+            if (head == null) {
+                return null;
+            }
+            try (RevWalk walk = new RevWalk(repo)) {
+                return walk.parseCommit(head);
+            }
+        }
+    }
+
+    /**
+     * Log walk kept open between pages, so loading a page does not re-walk the previous ones.
+     * Holds a lease of the cached repository until closed.
+     */
+    private class LogCursor {
+        private final String path;
+        private final ObjectId head;
+        private final Git git;
+        private final RevWalk walk;
+        private ObjectId last;
+
+        /**
+         * @param afterCommit Last commit of the previous page (null for first page), the walk is advanced past it
+         */
+        private LogCursor(String path, ObjectId head, ObjectId afterCommit) throws IOException {
+            this.path = path;
+            this.head = head;
+            this.git = getRepoGit(path);
+            this.walk = new RevWalk(git.getRepository());
+            try {
+                walk.markStart(walk.parseCommit(head));
+                // skip commits of previous pages (only if the walk of the previous pages is not open anymore)
+                if (afterCommit != null) {
+                    RevCommit commit = walk.next();
+                    while (commit != null && !commit.equals(afterCommit)) {
+                        commit = walk.next();
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        private boolean continues(ObjectId head, ObjectId afterCommit) {
+            return this.head.equals(head) && afterCommit.equals(last);
+        }
+
+        private List<CommitChange> next(int limit) throws IOException {
+            List<CommitChange> page = new ArrayList<>();
+            RevCommit commit;
+            while (page.size() < limit && (commit = walk.next()) != null) {
+                page.add(new CommitChange(commit));
+                last = commit.copy();
+            }
+            return page;
+        }
+
+        private void close() {
+            walk.close();
+            git.close();
+        }
     }
 }
@@ -0,0 +1,189 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import at.aau.ainf.gitrepomonitor.core.files.AsyncExecutors;
+import org.eclipse.jgit.transport.URIish;
+
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schedules network operations grouped by remote host.
+ * Each host has its own concurrency limit which is adapted using AIMD (additive increase, multiplicative decrease):
+ * The limit grows by one per window of successful operations and is reduced if an operation fails or its latency
+ * rises well above the lowest latency observed for this host. The total number of running operations is capped by
+ * a global limit, so a single slow host cannot occupy all threads.
+ */
+public class HostScheduler {
+    // host key used for repos without a remote host (e.g. local file remotes)
+    public static final String LOCAL_HOST = "";
+    // latency above (baseline * LATENCY_TOLERANCE) is treated as congestion
+    private static final double LATENCY_TOLERANCE = 2.0;
+    // latencies below this value are never treated as congestion (avoids reacting to jitter of fast operations)
+    private static final double MIN_CONGESTION_LATENCY_MS = 100;
+    private static final double BACKOFF_ERROR = 0.5;
+    private static final double BACKOFF_LATENCY = 0.8;
+    // weight with which a slower sample raises the latency baseline
+    private static final double BASELINE_DRIFT = 0.05;
+
+    /**
+     * Get the host key of a remote URL.
+     * @param remoteURL URL of the remote (may be null)
+     * @return Host name of the remote (lower case) or {@link #LOCAL_HOST} if it cannot be determined.
+     */
+    public static String getHost(String remoteURL) {
+        if (remoteURL == null) {
+            return LOCAL_HOST;
+        }
+        try {
+            String host = new URIish(remoteURL).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : LOCAL_HOST;
+        } catch (URISyntaxException e) {
+            return LOCAL_HOST;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final int globalLimit;
+    private final int maxHostLimit;
+    private final Map<String, HostState> hosts;
+    private int running;
+    private int nextHost;
+
+    /**
+     * Create a new scheduler with its own executor (see {@link AsyncExecutors}).
+     * @param globalLimit Max. number of operations running at the same time.
+     * @param maxHostLimit Max. number of operations running at the same time per host.
+     */
+    public HostScheduler(int globalLimit, int maxHostLimit) {
+        this(globalLimit, maxHostLimit, AsyncExecutors.newExecutor(Math.max(1, globalLimit)));
+    }
+
+    /**
+     * Create a new scheduler running operations on the given executor.
+     * @param globalLimit Max. number of operations running at the same time.
+     * @param maxHostLimit Max. number of operations running at the same time per host.
+     * @param executor Executor to run operations on (must be able to run {@code globalLimit} operations in parallel)
+     */
+    public HostScheduler(int globalLimit, int maxHostLimit, ExecutorService executor) {
+        this.globalLimit = Math.max(1, globalLimit);
+        this.maxHostLimit = Math.max(1, Math.min(maxHostLimit, this.globalLimit));
+        this.executor = executor;
+        this.hosts = new LinkedHashMap<>();
+    }
+
+    /**
+     * Queue an operation for the given host.
+     * @param host Host key (see {@link #getHost(String)})
+     * @param operation Operation to execute. Returns false (or throws) if the remote could not be accessed properly,
+     *                  which causes the limit of the host to be reduced.
+     */
+    public synchronized void submit(String host, Callable<Boolean> operation) {
+        hosts.computeIfAbsent(host, h -> new HostState(maxHostLimit)).queue.add(operation);
+        dispatch();
+    }
+
+    /**
+     * @param host Host key
+     * @return Current concurrency limit of the host.
+     */
+    public synchronized int getHostLimit(String host) {
+        HostState state = hosts.get(host);
+        return state != null ? state.getLimit() : new HostState(maxHostLimit).getLimit();
+    }
+
+    public int getGlobalLimit() {
+        return globalLimit;
+    }
+
+    /**
+     * @return Number of operations currently running.
+     */
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    /**
+     * Start queued operations as long as the host and global limits allow it.
+     * Hosts are served round-robin.
+     */
+    private void dispatch() {
+        List<HostState> states = new ArrayList<>(hosts.values());
+        boolean started = true;
+        while (started && running < globalLimit) {
+            started = false;
+            for (int i = 0; i < states.size() && running < globalLimit; i++) {
+                HostState state = states.get((nextHost + i) % states.size());
+                if (!state.queue.isEmpty() && state.running < state.getLimit()) {
+                    start(state, state.queue.poll());
+                    nextHost = (nextHost + i + 1) % states.size();
+                    started = true;
+                }
+            }
+        }
+    }
+
+    private void start(HostState state, Callable<Boolean> operation) {
+        state.running++;
+        running++;
+        executor.execute(() -> {
+            long startTime = System.nanoTime();
+            boolean success = false;
+            try {
+                success = Boolean.TRUE.equals(operation.call());
+            } catch (Exception ex) {
+                Logger.getAnonymousLogger().log(Level.WARNING, "scheduled operation failed", ex);
+            } finally {
+                finished(state, success, (System.nanoTime() - startTime) / 1_000_000.0);
+            }
+        });
+    }
+
+    private synchronized void finished(HostState state, boolean success, double latencyMs) {
+        state.running--;
+        running--;
+        state.adapt(success, latencyMs);
+        dispatch();
+    }
+
+    /**
+     * Queue and limit of a single host.
+     */
+    private static class HostState {
+        private final Deque<Callable<Boolean>> queue = new ArrayDeque<>();
+        private final int maxLimit;
+        private double limit;
+        private double baselineLatency;
+        private int running;
+
+        HostState(int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = Math.min(2, maxLimit);
+        }
+
+        int getLimit() {
+            return Math.max(1, (int) limit);
+        }
+
+        void adapt(boolean success, double latencyMs) {
+            if (!success) {
+                limit = Math.max(1, limit * BACKOFF_ERROR);
+                return;
+            }
+            if (baselineLatency == 0 || latencyMs < baselineLatency) {
+                baselineLatency = latencyMs;
+            } else {
+                baselineLatency += (latencyMs - baselineLatency) * BASELINE_DRIFT;
+            }
+
+            if (latencyMs > Math.max(baselineLatency * LATENCY_TOLERANCE, MIN_CONGESTION_LATENCY_MS)) {
+                limit = Math.max(1, limit * BACKOFF_LATENCY);
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+}
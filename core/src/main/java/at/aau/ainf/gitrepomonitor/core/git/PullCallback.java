@@ -15,7 +15,7 @@ public interface PullCallback {
     void finished(List<PullResult> results, int pullsSuccessful, int pullsFailed, boolean wrongMasterPW);
 
     default void finished(RepositoryInformation repo, MergeResult.MergeStatus status, Exception ex) {
-        finished(Collections.singletonList(new PullResult(repo, status, ex)), 1, 0, false);
+        finished(Collections.singletonList(new PullResult(repo, status, ex, true, false)), 1, 0, false);
     }
 
     default void failed(RepositoryInformation repo, boolean wrongMasterPW) {
@@ -23,7 +23,7 @@ public interface PullCallback {
     }
 
     default void failed(RepositoryInformation repo,MergeResult.MergeStatus status, Exception ex, boolean wrongMasterPW) {
-        finished(Collections.singletonList(new PullResult(repo, status, ex)), 0, 1, wrongMasterPW);
+        finished(Collections.singletonList(new PullResult(repo, status, ex, false, wrongMasterPW)), 0, 1, wrongMasterPW);
     }
 
     /**
@@ -33,11 +33,20 @@ public interface PullCallback {
         private final RepositoryInformation repo;
         private final MergeResult.MergeStatus status;
         private final Exception ex;
+        private final boolean success;
+        private final boolean wrongMasterPW;
 
         public PullResult(RepositoryInformation repo, MergeResult.MergeStatus status, Exception ex) {
+            this(repo, status, ex, true, false);
+        }
+
+        public PullResult(RepositoryInformation repo, MergeResult.MergeStatus status, Exception ex,
+                          boolean success, boolean wrongMasterPW) {
             this.repo = repo;
             this.status = status;
             this.ex = ex;
+            this.success = success;
+            this.wrongMasterPW = wrongMasterPW;
         }
 
         public RepositoryInformation getRepo() {
@@ -51,5 +60,16 @@ public interface PullCallback {
         public Exception getEx() {
             return ex;
         }
+
+        /**
+         * @return True, if the pull counts as successful (see {@link PullCallback#finished(List, int, int, boolean)})
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public boolean isWrongMasterPW() {
+            return wrongMasterPW;
+        }
     }
 }
@@ -0,0 +1,282 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+
+/**
+ * Async operation on multiple repos.
+ * Provides the future of each repo, an aggregate future completing with a {@link Summary} once the operations of
+ * all repos have finished, and publishes the results of the repos in the order they finish. Subscribers also receive
+ * the results published before they subscribed.
+ * Cancelling the batch cancels the operations of all repos which have not been started yet.
+ * @param <T> Result type of the operation of a single repo
+ */
+public class RepoBatch<T> implements Flow.Publisher<RepoBatch.Result<T>> {
+
+    private final Map<UUID, CompletableFuture<T>> futures;
+    private final Predicate<T> isSuccess;
+    private final CompletableFuture<Summary<T>> summary;
+    // results in order of completion
+    private final List<Result<T>> results;
+    private final List<Subscription> subscriptions;
+
+    /**
+     * @param futures Futures of the operations per repo ID
+     * @param isSuccess Decides whether the result of a repo counts as successful
+     */
+    public RepoBatch(Map<UUID, CompletableFuture<T>> futures, Predicate<T> isSuccess) {
+        this.futures = Collections.unmodifiableMap(new LinkedHashMap<>(futures));
+        this.isSuccess = isSuccess;
+        this.results = new ArrayList<>();
+        this.subscriptions = new ArrayList<>();
+        for (Map.Entry<UUID, CompletableFuture<T>> entry : this.futures.entrySet()) {
+            entry.getValue().whenComplete((value, ex) -> completed(entry.getKey(), value, ex));
+        }
+        this.summary = CompletableFuture.allOf(this.futures.values().toArray(new CompletableFuture<?>[0]))
+                .handle((v, ex) -> new Summary<>(this.futures, isSuccess));
+    }
+
+    /**
+     * @return Futures of the operations per repo ID (in order of submission)
+     */
+    public Map<UUID, CompletableFuture<T>> getFutures() {
+        return futures;
+    }
+
+    /**
+     * @param repoID ID of the repo
+     * @return Future of the operation of the repo (null, if the repo is not part of the batch)
+     */
+    public CompletableFuture<T> get(UUID repoID) {
+        return futures.get(repoID);
+    }
+
+    /**
+     * @return Future completing (normally) once the operations of all repos have finished or were cancelled.
+     */
+    public CompletableFuture<Summary<T>> getSummary() {
+        return summary;
+    }
+
+    /**
+     * Cancel the operations of all repos which have not finished yet.
+     * Operations which are already running are not interrupted, but their results are discarded.
+     */
+    public void cancel() {
+        futures.values().forEach(future -> future.cancel(false));
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Result<T>> subscriber) {
+        Subscription subscription = new Subscription(subscriber);
+        synchronized (this) {
+            subscriptions.add(subscription);
+        }
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    private void completed(UUID repoID, T value, Throwable ex) {
+        List<Subscription> toNotify;
+        synchronized (this) {
+            results.add(new Result<>(repoID, value, unwrap(ex), isSuccess));
+            toNotify = new ArrayList<>(subscriptions);
+        }
+        toNotify.forEach(Subscription::drain);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * Subscription delivering the results on request. Results are delivered by the thread which requested them or
+     * which completed the operation of a repo, but never concurrently.
+     */
+    private class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Result<T>> subscriber;
+        private long demand;
+        private int next;
+        private boolean isDraining;
+        private boolean isDone;
+
+        private Subscription(Flow.Subscriber<? super Result<T>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            synchronized (RepoBatch.this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (RepoBatch.this) {
+                isDone = true;
+                subscriptions.remove(this);
+            }
+        }
+
+        private void drain() {
+            synchronized (RepoBatch.this) {
+                if (isDraining) {
+                    // the draining thread picks up the new state
+                    return;
+                }
+                isDraining = true;
+            }
+            while (true) {
+                Result<T> result = null;
+                boolean isComplete = false;
+                synchronized (RepoBatch.this) {
+                    if (!isDone && next < results.size() && demand > 0) {
+                        result = results.get(next++);
+                        demand--;
+                    } else if (!isDone && next == futures.size()) {
+                        isComplete = true;
+                        isDone = true;
+                        subscriptions.remove(this);
+                    } else {
+                        isDraining = false;
+                        return;
+                    }
+                }
+                if (isComplete) {
+                    subscriber.onComplete();
+                    return;
+                }
+                subscriber.onNext(result);
+            }
+        }
+    }
+
+    /**
+     * Result of the operation of a single repo.
+     * @param <T> Result type
+     */
+    public static class Result<T> {
+        private final UUID repoID;
+        private final T value;
+        private final Throwable error;
+        private final boolean isSuccess;
+
+        private Result(UUID repoID, T value, Throwable error, Predicate<T> isSuccess) {
+            this.repoID = repoID;
+            this.value = value;
+            this.error = error;
+            this.isSuccess = error == null && isSuccess.test(value);
+        }
+
+        public UUID getRepoID() {
+            return repoID;
+        }
+
+        /**
+         * @return Result of the operation (null if it failed or was cancelled)
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return Exception thrown by the operation (null if it completed normally)
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return isSuccess;
+        }
+
+        public boolean isCancelled() {
+            return error instanceof CancellationException;
+        }
+    }
+
+    /**
+     * Summary of a finished batch.
+     * @param <T> Result type
+     */
+    public static class Summary<T> {
+        private final Map<UUID, T> results;
+        private final Map<UUID, Throwable> errors;
+        private final int successCount;
+        private final int cancelledCount;
+
+        private Summary(Map<UUID, CompletableFuture<T>> futures, Predicate<T> isSuccess) {
+            this.results = new LinkedHashMap<>();
+            this.errors = new LinkedHashMap<>();
+            int successful = 0;
+            int cancelled = 0;
+            for (Map.Entry<UUID, CompletableFuture<T>> entry : futures.entrySet()) {
+                try {
+                    T value = entry.getValue().join();
+                    results.put(entry.getKey(), value);
+                    if (isSuccess.test(value)) {
+                        successful++;
+                    }
+                } catch (CancellationException ex) {
+                    errors.put(entry.getKey(), ex);
+                    cancelled++;
+                } catch (CompletionException ex) {
+                    errors.put(entry.getKey(), unwrap(ex));
+                }
+            }
+            this.successCount = successful;
+            this.cancelledCount = cancelled;
+        }
+
+        /**
+         * @return Results of all repos whose operation completed normally (per repo ID, in order of submission)
+         */
+        public Map<UUID, T> getResults() {
+            return Collections.unmodifiableMap(results);
+        }
+
+        /**
+         * @return Exceptions of all repos whose operation failed or was cancelled (per repo ID)
+         */
+        public Map<UUID, Throwable> getErrors() {
+            return Collections.unmodifiableMap(errors);
+        }
+
+        public int getTotalCount() {
+            return results.size() + errors.size();
+        }
+
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        /**
+         * @return Number of repos whose operation failed (not including cancelled operations)
+         */
+        public int getFailedCount() {
+            return getTotalCount() - successCount - cancelledCount;
+        }
+
+        public int getCancelledCount() {
+            return cancelledCount;
+        }
+
+        /**
+         * @return True, iff the operations of all repos were successful.
+         */
+        public boolean isSuccess() {
+            return successCount == getTotalCount();
+        }
+    }
+}
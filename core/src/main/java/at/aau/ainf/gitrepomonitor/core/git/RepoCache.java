@@ -0,0 +1,140 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of opened repositories.
+ * Repositories are opened concurrently per path (only lookups of the same path wait for each other).
+ * Each {@link #open(String)} returns a lease which must be closed after use. Once the cache exceeds its max. size,
+ * the least recently used repositories are evicted and closed as soon as their last lease is closed.
+ */
+public class RepoCache {
+    private final int maxSize;
+    private final Map<String, Entry> entries;
+    // logical clock for LRU ordering
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * @param maxSize Max. number of repositories kept open
+     */
+    public RepoCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the repository at the given path, opening it if not cached yet.
+     * @param path Path of the folder wrapping the git repository
+     * @return Lease of the repository, must be closed after use (e.g. try-with-resources)
+     * @throws IOException If path does not point to a valid repository
+     */
+    public Git open(String path) throws IOException {
+        Entry entry;
+        try {
+            entry = entries.compute(path, (p, existing) -> {
+                Entry e = existing != null ? existing : new Entry(load(p));
+                // lease is taken while holding the key, so a concurrent eviction cannot close the repository
+                e.repository.incrementOpen();
+                e.lastAccess = clock.incrementAndGet();
+                return e;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        evict();
+        return new Lease(entry.repository);
+    }
+
+    /**
+     * Close and remove the repository at the given path (e.g. if it was moved or deleted).
+     * @param path Repo path
+     */
+    public void invalidate(String path) {
+        Entry entry = entries.remove(path);
+        if (entry != null) {
+            entry.repository.close();
+        }
+    }
+
+    /**
+     * Close and remove all repositories.
+     */
+    public void clear() {
+        entries.keySet().forEach(this::invalidate);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    protected Repository load(String path) {
+        try {
+            return new FileRepositoryBuilder()
+                    .setGitDir(new File(path + "/.git"))
+                    .setMustExist(true)
+                    .build();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Evict least recently used repositories until the max. size is met.
+     */
+    private void evict() {
+        while (entries.size() > maxSize) {
+            Map.Entry<String, Entry> lru = entries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                    .orElse(null);
+            if (lru == null) {
+                return;
+            }
+            // only close if not replaced concurrently
+            if (entries.remove(lru.getKey(), lru.getValue())) {
+                lru.getValue().repository.close();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Repository repository;
+        private volatile long lastAccess;
+
+        private Entry(Repository repository) {
+            this.repository = repository;
+        }
+    }
+
+    /**
+     * Git wrapper which releases its lease of the cached repository on close.
+     */
+    private static class Lease extends Git {
+        private boolean closed;
+
+        private Lease(Repository repository) {
+            super(repository);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                getRepository().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import java.util.*;
+
+/**
+ * Serializes the operations on each repo: operations on one repo are started one after another (in order of
+ * submission), while operations on different repos run in parallel.
+ * Operations submitted with a coalesce key are merged into the last pending (not yet started) operation of the same
+ * repo if it has the same key, so e.g. repeated status checks of a repo result in a single check. Operations are never
+ * merged across other operations, so the order of submission is kept. All requests merged into an operation are
+ * passed to it when it is started.
+ * Operations are started on the submitting thread or the thread finishing the previous operation, so they are
+ * expected to hand their work over to an executor.
+ */
+public class RepoOperationQueue {
+
+    /**
+     * Operation on a repo.
+     * @param <T> Type of the requests merged into the operation
+     */
+    public interface Operation<T> {
+        /**
+         * Start the operation.
+         * @param requests Requests merged into this operation (at least one)
+         * @param done Must be called once the operation finished
+         */
+        void start(List<T> requests, Runnable done);
+    }
+
+    private final Map<String, Deque<Entry<?>>> queues;
+
+    public RepoOperationQueue() {
+        this.queues = new HashMap<>();
+    }
+
+    /**
+     * Submit an operation.
+     * @param repoKey Key of the repo (e.g. its path)
+     * @param coalesceKey Key of the operation type, or null if the operation must not be merged
+     * @param request Request passed to the operation
+     * @param operation Operation to start (not used if merged into the pending operation)
+     * @param <T> Type of the requests
+     * @return True, if the request was merged into the pending operation
+     */
+    public <T> boolean submit(String repoKey, String coalesceKey, T request, Operation<T> operation) {
+        Entry<?> next;
+        synchronized (this) {
+            Deque<Entry<?>> queue = queues.get(repoKey);
+            Entry<?> last = queue != null ? queue.peekLast() : null;
+            if (last != null && !last.isStarted && coalesceKey != null && coalesceKey.equals(last.coalesceKey)) {
+                @SuppressWarnings("unchecked")
+                Entry<T> pending = (Entry<T>) last;
+                pending.requests.add(request);
+                return true;
+            }
+            Entry<T> entry = new Entry<>(coalesceKey, operation);
+            entry.requests.add(request);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(repoKey, queue);
+            }
+            queue.add(entry);
+            // only start if no other operation of the repo is running
+            if (queue.size() > 1) {
+                return false;
+            }
+            entry.isStarted = true;
+            next = entry;
+        }
+        start(repoKey, next);
+        return false;
+    }
+
+    /**
+     * @param repoKey Key of the repo
+     * @return Number of running and pending operations of the repo
+     */
+    public synchronized int getQueuedCount(String repoKey) {
+        Deque<Entry<?>> queue = queues.get(repoKey);
+        return queue != null ? queue.size() : 0;
+    }
+
+    private <T> void start(String repoKey, Entry<T> entry) {
+        Runnable done = entry.once(() -> finished(repoKey));
+        try {
+            entry.operation.start(entry.requests, done);
+        } catch (RuntimeException ex) {
+            done.run();
+            throw ex;
+        }
+    }
+
+    private void finished(String repoKey) {
+        Entry<?> next;
+        synchronized (this) {
+            Deque<Entry<?>> queue = queues.get(repoKey);
+            queue.poll();
+            next = queue.peek();
+            if (next == null) {
+                queues.remove(repoKey);
+                return;
+            }
+            next.isStarted = true;
+        }
+        start(repoKey, next);
+    }
+
+    private static class Entry<T> {
+        private final String coalesceKey;
+        private final Operation<T> operation;
+        private final List<T> requests;
+        private boolean isStarted;
+        private boolean isDone;
+
+        private Entry(String coalesceKey, Operation<T> operation) {
+            this.coalesceKey = coalesceKey;
+            this.operation = operation;
+            this.requests = new ArrayList<>();
+        }
+
+        /**
+         * The next operation must only be started once, even if the operation reports to be done repeatedly.
+         */
+        private Runnable once(Runnable done) {
+            return () -> {
+                synchronized (this) {
+                    if (isDone) {
+                        return;
+                    }
+                    isDone = true;
+                }
+                done.run();
+            };
+        }
+    }
+}
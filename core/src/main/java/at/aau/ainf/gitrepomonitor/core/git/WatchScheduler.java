@@ -0,0 +1,212 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import at.aau.ainf.gitrepomonitor.core.authentication.SecureStorage;
+import at.aau.ainf.gitrepomonitor.core.files.FileManager;
+import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
+import at.aau.ainf.gitrepomonitor.core.files.WatchStatistics;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static at.aau.ainf.gitrepomonitor.core.files.FileManager.RepoList.WATCH;
+
+/**
+ * Re-checks the status of all repos on the Watchlist in the background.
+ * Every repo is polled on its own interval, which adapts to how often its remote branch changes:
+ * The interval is halved whenever a check observes a remote change and grows if nothing changed,
+ * within {@link #MIN_INTERVAL} and {@link #MAX_INTERVAL}. Checks are jittered so they do not all fire together.
+ * The per-repo intervals are persisted, so they survive restarts.
+ */
+public class WatchScheduler implements PropertyChangeListener {
+    public static final long MIN_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    public static final long MAX_INTERVAL = TimeUnit.HOURS.toMillis(4);
+    public static final long INITIAL_INTERVAL = TimeUnit.MINUTES.toMillis(15);
+    // factor by which the interval grows if no change was observed
+    private static final double GROWTH_FACTOR = 1.5;
+    // relative deviation of the actual delay from the interval
+    private static final double JITTER = 0.15;
+
+    private static WatchScheduler instance;
+
+    public static synchronized WatchScheduler getInstance() {
+        if (instance == null) {
+            instance = new WatchScheduler(GitManager.getInstance(), FileManager.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Calculate the next polling interval of a repo.
+     * @param interval Current interval (ms)
+     * @param changed True, if the last check observed a remote change
+     * @return Next interval (ms)
+     */
+    static long nextInterval(long interval, boolean changed) {
+        long next = changed ? interval / 2 : (long) (interval * GROWTH_FACTOR);
+        return Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, next));
+    }
+
+    /**
+     * Randomize a delay by +/- {@link #JITTER}.
+     * @param delay Delay (ms)
+     * @return Randomized delay (ms)
+     */
+    static long jitter(long delay) {
+        double factor = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * JITTER;
+        return (long) (delay * factor);
+    }
+
+    private final GitManager gitManager;
+    private final FileManager fileManager;
+    private final Map<UUID, WatchStatistics> statistics;
+    private final Map<UUID, ScheduledFuture<?>> scheduledChecks;
+    private ScheduledExecutorService executor;
+
+    protected WatchScheduler(GitManager gitManager, FileManager fileManager) {
+        this.gitManager = gitManager;
+        this.fileManager = fileManager;
+        this.statistics = new HashMap<>();
+        this.scheduledChecks = new HashMap<>();
+    }
+
+    /**
+     * Start background checks of all repos on the Watchlist.
+     * Repos without persisted statistics are spread over their initial interval.
+     */
+    public void start() {
+        // load outside of lock, since FileManager notifies listeners while holding its own lock
+        Map<UUID, WatchStatistics> persistedStatistics = fileManager.getWatchStatistics();
+        synchronized (this) {
+            if (executor != null) {
+                return;
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = Executors.defaultThreadFactory().newThread(r);
+                t.setDaemon(true);
+                return t;
+            });
+            persistedStatistics.forEach(statistics::putIfAbsent);
+            fileManager.addWatchlistListener(this);
+            scheduleWatchlist();
+        }
+    }
+
+    /**
+     * Stop all background checks.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        fileManager.removeWatchlistListener(this);
+        scheduledChecks.values().forEach(check -> check.cancel(false));
+        scheduledChecks.clear();
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Schedule checks of new Watchlist repos and cancel checks of removed ones.
+     */
+    private void scheduleWatchlist() {
+        Set<UUID> watchlistIDs = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (RepositoryInformation repo : fileManager.getWatchlist()) {
+            watchlistIDs.add(repo.getID());
+            if (!scheduledChecks.containsKey(repo.getID())) {
+                WatchStatistics stats = statistics.computeIfAbsent(repo.getID(), id ->
+                        new WatchStatistics(id, INITIAL_INTERVAL,
+                                now + (long) (ThreadLocalRandom.current().nextDouble() * INITIAL_INTERVAL), 0));
+                // overdue checks are spread over the interval of the repo
+                long delay = stats.getNextCheck() > now ? stats.getNextCheck() - now :
+                        (long) (ThreadLocalRandom.current().nextDouble() * stats.getPollInterval());
+                schedule(repo.getID(), delay);
+            }
+        }
+        scheduledChecks.keySet().removeIf(id -> {
+            if (!watchlistIDs.contains(id)) {
+                scheduledChecks.get(id).cancel(false);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void schedule(UUID repoID, long delay) {
+        scheduledChecks.put(repoID, executor.schedule(() -> check(repoID), delay, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Check status of a repo and schedule the next check according to the result.
+     * @param repoID ID of the repo to check
+     */
+    private void check(UUID repoID) {
+        RepositoryInformation repo = fileManager.getRepo(repoID);
+        if (repo == null || fileManager.getListName(repoID) != WATCH) {
+            synchronized (this) {
+                scheduledChecks.remove(repoID);
+            }
+            return;
+        }
+        // credentials are only accessible in the background if the master password is cached
+        if (repo.getAuthID() != null && !SecureStorage.getImplementation().isMasterPasswordCached()) {
+            checkSkipped(repoID);
+            return;
+        }
+
+        ObjectId remoteHeadBefore = gitManager.getRemoteBranchHead(repo);
+        gitManager.updateRepoStatusInBackground(repo, (success, reposChecked, reposFailed, ex) ->
+                checkFinished(repoID, success && !Objects.equals(remoteHeadBefore, gitManager.getRemoteBranchHead(repo))));
+    }
+
+    private synchronized void checkFinished(UUID repoID, boolean changed) {
+        if (executor == null || !scheduledChecks.containsKey(repoID)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        WatchStatistics stats = statistics.get(repoID);
+        stats.setPollInterval(nextInterval(stats.getPollInterval(), changed));
+        if (changed) {
+            stats.setLastChange(now);
+        }
+        long delay = jitter(stats.getPollInterval());
+        stats.setNextCheck(now + delay);
+        fileManager.storeWatchStatisticsAsync(stats);
+        schedule(repoID, delay);
+    }
+
+    /**
+     * Schedule the next check of a repo which could not be checked, keeping its interval and statistics
+     * (nothing was observed, so the interval must not grow).
+     * @param repoID ID of the repo
+     */
+    private synchronized void checkSkipped(UUID repoID) {
+        if (executor == null || !scheduledChecks.containsKey(repoID)) {
+            return;
+        }
+        schedule(repoID, jitter(statistics.get(repoID).getPollInterval()));
+    }
+
+    /**
+     * @param repoID Repo ID
+     * @return Current polling interval of the repo (ms) or -1 if the repo is not watched.
+     */
+    public synchronized long getPollInterval(UUID repoID) {
+        WatchStatistics stats = statistics.get(repoID);
+        return stats != null && scheduledChecks.containsKey(repoID) ? stats.getPollInterval() : -1;
+    }
+
+    @Override
+    public synchronized void propertyChange(PropertyChangeEvent e) {
+        if (executor != null && e.getPropertyName().equals("watchlist")) {
+            scheduleWatchlist();
+        }
+    }
+}
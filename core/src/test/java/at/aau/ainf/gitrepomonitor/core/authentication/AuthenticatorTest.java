@@ -3,6 +3,7 @@ package at.aau.ainf.gitrepomonitor.core.authentication;
 import at.aau.ainf.gitrepomonitor.core.authentication.*;
 import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
 import org.eclipse.jgit.api.TransportCommand;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -22,7 +23,8 @@ public class AuthenticatorTest {
 
   @BeforeAll
   static void setupMock() throws AuthenticationException {
-    secureStorageMock = mock(SecureStorage.class);
+    // credential vault of SecureStorage is used
+    secureStorageMock = mock(SecureStorage.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
     doAnswer(invocation -> {
       UUID id = invocation.getArgument(1);
       if (authIdHTTPS.equals(id)) {
@@ -70,6 +72,22 @@ public class AuthenticatorTest {
     assertFalse(authenticator.hasInformation());
   }
 
+  @Test
+  void testLeasesReleasedOnFailure() throws AuthenticationException {
+    SecureStorage storage = mock(SecureStorage.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+    UUID cachedID = UUID.randomUUID();
+    UsernamePasswordCredentialsProvider cp = mock(UsernamePasswordCredentialsProvider.class);
+    storage.vault.add(cachedID, new Authenticator(cp), true, 0);
+    storage.masterPassword = "hash".toCharArray();
+    // e.g. the master password cache expired before the missing credentials were loaded
+    doThrow(new AuthenticationException()).when(storage).get(any(), (Collection<UUID>) any());
+
+    Map<UUID, UUID> authIDs = Map.of(UUID.randomUUID(), cachedID, UUID.randomUUID(), UUID.randomUUID());
+    assertThrows(AuthenticationException.class, () -> storage.getAuthenticators(null, authIDs));
+    storage.vault.clear();
+    verify(cp, times(1)).clear();
+  }
+
   @Test
   void testGetFor() throws AuthenticationException {
     List<RepositoryInformation> repos = new ArrayList<>();
@@ -0,0 +1,65 @@
+package at.aau.ainf.gitrepomonitor.core.authentication;
+
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CredentialVaultTest {
+
+  private final UUID authID = UUID.randomUUID();
+
+  @Test
+  void testLeasesShareCredentials() {
+    CredentialVault vault = new CredentialVault();
+    UsernamePasswordCredentialsProvider cp = mock(UsernamePasswordCredentialsProvider.class);
+    List<Authenticator> leases = vault.add(authID, new Authenticator(cp), true, 2);
+    Authenticator third = vault.acquire(authID);
+    assertNotNull(third);
+    assertNotSame(leases.get(0), leases.get(1));
+
+    // destroying a lease does not clear the shared credentials
+    leases.get(0).destroy();
+    assertFalse(leases.get(0).hasInformation());
+    assertTrue(leases.get(1).hasInformation());
+
+    // evicted credentials are cleared once all leases are released
+    vault.clear();
+    assertNull(vault.acquire(authID));
+    leases.get(1).destroy();
+    // destroying a lease twice must not release it twice
+    leases.get(1).destroy();
+    verify(cp, never()).clear();
+    third.destroy();
+    verify(cp, times(1)).clear();
+  }
+
+  @Test
+  void testCredentialsNotRetained() {
+    CredentialVault vault = new CredentialVault();
+    UsernamePasswordCredentialsProvider cp = mock(UsernamePasswordCredentialsProvider.class);
+    Authenticator lease = vault.add(authID, new Authenticator(cp), false, 1).get(0);
+    assertEquals(0, vault.size());
+    assertTrue(lease.hasInformation());
+    lease.destroy();
+    verify(cp, times(1)).clear();
+  }
+
+  @Test
+  void testInvalidate() {
+    CredentialVault vault = new CredentialVault();
+    UsernamePasswordCredentialsProvider old = mock(UsernamePasswordCredentialsProvider.class);
+    vault.add(authID, new Authenticator(old), true, 1).get(0).destroy();
+    verify(old, never()).clear();
+
+    // replaced credentials are cleared
+    vault.add(authID, new Authenticator(mock(UsernamePasswordCredentialsProvider.class)), true, 1);
+    verify(old, times(1)).clear();
+    vault.invalidate(authID);
+    assertEquals(0, vault.size());
+  }
+}
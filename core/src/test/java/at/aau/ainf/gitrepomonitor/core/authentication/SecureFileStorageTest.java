@@ -7,10 +7,19 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.SecretKey;
 import javax.naming.AuthenticationException;
+import java.security.GeneralSecurityException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class SecureFileStorageTest {
 
@@ -68,6 +77,221 @@ public class SecureFileStorageTest {
         assertTrue(TestUtils.isCleared(credentials.getPassword()));
     }
 
+    /**
+     * Create a file manager mock storing the auth strings in the provided map.
+     */
+    private FileManager createAuthStore(Map<UUID, String> authStrings) {
+        FileManager fileManager = mock(FileManager.class);
+        when(fileManager.readAuthenticationString(any())).thenAnswer(inv -> authStrings.get(inv.getArgument(0)));
+        when(fileManager.readAuthenticationStrings(any())).thenAnswer(inv -> {
+            Map<UUID, String> entries = new HashMap<>(authStrings);
+            entries.keySet().retainAll(inv.getArgument(0));
+            return entries;
+        });
+        when(fileManager.getAllAuthenticationStrings()).thenAnswer(inv -> {
+            Map<UUID, String> entries = new HashMap<>(authStrings);
+            entries.remove(MasterPasswordAuthInfo.ID);
+            return entries;
+        });
+        doAnswer(inv -> authStrings.put(((AuthenticationCredentials) inv.getArgument(0)).getID(), inv.getArgument(1)))
+                .when(fileManager).storeAuthentication(any(), anyString());
+        doAnswer(inv -> authStrings.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(fileManager).updateAuthentication(any(UUID.class), anyString());
+        doAnswer(inv -> {
+            authStrings.putAll(inv.getArgument(0));
+            return null;
+        }).when(fileManager).updateAuthentications(any());
+        return fileManager;
+    }
+
+    @Test
+    void testKeyHierarchy() throws Exception {
+        Map<UUID, String> authStrings = new HashMap<>();
+        SecureFileStorageTestable storage = new SecureFileStorageTestable();
+        storage.setFileManager(createAuthStore(authStrings));
+        storage.setMasterPassword("MP".toCharArray());
+
+        HttpsCredentials credentials = new HttpsCredentials("Username", "password".toCharArray());
+        UUID id = credentials.getID();
+        storage.store("MP".toCharArray(), credentials);
+        assertTrue(authStrings.get(id).startsWith(SecureStorage.FORMAT_V2));
+
+        HttpsCredentials loaded = (HttpsCredentials) storage.get("MP".toCharArray(), List.of(id)).get(id);
+        assertEquals("Username", loaded.getUsername());
+        assertArrayEquals("password".toCharArray(), loaded.getPassword());
+        storage.clearCachedMasterPassword();
+        assertThrows(AuthenticationException.class, () -> storage.get("wrong".toCharArray(), List.of(id)));
+
+        storage.updateMasterPassword("MP".toCharArray(), "MP2".toCharArray());
+        storage.clearCachedMasterPassword();
+        assertNotNull(storage.get("MP2".toCharArray(), id));
+        storage.clearCachedMasterPassword();
+        assertThrows(AuthenticationException.class, () -> storage.get("MP".toCharArray(), id));
+    }
+
+    @Test
+    void testKeyRotation() throws Exception {
+        Map<UUID, String> authStrings = new HashMap<>();
+        SecureFileStorageTestable storage = new SecureFileStorageTestable();
+        storage.setFileManager(createAuthStore(authStrings));
+        storage.setMasterPassword("MP".toCharArray());
+        List<UUID> ids = new ArrayList<>();
+        List<AuthenticationCredentials> credentials = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            HttpsCredentials cred = new HttpsCredentials("User" + i, "password".toCharArray());
+            ids.add(cred.getID());
+            credentials.add(cred);
+        }
+        storage.store("MP".toCharArray(), credentials);
+        storage.clearCachedMasterPassword();
+        Map<UUID, String> oldEncValues = new HashMap<>(authStrings);
+
+        // a wrong master password changes nothing
+        assertThrows(AuthenticationException.class,
+                () -> storage.updateMasterPassword("wrong".toCharArray(), "MP2".toCharArray(), null));
+        assertEquals(oldEncValues, authStrings);
+
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        storage.updateMasterPassword("MP".toCharArray(), "MP2".toCharArray(), (done, total) -> {
+            assertEquals(20, total);
+            progress.add(done);
+        });
+        storage.clearCachedMasterPassword();
+        assertEquals(20, progress.size());
+        assertEquals(20, Collections.max(progress));
+        // every entry is re-encrypted under the new data key
+        for (UUID id : oldEncValues.keySet()) {
+            assertNotEquals(oldEncValues.get(id), authStrings.get(id));
+        }
+        Map<UUID, AuthenticationCredentials> loaded = storage.get("MP2".toCharArray(), ids);
+        storage.clearCachedMasterPassword();
+        assertEquals("User3", ((HttpsCredentials) loaded.get(ids.get(3))).getUsername());
+        assertThrows(AuthenticationException.class, () -> storage.get("MP".toCharArray(), ids));
+    }
+
+    @Test
+    void testFailedKeyRotationKeepsStore() throws Exception {
+        Map<UUID, String> authStrings = new HashMap<>();
+        SecureFileStorageTestable storage = new SecureFileStorageTestable();
+        FileManager fileManager = createAuthStore(authStrings);
+        storage.setFileManager(fileManager);
+        storage.setMasterPassword("MP".toCharArray());
+        List<UUID> ids = new ArrayList<>();
+        List<AuthenticationCredentials> credentials = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            HttpsCredentials cred = new HttpsCredentials("User" + i, "password".toCharArray());
+            ids.add(cred.getID());
+            credentials.add(cred);
+        }
+        storage.store("MP".toCharArray(), credentials);
+        storage.clearCachedMasterPassword();
+        Map<UUID, String> oldEncValues = new HashMap<>(authStrings);
+
+        // an entry cannot be re-encrypted
+        authStrings.put(ids.get(0), SecureStorage.FORMAT_V2 + "AAAA");
+        assertThrows(AuthenticationException.class,
+                () -> storage.updateMasterPassword("MP".toCharArray(), "MP2".toCharArray(), null));
+        authStrings.put(ids.get(0), oldEncValues.get(ids.get(0)));
+        assertEquals(oldEncValues, authStrings);
+
+        // the entries cannot be read
+        when(fileManager.getAllAuthenticationStrings()).thenThrow(new RuntimeException("read failed"));
+        assertThrows(AuthenticationException.class,
+                () -> storage.updateMasterPassword("MP".toCharArray(), "MP2".toCharArray(), null));
+        assertEquals(oldEncValues, authStrings);
+
+        // the batch write fails
+        doAnswer(inv -> {
+            Map<UUID, String> entries = new HashMap<>(authStrings);
+            entries.remove(MasterPasswordAuthInfo.ID);
+            return entries;
+        }).when(fileManager).getAllAuthenticationStrings();
+        doThrow(new RuntimeException("write failed")).when(fileManager).updateAuthentications(any());
+        assertThrows(AuthenticationException.class,
+                () -> storage.updateMasterPassword("MP".toCharArray(), "MP2".toCharArray(), null));
+        assertEquals(oldEncValues, authStrings);
+
+        // old ciphertexts and key are still in place
+        Map<UUID, AuthenticationCredentials> loaded = storage.get("MP".toCharArray(), ids);
+        storage.clearCachedMasterPassword();
+        assertEquals("User4", ((HttpsCredentials) loaded.get(ids.get(4))).getUsername());
+    }
+
+    @Test
+    void testLegacyFormatIsMigrated() throws Exception {
+        Map<UUID, String> authStrings = new HashMap<>();
+        SecureFileStorageTestable storage = new SecureFileStorageTestable();
+        storage.setFileManager(createAuthStore(authStrings));
+        // store in legacy format: MP hash and every entry encrypted using the MP hash
+        char[] hashedMP = Utils.sha3_256("MP".toCharArray());
+        authStrings.put(MasterPasswordAuthInfo.ID, storage.encrypt(new String(hashedMP), hashedMP));
+        List<UUID> ids = new ArrayList<>();
+        // enough entries to be decrypted in parallel
+        for (int i = 0; i < 20; i++) {
+            HttpsCredentials credentials = new HttpsCredentials("User" + i, "password".toCharArray());
+            ids.add(credentials.getID());
+            authStrings.put(credentials.getID(), storage.encrypt(SecureStorage.mapper.writeValueAsString(credentials), hashedMP));
+        }
+
+        Map<UUID, AuthenticationCredentials> loaded = storage.get("MP".toCharArray(), ids);
+        storage.clearCachedMasterPassword();
+        assertEquals(20, loaded.size());
+        assertEquals("User1", ((HttpsCredentials) loaded.get(ids.get(1))).getUsername());
+        for (String encValue : authStrings.values()) {
+            assertFalse(SecureStorage.isLegacyFormat(encValue));
+        }
+        assertEquals("User2", ((HttpsCredentials) storage.get("MP".toCharArray(), ids.get(2))).getUsername());
+        storage.clearCachedMasterPassword();
+    }
+
+    @Test
+    void testKdfParametersInHeader() throws Exception {
+        SecureFileStorageTestable storage = new SecureFileStorageTestable();
+        SecureStorage.KdfParameters calibrated = storage.calibrateKdf();
+        assertTrue(calibrated.getIterations() >= 65536);
+
+        SecretKey dataKey = storage.generateDataKey();
+        char[] hashedMP = Utils.sha3_256("MP".toCharArray());
+        String wrapped = storage.wrapDataKey(dataKey, hashedMP);
+        assertTrue(wrapped.startsWith(SecureStorage.FORMAT_V3));
+        assertEquals(calibrated.getIterations(), SecureStorage.readKdfParameters(wrapped).getIterations());
+        assertArrayEquals(dataKey.getEncoded(), storage.unwrapDataKey(wrapped, hashedMP).getEncoded());
+
+        // the header is authenticated
+        String tampered = wrapped.replace(":" + calibrated.getIterations() + ":", ":" + (calibrated.getIterations() + 1) + ":");
+        assertThrows(GeneralSecurityException.class, () -> storage.unwrapDataKey(tampered, hashedMP));
+    }
+
+    @Test
+    void testOutdatedKdfParametersAreUpgraded() throws Exception {
+        Map<UUID, String> authStrings = new ConcurrentHashMap<>();
+        SecureFileStorageTestable storage = new SecureFileStorageTestable();
+        storage.setFileManager(createAuthStore(authStrings));
+        SecureStorage.KdfParameters calibrated = storage.calibrateKdf();
+        // data key wrapped using parameters weaker than the calibrated ones
+        SecretKey dataKey = storage.generateDataKey();
+        char[] hashedMP = Utils.sha3_256("MP".toCharArray());
+        String outdated = storage.wrapDataKey(dataKey, hashedMP,
+                new SecureStorage.KdfParameters(calibrated.getAlgorithm(), 1000));
+        authStrings.put(MasterPasswordAuthInfo.ID, outdated);
+        HttpsCredentials credentials = new HttpsCredentials("Username", "password".toCharArray());
+        UUID id = credentials.getID();
+        authStrings.put(id, storage.encryptEntry(SecureStorage.mapper.writeValueAsString(credentials), dataKey, id));
+
+        assertEquals("Username", ((HttpsCredentials) storage.get("MP".toCharArray(), id)).getUsername());
+        storage.clearCachedMasterPassword();
+
+        // the data key is re-wrapped in the background
+        long deadline = System.currentTimeMillis() + 10000;
+        while (outdated.equals(authStrings.get(MasterPasswordAuthInfo.ID)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        String upgraded = authStrings.get(MasterPasswordAuthInfo.ID);
+        assertEquals(calibrated.getIterations(), SecureStorage.readKdfParameters(upgraded).getIterations());
+        assertEquals("Username", ((HttpsCredentials) storage.get("MP".toCharArray(), id)).getUsername());
+        storage.clearCachedMasterPassword();
+    }
+
     @Test
     void testSHA() {
         char[] hash = Utils.sha3_256("test".toCharArray());
@@ -5,6 +5,8 @@ import at.aau.ainf.gitrepomonitor.core.files.StoragePath;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+import javax.naming.AuthenticationException;
 import java.io.File;
 
 public class SecureFileStorageTestable extends SecureFileStorage {
@@ -54,10 +56,10 @@ public class SecureFileStorageTestable extends SecureFileStorage {
     }
 
     @Override
-    protected boolean isMasterPasswordCorrect(char[] hashedCurrentPW) {
+    protected SecretKey unlock(char[] hashedMP) throws AuthenticationException {
         if (disableMPCheck) {
-            return true;
+            return generateDataKey();
         }
-        return super.isMasterPasswordCorrect(hashedCurrentPW);
+        return super.unlock(hashedMP);
     }
 }
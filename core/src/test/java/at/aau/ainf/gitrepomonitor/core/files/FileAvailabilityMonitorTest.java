@@ -0,0 +1,52 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileAvailabilityMonitorTest {
+
+  @TempDir
+  File root;
+
+  private final LinkedBlockingQueue<File> unavailable = new LinkedBlockingQueue<>();
+
+  @Test
+  void testDeletedFilesAreReported() throws Exception {
+    FileAvailabilityMonitor monitor = new FileAvailabilityMonitor(null);
+    File a = new File(root, "a.db");
+    File b = new File(root, "b.db");
+    File c = new File(root, "c.db");
+    assertTrue(a.createNewFile() && b.createNewFile() && c.createNewFile());
+    monitor.monitor(a, unavailable::add);
+    monitor.monitor(b, unavailable::add);
+    FileAvailabilityMonitor.Registration cancelled = monitor.monitor(c, unavailable::add);
+    // files of the same directory share one watch
+    assertEquals(1, monitor.getWatchedDirCount());
+
+    long start = System.nanoTime();
+    assertTrue(a.delete());
+    assertEquals(a.getAbsoluteFile(), unavailable.poll(5, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+
+    cancelled.cancel();
+    assertTrue(c.delete());
+    assertNull(unavailable.poll(FileAvailabilityMonitor.CHECK_INTERVAL_MS * 3, TimeUnit.MILLISECONDS));
+    assertEquals(1, monitor.getWatchedDirCount());
+  }
+
+  @Test
+  void testMissingParentIsPolled() throws Exception {
+    FileAvailabilityMonitor monitor = new FileAvailabilityMonitor(null);
+    File missing = new File(root, "missing/data.db");
+    monitor.monitor(missing, unavailable::add);
+
+    assertEquals(0, monitor.getWatchedDirCount());
+    assertEquals(missing.getAbsoluteFile(), unavailable.poll(5, TimeUnit.SECONDS));
+  }
+}
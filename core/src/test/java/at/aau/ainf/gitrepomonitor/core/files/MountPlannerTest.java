@@ -0,0 +1,64 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MountPlannerTest {
+
+  private static final List<String> MOUNTINFO = Arrays.asList(
+      "21 1 8:1 / / rw,relatime shared:1 - ext4 /dev/sda1 rw",
+      "22 21 0:20 / /proc rw,nosuid - proc proc rw",
+      "23 21 0:21 / /sys rw,nosuid shared:7 - sysfs sysfs rw",
+      "24 21 8:2 / /home rw,relatime shared:2 - ext4 /dev/sda2 rw",
+      "25 21 8:1 /srv /mnt/bind rw,relatime shared:1 - ext4 /dev/sda1 rw",
+      "26 21 0:40 / /mnt/nas rw,relatime - nfs4 nas:/export rw",
+      "27 21 8:17 / /media/usb\\040stick rw - vfat /dev/sdb1 rw",
+      "invalid line");
+
+  @Test
+  void testParse() {
+    List<MountPlanner.Mount> mounts = MountPlanner.parse(MOUNTINFO);
+
+    assertEquals(7, mounts.size());
+    assertEquals("8:1", mounts.get(0).getDevice());
+    assertEquals(Paths.get("/"), mounts.get(0).getMountPoint());
+    assertEquals("nfs4", mounts.get(5).getFsType());
+    assertEquals(Paths.get("/media/usb stick"), mounts.get(6).getMountPoint());
+  }
+
+  @Test
+  void testPlanSkipsPseudoAndNetwork() {
+    MountPlanner.Plan plan = MountPlanner.plan(MountPlanner.parse(MOUNTINFO), false);
+
+    assertEquals(Arrays.asList(
+        Arrays.asList(Paths.get("/"), Paths.get("/mnt/bind")),
+        List.of(Paths.get("/home")),
+        List.of(Paths.get("/media/usb stick"))), plan.getRootsByDevice());
+    assertTrue(plan.getMountPoints().contains(Paths.get("/proc")));
+    assertTrue(plan.getMountPoints().contains(Paths.get("/mnt/nas")));
+  }
+
+  @Test
+  void testPlanIncludesNetworkIfEnabled() {
+    MountPlanner.Plan plan = MountPlanner.plan(MountPlanner.parse(MOUNTINFO), true);
+
+    assertTrue(plan.getRootsByDevice().stream().anyMatch(roots -> roots.contains(Paths.get("/mnt/nas"))));
+    assertFalse(plan.getRootsByDevice().stream().anyMatch(roots -> roots.contains(Paths.get("/proc"))));
+  }
+
+  @Test
+  void testPlanMountedOver() {
+    MountPlanner.Plan plan = MountPlanner.plan(MountPlanner.parse(Arrays.asList(
+        "21 1 8:1 / / rw - ext4 /dev/sda1 rw",
+        "30 21 8:2 / /data rw - ext4 /dev/sda2 rw",
+        "31 30 8:3 / /data rw - xfs /dev/sda3 rw")), false);
+
+    assertEquals(Arrays.asList(List.of(Paths.get("/")), List.of(Paths.get("/data"))),
+        plan.getRootsByDevice());
+  }
+}
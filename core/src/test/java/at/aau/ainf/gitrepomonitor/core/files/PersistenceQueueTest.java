@@ -0,0 +1,125 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistenceQueueTest {
+
+  private static final String UPSERT = "INSERT OR REPLACE INTO item (id, value) VALUES (?,?)";
+  private static final String DELETE = "DELETE FROM item WHERE id=?";
+
+  @TempDir
+  File dir;
+
+  private String url;
+  private Connection conn;
+  private PersistenceQueue queue;
+
+  @BeforeEach
+  void setup() throws Exception {
+    url = "jdbc:sqlite:" + new File(dir, "test.db").getAbsolutePath();
+    conn = DriverManager.getConnection(url);
+    try (Statement stmt = conn.createStatement()) {
+      stmt.executeUpdate("CREATE TABLE item (id TEXT PRIMARY KEY NOT NULL, value INTEGER)");
+    }
+    queue = new PersistenceQueue(DriverManager.getConnection(url));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    queue.close();
+    conn.close();
+  }
+
+  private Integer read(String id) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement("SELECT value FROM item WHERE id=?")) {
+      stmt.setString(1, id);
+      try (ResultSet results = stmt.executeQuery()) {
+        return results.next() ? results.getInt(1) : null;
+      }
+    }
+  }
+
+  @Test
+  void testFlushWritesPending() throws Exception {
+    queue.enqueue("item:a", UPSERT, "a", 1);
+    queue.enqueue("item:b", UPSERT, "b", 2);
+    queue.flush();
+
+    assertEquals(0, queue.getPendingCount());
+    assertEquals(1, read("a"));
+    assertEquals(2, read("b"));
+  }
+
+  @Test
+  void testCoalescing() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      queue.enqueue("item:a", UPSERT, "a", i);
+    }
+    queue.enqueue("item:b", UPSERT, "b", 1);
+    queue.enqueue("item:b", DELETE, "b");
+    assertTrue(queue.getPendingCount() <= 2);
+    queue.flush();
+
+    assertEquals(99, read("a"));
+    assertNull(read("b"));
+  }
+
+  @Test
+  void testEnqueueAll() throws Exception {
+    queue.enqueue("item:a", UPSERT, "a", 1);
+    queue.enqueueAll(Arrays.asList(
+        new PersistenceQueue.Write("item:a", UPSERT, "a", 2),
+        new PersistenceQueue.Write("item:b", UPSERT, "b", 3)));
+    assertEquals(2, queue.getPendingCount());
+    queue.flush();
+
+    assertEquals(2, read("a"));
+    assertEquals(3, read("b"));
+  }
+
+  @Test
+  void testInvalidChangeDoesNotDiscardBatch() throws Exception {
+    queue.enqueue("item:a", UPSERT, "a", 1);
+    queue.enqueue("invalid", "INSERT INTO missing_table (id) VALUES (?)", "x");
+    queue.enqueue("item:b", UPSERT, "b", 2);
+    // the failed change is reported to the caller
+    assertThrows(RuntimeException.class, queue::flush);
+
+    assertEquals(1, read("a"));
+    assertEquals(2, read("b"));
+  }
+
+  @Test
+  void testBackgroundFailureIsReported() throws Exception {
+    LinkedBlockingQueue<SQLException> failures = new LinkedBlockingQueue<>();
+    PersistenceQueue reportingQueue = new PersistenceQueue(DriverManager.getConnection(url), failures::add);
+    try {
+      reportingQueue.enqueue("invalid", "INSERT INTO missing_table (id) VALUES (?)", "x");
+      assertNotNull(failures.poll(5, TimeUnit.SECONDS));
+    } finally {
+      reportingQueue.close();
+    }
+  }
+
+  @Test
+  void testCloseWritesPendingAndDropsLaterChanges() throws Exception {
+    queue.enqueue("item:a", UPSERT, "a", 1);
+    queue.close();
+    queue.enqueue("item:b", UPSERT, "b", 2);
+    queue.flush();
+
+    assertEquals(1, read("a"));
+    assertNull(read("b"));
+  }
+}
@@ -0,0 +1,62 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepoIngestorTest {
+
+  @TempDir
+  File root;
+
+  @Test
+  void testExtractMetadata() throws Exception {
+    File repoDir = new File(root, "repo");
+    RevCommit commit;
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      git.getRepository().getConfig().setString("remote", "origin", "url", "https://example.com/repo.git");
+      git.getRepository().getConfig().save();
+      commit = git.commit().setMessage("initial").setAllowEmpty(true).setSign(false).call();
+    }
+
+    RepositoryInformation repo = RepoIngestor.extractMetadata(repoDir);
+    assertEquals(RepositoryInformation.AuthMethod.HTTPS, repo.getAuthMethod());
+    assertEquals(commit.getName(), repo.getLastCommitID());
+    assertNotEquals(RepositoryInformation.RepoStatus.PATH_INVALID, repo.getStatus());
+
+    RepositoryInformation invalid = RepoIngestor.extractMetadata(new File(root, "missing"));
+    assertEquals(RepositoryInformation.RepoStatus.PATH_INVALID, invalid.getStatus());
+  }
+
+  @Test
+  void testBatchedIngestion() throws Exception {
+    List<File> repoDirs = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      File repoDir = new File(root, "repo" + i);
+      Git.init().setDirectory(repoDir).call().close();
+      repoDirs.add(repoDir);
+    }
+
+    List<List<RepositoryInformation>> batches = Collections.synchronizedList(new ArrayList<>());
+    List<RepositoryInformation> notified = Collections.synchronizedList(new ArrayList<>());
+    RepoIngestor ingestor = new RepoIngestor(repos -> {
+      batches.add(repos);
+      return repos;
+    }, notified::addAll, 4);
+    repoDirs.forEach(ingestor::submit);
+    ingestor.finish();
+
+    assertEquals(50, notified.size());
+    assertEquals(50, batches.stream().mapToInt(List::size).sum());
+    // repos are stored in batches, not one by one
+    assertTrue(batches.size() < 10);
+  }
+}
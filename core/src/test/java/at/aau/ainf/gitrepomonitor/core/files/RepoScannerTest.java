@@ -0,0 +1,194 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepoScannerTest {
+
+  @TempDir
+  File root;
+
+  private File repo(String path) {
+    File dir = new File(root, path);
+    assertTrue(new File(dir, ".git").mkdirs());
+    return dir;
+  }
+
+  private List<File> scan(boolean scanSubmodules, AtomicInteger found, String... excludes) {
+    return scan(null, scanSubmodules, found, excludes);
+  }
+
+  private List<File> scan(DirectoryIndex index, boolean scanSubmodules, AtomicInteger found, String... excludes) {
+    RepoScanner scanner = new RepoScanner(root, false, Arrays.asList(excludes), scanSubmodules, 4);
+    scanner.setDirectoryIndex(index);
+    return scanner.scanForRepos(new RepoScanCallback() {
+      @Override
+      public void repoFound(File dir) {
+        found.incrementAndGet();
+      }
+
+      @Override
+      public void dirScanned() {
+      }
+    });
+  }
+
+  @Test
+  void testFindsReposAndSkipsExcluded() {
+    File a = repo("a");
+    File b = repo("x/y/b");
+    repo("web/node_modules/lib");
+
+    AtomicInteger found = new AtomicInteger();
+    List<File> repos = scan(false, found, "**/node_modules");
+
+    assertEquals(new HashSet<>(Arrays.asList(a, b)), new HashSet<>(repos));
+    assertEquals(2, found.get());
+  }
+
+  @Test
+  void testSubmoduleScanning() {
+    File outer = repo("outer");
+    File inner = repo("outer/modules/inner");
+
+    assertEquals(Set.of(outer), new HashSet<>(scan(false, new AtomicInteger())));
+    assertEquals(Set.of(outer, inner), new HashSet<>(scan(true, new AtomicInteger())));
+  }
+
+  @Test
+  void testSymlinkCycle() throws Exception {
+    File a = repo("dir/a");
+    try {
+      Files.createSymbolicLink(new File(root, "dir/loop").toPath(), root.toPath());
+    } catch (UnsupportedOperationException | IOException ex) {
+      return;
+    }
+
+    AtomicInteger found = new AtomicInteger();
+    List<File> repos = scan(false, found);
+
+    assertEquals(List.of(a), repos);
+    assertEquals(1, found.get());
+  }
+
+  private void setMtime(Path path, long mtime) throws IOException {
+    Files.setLastModifiedTime(path, FileTime.fromMillis(mtime));
+  }
+
+  @Test
+  void testIncrementalRescan() throws Exception {
+    File a = repo("a");
+    File b = repo("x/y/b");
+    long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+    try (Stream<Path> dirs = Files.walk(root.toPath())) {
+      for (Path dir : (Iterable<Path>) dirs::iterator) {
+        setMtime(dir, old);
+      }
+    }
+
+    DirectoryIndex index = new DirectoryIndex();
+    assertEquals(Set.of(a, b), new HashSet<>(scan(index, false, new AtomicInteger())));
+    assertFalse(index.isEmpty());
+
+    // changed directories are listed again
+    File c = repo("x/c");
+    assertEquals(Set.of(a, b, c), new HashSet<>(scan(index, false, new AtomicInteger())));
+
+    // unchanged directories are not listed again
+    repo("x/y/hidden");
+    setMtime(new File(root, "x/y").toPath(), old);
+    assertEquals(Set.of(a, b, c), new HashSet<>(scan(index, false, new AtomicInteger())));
+
+    // index survives store / load
+    File indexFile = new File(root, "index.dat");
+    index.store(indexFile);
+    // an existing index is replaced, no temporary file is left behind
+    index.store(indexFile);
+    assertEquals(1, root.listFiles((dir, name) -> name.startsWith(indexFile.getName())).length);
+    DirectoryIndex loaded = DirectoryIndex.load(indexFile);
+    assertEquals(Set.of(a, b, c), new HashSet<>(scan(loaded, false, new AtomicInteger())));
+
+    // index is discarded if scan options change
+    assertEquals(4, scan(loaded, false, new AtomicInteger(), "**/none").size());
+  }
+
+  @Test
+  void testThrottledScan() {
+    for (int i = 0; i < 5; i++) {
+      repo("dir" + i + "/repo");
+    }
+    AtomicInteger paused = new AtomicInteger(3);
+    RepoScanner scanner = new RepoScanner(root, false, List.of(), false, 4);
+    // 20 dirs per second, paused for the first checks of the pause condition
+    scanner.setThrottle(new ScanThrottle(20, 1, () -> paused.getAndDecrement() > 0));
+
+    long start = System.nanoTime();
+    List<File> repos = scanner.scanForRepos(new RepoScanCallback() {
+      @Override
+      public void repoFound(File dir) {
+      }
+
+      @Override
+      public void dirScanned() {
+      }
+    });
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertEquals(5, repos.size());
+    // 11 dirs are read, at most one every 50ms
+    assertTrue(elapsedMs >= 450, "scan took only " + elapsedMs + "ms");
+    assertTrue(paused.get() < 0);
+  }
+
+  @Test
+  void testStoppedScanResumes() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      repo("dir" + i + "/sub/repo");
+    }
+    long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+    try (Stream<Path> dirs = Files.walk(root.toPath())) {
+      for (Path dir : (Iterable<Path>) dirs::iterator) {
+        setMtime(dir, old);
+      }
+    }
+
+    DirectoryIndex index = new DirectoryIndex();
+    RepoScanner scanner = new RepoScanner(root, false, List.of(), false, 1);
+    scanner.setDirectoryIndex(index);
+    AtomicInteger scanned = new AtomicInteger();
+    List<File> partial = scanner.scanForRepos(new RepoScanCallback() {
+      @Override
+      public void repoFound(File dir) {
+      }
+
+      @Override
+      public void dirScanned() {
+        if (scanned.incrementAndGet() == 5) {
+          scanner.stop();
+        }
+      }
+    });
+    assertTrue(partial.size() < 4);
+    // progress of the stopped scan is kept, but the root is listed again
+    DirectoryIndex.Node checkpoint = index.getRoot(root.toPath().toAbsolutePath().toString());
+    assertNotNull(checkpoint);
+    assertEquals(DirectoryIndex.UNKNOWN_MTIME, checkpoint.getMtime());
+
+    assertEquals(4, scan(index, false, new AtomicInteger()).size());
+  }
+}
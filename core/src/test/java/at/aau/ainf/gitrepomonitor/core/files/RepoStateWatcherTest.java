@@ -0,0 +1,139 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepoStateWatcherTest {
+
+  @TempDir
+  File root;
+
+  private final LinkedBlockingQueue<UUID> changes = new LinkedBlockingQueue<>();
+  private RepoStateWatcher watcher;
+
+  @AfterEach
+  void tearDown() {
+    if (watcher != null) {
+      watcher.stop();
+    }
+  }
+
+  private Path repo(String name) throws IOException {
+    Path gitDir = new File(root, name + "/.git").toPath();
+    Files.createDirectories(gitDir.resolve("refs/heads"));
+    Files.createDirectories(gitDir.resolve("refs/remotes/origin"));
+    Files.write(gitDir.resolve("HEAD"), "ref: refs/heads/master\n".getBytes());
+    return gitDir;
+  }
+
+  @Test
+  void testChangesAreCoalesced() throws Exception {
+    Path gitDir = repo("a");
+    UUID id = UUID.randomUUID();
+    watcher = new RepoStateWatcher(changes::add, 100, 60000);
+    watcher.setRepos(Map.of(id, gitDir.getParent().toString()));
+    assertEquals(0, watcher.getPolledRepoCount());
+    assertTrue(watcher.getWatchCount() > 0);
+
+    // a fetch writing several refs
+    Files.write(gitDir.resolve("refs/remotes/origin/master"), "1".getBytes());
+    Files.write(gitDir.resolve("refs/remotes/origin/dev"), "2".getBytes());
+    Files.write(gitDir.resolve("FETCH_HEAD"), "3".getBytes());
+
+    assertEquals(id, changes.poll(5, TimeUnit.SECONDS));
+    assertNull(changes.poll(RepoStateWatcher.DEBOUNCE_MS * 3, TimeUnit.MILLISECONDS));
+
+    // other files of the Git dir are ignored
+    Files.write(gitDir.resolve("description"), "x".getBytes());
+    assertNull(changes.poll(RepoStateWatcher.DEBOUNCE_MS * 3, TimeUnit.MILLISECONDS));
+
+    // branches in new ref directories are detected as well
+    Files.createDirectories(gitDir.resolve("refs/heads/feature"));
+    assertEquals(id, changes.poll(5, TimeUnit.SECONDS));
+    Files.write(gitDir.resolve("refs/heads/feature/x"), "4".getBytes());
+    assertEquals(id, changes.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testPollingWhenWatchLimitReached() throws Exception {
+    Path gitDirA = repo("a");
+    Path gitDirB = repo("b");
+    UUID idA = UUID.randomUUID();
+    UUID idB = UUID.randomUUID();
+    // the limit only allows watching one of the repos
+    watcher = new RepoStateWatcher(changes::add, 6, 100);
+    watcher.setRepos(Map.of(idA, gitDirA.getParent().toString(), idB, gitDirB.getParent().toString()));
+    assertEquals(1, watcher.getPolledRepoCount());
+
+    Path ref = gitDirA.resolve("refs/heads/master");
+    Files.write(ref, "1".getBytes());
+    Files.setLastModifiedTime(ref.getParent(), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+    Files.write(gitDirB.resolve("refs/heads/master"), "1".getBytes());
+    Files.setLastModifiedTime(gitDirB.resolve("refs/heads"), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+
+    UUID first = changes.poll(5, TimeUnit.SECONDS);
+    UUID second = changes.poll(5, TimeUnit.SECONDS);
+    assertEquals(Set.of(idA, idB), Set.of(first, second));
+
+    // removed repos are not reported anymore
+    watcher.setRepos(Map.of());
+    assertEquals(0, watcher.getWatchCount());
+    Files.write(gitDirA.resolve("HEAD"), "ref: refs/heads/dev\n".getBytes());
+    assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void testPolledRepoIsWatchedOnceWatchesAreAvailable() throws Exception {
+    Path gitDirA = repo("a");
+    Path gitDirB = repo("b");
+    UUID idA = UUID.randomUUID();
+    UUID idB = UUID.randomUUID();
+    // long poll interval, so changes are only reported quickly by watches
+    watcher = new RepoStateWatcher(changes::add, 6, 60000);
+    watcher.setRepos(Map.of(idA, gitDirA.getParent().toString()));
+    watcher.setRepos(Map.of(idA, gitDirA.getParent().toString(), idB, gitDirB.getParent().toString()));
+    assertEquals(1, watcher.getPolledRepoCount());
+
+    // removing repo a frees its watches for repo b
+    watcher.setRepos(Map.of(idB, gitDirB.getParent().toString()));
+    assertEquals(0, watcher.getPolledRepoCount());
+    Files.write(gitDirB.resolve("refs/heads/master"), "1".getBytes());
+    assertEquals(idB, changes.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testLastRefChange() throws Exception {
+    Path gitDir = repo("a");
+    String repoPath = gitDir.getParent().toString();
+    long checked = System.currentTimeMillis();
+    Files.setLastModifiedTime(gitDir.resolve("HEAD"), FileTime.fromMillis(checked - 10000));
+    Files.write(gitDir.resolve("index"), "x".getBytes());
+    Files.setLastModifiedTime(gitDir.resolve("index"), FileTime.fromMillis(checked + 10000));
+    // ref dirs are created by the test setup as well
+    Files.setLastModifiedTime(gitDir.resolve("refs/heads"), FileTime.fromMillis(checked - 10000));
+    Files.setLastModifiedTime(gitDir.resolve("refs/remotes/origin"), FileTime.fromMillis(checked - 10000));
+    Files.setLastModifiedTime(gitDir.resolve("refs/remotes"), FileTime.fromMillis(checked - 10000));
+    Files.setLastModifiedTime(gitDir.resolve("refs"), FileTime.fromMillis(checked - 10000));
+    // changes of the index are ignored
+    assertTrue(RepoStateWatcher.getLastRefChange(repoPath) <= checked);
+
+    Path ref = gitDir.resolve("refs/remotes/origin/master");
+    Files.write(ref, "1".getBytes());
+    Files.setLastModifiedTime(ref, FileTime.fromMillis(checked + 5000));
+    assertEquals(checked + 5000, RepoStateWatcher.getLastRefChange(repoPath));
+  }
+}
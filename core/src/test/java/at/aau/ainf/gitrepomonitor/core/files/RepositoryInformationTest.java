@@ -0,0 +1,58 @@
+package at.aau.ainf.gitrepomonitor.core.files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositoryInformationTest {
+
+  @TempDir
+  File repoDir;
+
+  @Test
+  void testLastCommitSummary() throws Exception {
+    RepositoryInformation repo = new RepositoryInformation(repoDir.getAbsolutePath());
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      RevCommit commit = git.commit().setMessage("initial").setAllowEmpty(true).setSign(false)
+          .setAuthor("Jane Doe", "jane@example.com").call();
+      repo.setLastCommit(commit);
+
+      assertEquals(commit.getName(), repo.getLastCommitID());
+      assertEquals((long) commit.getCommitTime() * 1000, repo.getLastCommitDate().getTime());
+      assertEquals("Jane Doe", repo.getLastCommitAuthor().getName());
+
+      // only the summary is kept
+      RepositoryInformation found = new RepositoryInformation(repoDir.getAbsolutePath());
+      found.setLastCommitSummary(commit);
+      assertNull(found.getLastCommit());
+      assertEquals(commit.getName(), found.getLastCommitID());
+      assertEquals("Jane Doe", found.getLastCommitAuthor().getName());
+    }
+
+    repo.setLastCommit(null);
+    assertNull(repo.getLastCommitID());
+    assertNull(repo.getLastCommitDate());
+    assertNull(repo.getLastCommitAuthor());
+  }
+
+  @Test
+  void testSnapshotSummary() {
+    RepositoryInformation repo = new RepositoryInformation("/some/path");
+    Date date = new Date(1000);
+    repo.setLastCommitSummary("abc", date, new PersonIdent("Jane Doe", "jane@example.com"));
+    repo.setStale(true);
+
+    assertNull(repo.getLastCommit());
+    assertEquals("abc", repo.getLastCommitID());
+    assertEquals(date, repo.getLastCommitDate());
+    assertEquals("jane@example.com", repo.getLastCommitAuthor().getEmailAddress());
+    assertTrue(repo.isStale());
+  }
+}
@@ -0,0 +1,75 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AheadBehindTest {
+
+  @TempDir
+  File repoDir;
+
+  private RevCommit commit(Git git, String msg) throws Exception {
+    return git.commit().setMessage(msg).setAllowEmpty(true).setSign(false).call();
+  }
+
+  @Test
+  void testDiverged() throws Exception {
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      RevCommit base = commit(git, "base");
+      git.branchCreate().setName("other").call();
+      commit(git, "local 1");
+      ObjectId local = commit(git, "local 2");
+
+      git.checkout().setName("other").call();
+      commit(git, "remote 1");
+      commit(git, "remote 2");
+      ObjectId remote = commit(git, "remote 3");
+
+      AheadBehind ab = AheadBehind.count(git.getRepository(), local, remote);
+      assertEquals(2, ab.getAhead());
+      assertEquals(3, ab.getBehind());
+      assertFalse(ab.isAheadCapped());
+      assertFalse(ab.isBehindCapped());
+
+      ab = AheadBehind.count(git.getRepository(), base, remote);
+      assertEquals(0, ab.getAhead());
+      assertEquals(3, ab.getBehind());
+    }
+  }
+
+  @Test
+  void testUpToDate() throws Exception {
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      commit(git, "first");
+      ObjectId head = commit(git, "second");
+
+      AheadBehind ab = AheadBehind.count(git.getRepository(), head, head);
+      assertFalse(ab.isAhead());
+      assertFalse(ab.isBehind());
+    }
+  }
+
+  @Test
+  void testCap() throws Exception {
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      ObjectId base = commit(git, "base");
+      ObjectId head = null;
+      for (int i = 0; i < 5; i++) {
+        head = commit(git, "commit " + i);
+      }
+
+      AheadBehind ab = AheadBehind.count(git.getRepository(), head, base, 3);
+      assertEquals(3, ab.getAhead());
+      assertTrue(ab.isAheadCapped());
+      assertEquals(0, ab.getBehind());
+      assertEquals("\u21913+ \u21930", ab.toString());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommitLogCacheTest {
+
+  @TempDir
+  File repoDir;
+  List<CommitChange> log;
+  ObjectId head;
+
+  @BeforeEach
+  void createLog() throws Exception {
+    log = new ArrayList<>();
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      for (int i = 0; i < 5; i++) {
+        RevCommit commit = git.commit().setMessage("commit " + i).setAllowEmpty(true).setSign(false).call();
+        log.add(0, new CommitChange(commit));
+      }
+    }
+    head = log.get(0).getCommit();
+  }
+
+  @Test
+  void testPages() {
+    CommitLogCache cache = new CommitLogCache(1024 * 1024);
+    assertNull(cache.getPage("repo", head, null, 2));
+    cache.putPage("repo", head, null, 2, log.subList(0, 2));
+    assertEquals(log.subList(0, 2), cache.getPage("repo", head, null, 2));
+
+    // next page is not cached yet
+    ObjectId last = log.get(1).getCommit();
+    assertNull(cache.getPage("repo", head, last, 2));
+    cache.putPage("repo", head, last, 2, log.subList(2, 4));
+    assertEquals(log.subList(2, 4), cache.getPage("repo", head, last, 2));
+
+    // last page is incomplete, so the log is complete
+    last = log.get(3).getCommit();
+    cache.putPage("repo", head, last, 2, log.subList(4, 5));
+    assertEquals(log.subList(4, 5), cache.getPage("repo", head, last, 2));
+    assertEquals(log.subList(0, 5), cache.getPage("repo", head, null, 10));
+
+    assertEquals(4, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void testHeadChanged() {
+    CommitLogCache cache = new CommitLogCache(1024 * 1024);
+    cache.putPage("repo", head, null, 2, log.subList(0, 2));
+    assertNull(cache.getPage("repo", log.get(1).getCommit(), null, 2));
+  }
+
+  @Test
+  void testInvalidate() {
+    CommitLogCache cache = new CommitLogCache(1024 * 1024);
+    cache.putPage("repo", head, null, 2, log.subList(0, 2));
+    cache.putCommitCount("repo", head, 5);
+    assertEquals(5, cache.getCommitCount("repo", head));
+    cache.invalidate("repo");
+    assertNull(cache.getPage("repo", head, null, 2));
+    assertEquals(-1, cache.getCommitCount("repo", head));
+    assertEquals(0, cache.getSizeBytes());
+  }
+
+  @Test
+  void testEviction() {
+    CommitLogCache cache = new CommitLogCache(1);
+    cache.putPage("a", head, null, 5, log);
+    cache.putPage("b", head, null, 5, log);
+    // only most recently used entry is kept
+    assertEquals(1, cache.getEntryCount());
+    assertNull(cache.getPage("a", head, null, 5));
+    assertNotNull(cache.getPage("b", head, null, 5));
+
+    cache = new CommitLogCache(1024 * 1024);
+    cache.putPage("a", head, null, 5, log);
+    long entrySize = cache.getSizeBytes();
+    cache = new CommitLogCache(entrySize * 2);
+    cache.putPage("a", head, null, 5, log);
+    cache.putPage("b", head, null, 5, log);
+    cache.getPage("a", head, null, 5);
+    cache.putPage("c", head, null, 5, log);
+    // "b" is least recently used
+    assertNull(cache.getPage("b", head, null, 5));
+    assertNotNull(cache.getPage("a", head, null, 5));
+    assertNotNull(cache.getPage("c", head, null, 5));
+  }
+}
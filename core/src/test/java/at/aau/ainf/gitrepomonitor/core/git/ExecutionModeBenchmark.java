@@ -0,0 +1,101 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import at.aau.ainf.gitrepomonitor.core.files.AsyncExecutors;
+import at.aau.ainf.gitrepomonitor.core.files.Settings;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the thread pool and virtual thread execution modes by checking the status (fetch + ahead / behind)
+ * of many local repos. Network round trips are simulated by a fixed delay per check.
+ * Run with -Dbenchmark=true (optionally -Dbenchmark.repos=N -Dbenchmark.latency=MS).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ExecutionModeBenchmark {
+
+  private static final int REPO_COUNT = Integer.getInteger("benchmark.repos", 200);
+  private static final int LATENCY_MS = Integer.getInteger("benchmark.latency", 50);
+  private static final int POOL_SIZE = 10;
+
+  @TempDir
+  static File fixtureDir;
+  static List<File> repos = new ArrayList<>();
+
+  @BeforeAll
+  static void createFixture() throws Exception {
+    File remoteDir = new File(fixtureDir, "remote");
+    try (Git remote = Git.init().setDirectory(remoteDir).call()) {
+      remote.commit().setMessage("initial").setAllowEmpty(true).setSign(false).call();
+      for (int i = 0; i < REPO_COUNT; i++) {
+        File repoDir = new File(fixtureDir, "repo" + i);
+        Git.cloneRepository().setURI(remoteDir.toURI().toString()).setDirectory(repoDir).call().close();
+        repos.add(repoDir);
+      }
+      // all clones are behind by one commit
+      remote.commit().setMessage("new").setAllowEmpty(true).setSign(false).call();
+    }
+  }
+
+  private long run(Settings.ExecutionMode mode, int permits) throws Exception {
+    ExecutorService base = AsyncExecutors.newExecutor(mode, POOL_SIZE);
+    Executor executor = AsyncExecutors.limit(base, permits);
+    CountDownLatch done = new CountDownLatch(repos.size());
+    AtomicInteger behind = new AtomicInteger();
+
+    long start = System.nanoTime();
+    for (File repoDir : repos) {
+      executor.execute(() -> {
+        try (Git git = Git.open(repoDir)) {
+          Thread.sleep(LATENCY_MS);
+          git.fetch().call();
+          String branch = git.getRepository().getBranch();
+          behind.addAndGet(AheadBehind.count(git.getRepository(),
+                  git.getRepository().resolve("refs/heads/" + branch),
+                  git.getRepository().resolve("refs/remotes/origin/" + branch)).getBehind());
+        } catch (Exception ex) {
+          ex.printStackTrace();
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    assertTrue(done.await(10, TimeUnit.MINUTES));
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    base.shutdown();
+
+    assertEquals(repos.size(), behind.get());
+    return millis;
+  }
+
+  @Test
+  void compareExecutionModes() throws Exception {
+    assumeTrue(AsyncExecutors.isVirtualThreadsSupported(), "virtual threads not supported by this JVM");
+    // warm up
+    run(Settings.ExecutionMode.THREAD_POOL, POOL_SIZE);
+
+    long pool = run(Settings.ExecutionMode.THREAD_POOL, POOL_SIZE);
+    long virtualLimited = run(Settings.ExecutionMode.VIRTUAL_THREADS, POOL_SIZE);
+    long virtual = run(Settings.ExecutionMode.VIRTUAL_THREADS, REPO_COUNT);
+
+    System.out.printf("%d repos, %d ms latency:%n", REPO_COUNT, LATENCY_MS);
+    System.out.printf("  thread pool (%d threads):        %6d ms%n", POOL_SIZE, pool);
+    System.out.printf("  virtual threads (%d permits):    %6d ms%n", POOL_SIZE, virtualLimited);
+    System.out.printf("  virtual threads (full fan-out): %6d ms%n", virtual);
+  }
+}
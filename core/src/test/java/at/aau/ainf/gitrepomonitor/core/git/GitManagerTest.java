@@ -1,21 +1,41 @@
 package at.aau.ainf.gitrepomonitor.core.git;
 
 import at.aau.ainf.gitrepomonitor.core.authentication.Authenticator;
+import at.aau.ainf.gitrepomonitor.core.files.FileManager;
 import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LsRemoteCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.errors.NoRemoteRepositoryException;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -67,6 +87,16 @@ public class GitManagerTest {
     assertEquals(RepositoryInformation.RepoStatus.PULL_PUSH_AVAILABLE, status);
   }
 
+  @Test
+  void testGetStatus_RemoteBranchUnchanged() throws IOException {
+    GitManagerTestable gitManager = new GitManagerTestable();
+    gitManager.setRemoteBranchChanged(false);
+    // fetch must be skipped if remote branch head is unchanged
+    gitManager.throwOnFetchRepo(new TransportException("fetch not expected"));
+    RepositoryInformation.RepoStatus status = gitManager.getRepoStatus(getGitMock(), new Authenticator());
+    assertEquals(RepositoryInformation.RepoStatus.UP_TO_DATE, status);
+  }
+
   @Test
   void testGetStatus_NoRemoteBranch() throws IOException {
     GitManagerTestable gitManager = new GitManagerTestable();
@@ -119,4 +149,147 @@ public class GitManagerTest {
     RepositoryInformation.RepoStatus status = gitManager.getRepoStatus(getGitMock(true), new Authenticator());
     assertEquals(RepositoryInformation.RepoStatus.UNKNOWN_ERROR, status);
   }
+
+  @Test
+  void testGetLogPage(@TempDir File repoDir) throws Exception {
+    List<RevCommit> commits = new ArrayList<>();
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      for (int i = 0; i < 5; i++) {
+        new File(repoDir, "file" + i).createNewFile();
+        git.add().addFilepattern("file" + i).call();
+        commits.add(0, git.commit().setMessage("commit " + i).setSign(false).call());
+      }
+    }
+    GitManagerTestable gitManager = new GitManagerTestable();
+    RepositoryInformation repo = new RepositoryInformation(repoDir.getAbsolutePath());
+
+    List<CommitChange> page = gitManager.getLogPage(repo, null, 2);
+    assertEquals(2, page.size());
+    assertEquals(commits.get(0), page.get(0).getCommit());
+    assertFalse(page.get(0).isFileChangesLoaded());
+
+    page = gitManager.getLogPage(repo, page.get(1).getCommit(), 2);
+    assertEquals(commits.subList(2, 4), List.of(page.get(0).getCommit(), page.get(1).getCommit()));
+    page = gitManager.getLogPage(repo, page.get(1).getCommit(), 2);
+    assertEquals(1, page.size());
+    assertEquals(5, gitManager.getCommitCount(repo));
+
+    List<DiffEntry> changes = gitManager.getFileChanges(repo, page.get(0));
+    assertEquals(1, changes.size());
+    assertEquals("file0", changes.get(0).getNewPath());
+    assertEquals(DiffEntry.ChangeType.ADD, changes.get(0).getChangeType());
+  }
+
+  @Test
+  void testGetLogPagesWithMerges(@TempDir File repoDir) throws Exception {
+    List<RevCommit> expected = new ArrayList<>();
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      git.commit().setMessage("base").setSign(false).call();
+      git.branchCreate().setName("side").call();
+      for (int i = 0; i < 3; i++) {
+        git.commit().setMessage("main " + i).setSign(false).call();
+      }
+      git.checkout().setName("side").call();
+      for (int i = 0; i < 3; i++) {
+        git.commit().setMessage("side " + i).setSign(false).call();
+      }
+      git.checkout().setName("master").call();
+      git.merge().include(git.getRepository().resolve("side")).setMessage("merge").call();
+      try (RevWalk walk = new RevWalk(git.getRepository())) {
+        walk.markStart(walk.parseCommit(git.getRepository().resolve("HEAD")));
+        walk.forEach(expected::add);
+      }
+      assertEquals(8, expected.size());
+    }
+    GitManagerTestable gitManager = new GitManagerTestable();
+    RepositoryInformation repo = new RepositoryInformation(repoDir.getAbsolutePath());
+
+    // pages continue the open walk, also after the cached part of the log was dropped
+    List<RevCommit> loaded = new ArrayList<>();
+    List<CommitChange> page = gitManager.getLogPage(repo, null, 2);
+    while (!page.isEmpty()) {
+      page.forEach(change -> loaded.add(change.getCommit()));
+      if (loaded.size() == 4) {
+        gitManager.getCommitLogCache().clear();
+      }
+      page = gitManager.getLogPage(repo, loaded.get(loaded.size() - 1), 2);
+    }
+    assertEquals(expected, loaded);
+
+    // without the open walk, the previous pages are skipped
+    gitManager.getCommitLogCache().clear();
+    page = gitManager.getLogPage(repo, expected.get(2), 2);
+    assertEquals(expected.subList(3, 5), List.of(page.get(0).getCommit(), page.get(1).getCommit()));
+  }
+
+  @Test
+  void testGetLocalStatus(@TempDir File repoDir) throws Exception {
+    RevCommit commit;
+    try (Git git = Git.init().setDirectory(repoDir).call()) {
+      commit = git.commit().setMessage("initial").setSign(false).call();
+    }
+    GitManagerTestable gitManager = new GitManagerTestable();
+    RepositoryInformation repo = new RepositoryInformation(repoDir.getAbsolutePath());
+    assertEquals(RepositoryInformation.RepoStatus.NO_REMOTE, gitManager.getLocalRepoStatus(repo));
+
+    try (Git git = Git.open(repoDir)) {
+      git.getRepository().getConfig().setString("remote", "origin", "url", "https://example.com/repo.git");
+      git.getRepository().getConfig().save();
+    }
+    gitManager.setLocalChanges(true);
+    assertEquals(RepositoryInformation.RepoStatus.PUSH_AVAILABLE, gitManager.getLocalRepoStatus(repo));
+    assertEquals(1, repo.getAheadBehind().getAhead());
+    assertNull(repo.getLastFetched());
+
+    // merge state and time of last fetch are read from the Git dir
+    File gitDir = new File(repoDir, ".git");
+    Files.write(new File(gitDir, "FETCH_HEAD").toPath(), (commit.getName() + "\t\tbranch 'master'\n").getBytes());
+    Files.write(new File(gitDir, "MERGE_HEAD").toPath(), (commit.getName() + "\n").getBytes());
+    assertEquals(RepositoryInformation.RepoStatus.MERGE_NEEDED, gitManager.getLocalRepoStatus(repo));
+    assertNotNull(repo.getLastFetched());
+  }
+
+  @Test
+  void testStatusChecksWithoutCredentialsAreNotMergedWithUserCredentials(@TempDir File repoDir) throws Exception {
+    Git.init().setDirectory(repoDir).call().close();
+    RepositoryInformation repo = new RepositoryInformation(UUID.randomUUID(), repoDir.getAbsolutePath(), "repo",
+        RepositoryInformation.MergeStrategy.OURS, UUID.randomUUID());
+    // the first check blocks, so the following checks are queued behind it
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    FileManager fileManager = mock(FileManager.class);
+    when(fileManager.getRepo(repo.getID())).thenAnswer(inv -> {
+      if (calls.getAndIncrement() == 0) {
+        firstStarted.countDown();
+        release.await(5, TimeUnit.SECONDS);
+      }
+      return repo;
+    });
+    GitManagerTestable gitManager = new GitManagerTestable() {
+      @Override
+      protected FileManager createFileManager() {
+        return fileManager;
+      }
+    };
+
+    CompletableFuture<RepositoryInformation.RepoStatus> first =
+        gitManager.updateRepoStatusAsync(repo, credentials());
+    assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+    // e.g. a batch check which could not load the credentials, followed by a check of the user with credentials
+    CompletableFuture<RepositoryInformation.RepoStatus> withoutCredentials =
+        gitManager.updateRepoStatusAsync(repo, new Authenticator());
+    CompletableFuture<RepositoryInformation.RepoStatus> withCredentials =
+        gitManager.updateRepoStatusAsync(repo, credentials());
+    release.countDown();
+
+    assertEquals(RepositoryInformation.RepoStatus.UP_TO_DATE, first.get(5, TimeUnit.SECONDS));
+    assertEquals(RepositoryInformation.RepoStatus.UP_TO_DATE, withCredentials.get(5, TimeUnit.SECONDS));
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> withoutCredentials.get(5, TimeUnit.SECONDS));
+    assertTrue(ex.getCause() instanceof SecurityException);
+  }
+
+  private static Authenticator credentials() {
+    return new Authenticator(new UsernamePasswordCredentialsProvider("user", "password"));
+  }
 }
@@ -10,6 +10,7 @@ public class GitManagerTestable extends GitManager {
 
   private boolean localChanges = false;
   private boolean remoteChanges = false;
+  private boolean remoteBranchChanged = true;
   private GitAPIException throwOnFetchRepo;
   private RuntimeException throwOnFetchRepoRuntime;
   private IOException throwOnLocalChangesAvailable;
@@ -18,6 +19,21 @@ public class GitManagerTestable extends GitManager {
     // avoid super class constructor invocation
   }
 
+  @Override
+  protected HostScheduler createHostScheduler() {
+    return new HostScheduler(10, 4);
+  }
+
+  @Override
+  protected RepoCache createRepoCache() {
+    return new RepoCache(16);
+  }
+
+  @Override
+  protected CommitLogCache createCommitLogCache() {
+    return new CommitLogCache(1024 * 1024);
+  }
+
   @Override
   protected void fetchRepo(Git repoGit, Authenticator authenticator) throws GitAPIException {
     if (throwOnFetchRepo != null) {
@@ -28,6 +44,20 @@ public class GitManagerTestable extends GitManager {
     }
   }
 
+  @Override
+  protected boolean isProbeBeforeFetchEnabled() {
+    return true;
+  }
+
+  @Override
+  protected boolean isRemoteBranchChanged(Git repoGit, Authenticator authenticator) {
+    return remoteBranchChanged;
+  }
+
+  public void setRemoteBranchChanged(boolean remoteBranchChanged) {
+    this.remoteBranchChanged = remoteBranchChanged;
+  }
+
   public void setLocalChanges(boolean localChanges) {
     this.localChanges = localChanges;
   }
@@ -37,16 +67,11 @@ public class GitManagerTestable extends GitManager {
   }
 
   @Override
-  protected boolean localChangesAvailable(Git git) throws IOException, GitAPIException {
+  protected AheadBehind getAheadBehind(Git git) throws IOException, GitAPIException, IllegalStateException {
     if (throwOnLocalChangesAvailable != null) {
       throw throwOnLocalChangesAvailable;
     }
-    return localChanges;
-  }
-
-  @Override
-  protected boolean remoteChangesAvailable(Git git) throws IOException, GitAPIException, IllegalStateException {
-    return remoteChanges;
+    return new AheadBehind(localChanges ? 1 : 0, remoteChanges ? 1 : 0);
   }
 
   public void throwOnFetchRepo(GitAPIException ex) {
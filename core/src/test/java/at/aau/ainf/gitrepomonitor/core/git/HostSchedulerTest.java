@@ -0,0 +1,91 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostSchedulerTest {
+
+  @Test
+  void testGetHost() {
+    assertEquals("github.com", HostScheduler.getHost("https://GitHub.com/user/repo.git"));
+    assertEquals("github.com", HostScheduler.getHost("git@github.com:user/repo.git"));
+    assertEquals("example.org", HostScheduler.getHost("ssh://git@example.org:2222/repo.git"));
+    assertEquals(HostScheduler.LOCAL_HOST, HostScheduler.getHost("/srv/git/repo.git"));
+    assertEquals(HostScheduler.LOCAL_HOST, HostScheduler.getHost(null));
+  }
+
+  @Test
+  void testLimits() throws Exception {
+    HostScheduler scheduler = new HostScheduler(3, 2);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(8);
+    AtomicInteger runningA = new AtomicInteger();
+    AtomicInteger maxRunningA = new AtomicInteger();
+    AtomicInteger runningTotal = new AtomicInteger();
+    AtomicInteger maxRunningTotal = new AtomicInteger();
+
+    for (int i = 0; i < 8; i++) {
+      String host = i < 4 ? "a" : "host-" + i;
+      scheduler.submit(host, () -> {
+        int total = runningTotal.incrementAndGet();
+        maxRunningTotal.accumulateAndGet(total, Math::max);
+        if (host.equals("a")) {
+          maxRunningA.accumulateAndGet(runningA.incrementAndGet(), Math::max);
+        }
+        release.await();
+        if (host.equals("a")) {
+          runningA.decrementAndGet();
+        }
+        runningTotal.decrementAndGet();
+        done.countDown();
+        return true;
+      });
+    }
+    // host "a" must not take all slots
+    assertEquals(3, scheduler.getRunningCount());
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertTrue(maxRunningTotal.get() <= 3);
+    assertTrue(maxRunningA.get() <= 2);
+  }
+
+  @Test
+  void testBackoffOnError() throws Exception {
+    HostScheduler scheduler = new HostScheduler(10, 8);
+    int initialLimit = scheduler.getHostLimit("a");
+    CountDownLatch done = new CountDownLatch(1);
+    scheduler.submit("a", () -> {
+      done.countDown();
+      return false;
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    // wait for completion to be processed
+    while (scheduler.getRunningCount() > 0) {
+      Thread.sleep(10);
+    }
+    assertTrue(scheduler.getHostLimit("a") < initialLimit);
+  }
+
+  @Test
+  void testIncreaseOnSuccess() throws Exception {
+    HostScheduler scheduler = new HostScheduler(10, 8);
+    int initialLimit = scheduler.getHostLimit("a");
+    CountDownLatch done = new CountDownLatch(20);
+    for (int i = 0; i < 20; i++) {
+      scheduler.submit("a", () -> {
+        done.countDown();
+        return true;
+      });
+    }
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    while (scheduler.getRunningCount() > 0) {
+      Thread.sleep(10);
+    }
+    assertTrue(scheduler.getHostLimit("a") > initialLimit);
+  }
+}
@@ -0,0 +1,124 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepoBatchTest {
+
+  private final UUID a = UUID.randomUUID();
+  private final UUID b = UUID.randomUUID();
+  private final UUID c = UUID.randomUUID();
+
+  private final Map<UUID, CompletableFuture<Integer>> futures = new LinkedHashMap<>();
+
+  private RepoBatch<Integer> batch() {
+    futures.put(a, new CompletableFuture<>());
+    futures.put(b, new CompletableFuture<>());
+    futures.put(c, new CompletableFuture<>());
+    // negative results count as unsuccessful
+    return new RepoBatch<>(futures, value -> value >= 0);
+  }
+
+  @Test
+  void testSummary() {
+    RepoBatch<Integer> batch = batch();
+    futures.get(b).complete(-1);
+    futures.get(a).completeExceptionally(new IOException("not found"));
+    assertFalse(batch.getSummary().isDone());
+    futures.get(c).complete(2);
+
+    RepoBatch.Summary<Integer> summary = batch.getSummary().join();
+    assertEquals(3, summary.getTotalCount());
+    assertEquals(1, summary.getSuccessCount());
+    assertEquals(2, summary.getFailedCount());
+    assertFalse(summary.isSuccess());
+    assertEquals(List.of(b, c), new ArrayList<>(summary.getResults().keySet()));
+    assertTrue(summary.getErrors().get(a) instanceof IOException);
+  }
+
+  @Test
+  void testEmptyBatch() {
+    RepoBatch<Integer> batch = new RepoBatch<>(Map.of(), value -> true);
+    assertTrue(batch.getSummary().join().isSuccess());
+
+    Recorder recorder = new Recorder(1);
+    batch.subscribe(recorder);
+    assertTrue(recorder.isComplete);
+  }
+
+  @Test
+  void testCancel() {
+    RepoBatch<Integer> batch = batch();
+    futures.get(a).complete(1);
+    batch.cancel();
+    // results of operations still running are discarded
+    futures.get(b).complete(2);
+
+    RepoBatch.Summary<Integer> summary = batch.getSummary().join();
+    assertEquals(1, summary.getSuccessCount());
+    assertEquals(2, summary.getCancelledCount());
+    assertEquals(0, summary.getFailedCount());
+    assertTrue(batch.get(b).isCancelled());
+  }
+
+  @Test
+  void testResultsArePublishedOnDemand() {
+    RepoBatch<Integer> batch = batch();
+    futures.get(b).complete(1);
+
+    // late subscribers receive earlier results as well
+    Recorder recorder = new Recorder(1);
+    batch.subscribe(recorder);
+    assertEquals(List.of(b), recorder.repoIDs);
+
+    futures.get(c).complete(2);
+    futures.get(a).completeExceptionally(new IOException());
+    assertEquals(List.of(b), recorder.repoIDs);
+    assertFalse(recorder.isComplete);
+
+    recorder.subscription.request(5);
+    assertEquals(List.of(b, c, a), recorder.repoIDs);
+    assertTrue(recorder.isComplete);
+    assertFalse(recorder.results.get(2).isSuccess());
+  }
+
+  private static class Recorder implements Flow.Subscriber<RepoBatch.Result<Integer>> {
+    private final long initialDemand;
+    private final List<UUID> repoIDs = new ArrayList<>();
+    private final List<RepoBatch.Result<Integer>> results = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private boolean isComplete;
+
+    private Recorder(long initialDemand) {
+      this.initialDemand = initialDemand;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initialDemand);
+    }
+
+    @Override
+    public void onNext(RepoBatch.Result<Integer> item) {
+      repoIDs.add(item.getRepoID());
+      results.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      isComplete = true;
+    }
+  }
+}
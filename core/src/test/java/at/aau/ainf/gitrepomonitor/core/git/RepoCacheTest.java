@@ -0,0 +1,62 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepoCacheTest {
+
+  @TempDir
+  File dir;
+
+  private String createRepo(String name) throws Exception {
+    File repoDir = new File(dir, name);
+    Git.init().setDirectory(repoDir).call().close();
+    return repoDir.getAbsolutePath();
+  }
+
+  @Test
+  void testSameRepository() throws Exception {
+    RepoCache cache = new RepoCache(2);
+    String path = createRepo("a");
+    try (Git git1 = cache.open(path); Git git2 = cache.open(path)) {
+      assertSame(git1.getRepository(), git2.getRepository());
+    }
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void testEviction() throws Exception {
+    RepoCache cache = new RepoCache(2);
+    String a = createRepo("a");
+    String b = createRepo("b");
+    String c = createRepo("c");
+
+    try (Git gitA = cache.open(a)) {
+      cache.open(b).close();
+      cache.open(a).close();
+      cache.open(c).close();
+      // "b" is least recently used
+      assertEquals(2, cache.size());
+      assertTrue(cache.contains(a));
+      assertFalse(cache.contains(b));
+      assertTrue(cache.contains(c));
+
+      // evicted repo still usable by holder of a lease
+      cache.invalidate(a);
+      assertNotNull(gitA.getRepository().getBranch());
+    }
+  }
+
+  @Test
+  void testInvalidPath() {
+    RepoCache cache = new RepoCache(2);
+    assertThrows(RepositoryNotFoundException.class, () -> cache.open(new File(dir, "missing").getAbsolutePath()));
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,87 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepoOperationQueueTest {
+
+  @Test
+  void testOperationsOfRepoRunInOrder() throws Exception {
+    RepoOperationQueue queue = new RepoOperationQueue();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch releaseA = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(3);
+
+    queue.submit("a", null, "a1", (requests, done) -> executor.execute(() -> {
+      try {
+        releaseA.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ignored) {
+      }
+      order.add(requests.get(0));
+      done.run();
+      finished.countDown();
+    }));
+    queue.submit("a", null, "a2", (requests, done) -> executor.execute(() -> {
+      order.add(requests.get(0));
+      done.run();
+      finished.countDown();
+    }));
+    // other repos are not blocked by the running operation
+    CountDownLatch otherRepo = new CountDownLatch(1);
+    queue.submit("b", null, "b1", (requests, done) -> executor.execute(() -> {
+      order.add(requests.get(0));
+      done.run();
+      otherRepo.countDown();
+      finished.countDown();
+    }));
+    assertTrue(otherRepo.await(5, TimeUnit.SECONDS));
+    assertEquals(2, queue.getQueuedCount("a"));
+
+    releaseA.countDown();
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("b1", "a1", "a2"), order);
+    assertEquals(0, queue.getQueuedCount("a"));
+    executor.shutdown();
+  }
+
+  @Test
+  void testPendingOperationsAreCoalesced() {
+    RepoOperationQueue queue = new RepoOperationQueue();
+    List<Runnable> running = new ArrayList<>();
+    List<List<String>> started = new ArrayList<>();
+    RepoOperationQueue.Operation<String> check = (requests, done) -> {
+      started.add(new ArrayList<>(requests));
+      running.add(done);
+    };
+
+    assertFalse(queue.submit("a", "status", "1", check));
+    // the running check is not merged, since it may have read the state already
+    assertFalse(queue.submit("a", "status", "2", check));
+    assertTrue(queue.submit("a", "status", "3", check));
+    assertFalse(queue.submit("a", null, "pull", check));
+    // checks submitted after another operation are not moved before it
+    assertFalse(queue.submit("a", "status", "4", check));
+    assertTrue(queue.submit("a", "status", "5", check));
+    assertEquals(List.of(List.of("1")), started);
+
+    running.get(0).run();
+    // reporting done twice must not start further operations
+    running.get(0).run();
+    assertEquals(List.of(List.of("1"), List.of("2", "3")), started);
+    running.get(1).run();
+    running.get(2).run();
+    assertEquals(List.of(List.of("1"), List.of("2", "3"), List.of("pull"), List.of("4", "5")), started);
+    running.get(3).run();
+    assertEquals(0, queue.getQueuedCount("a"));
+  }
+}
@@ -0,0 +1,75 @@
+package at.aau.ainf.gitrepomonitor.core.git;
+
+import at.aau.ainf.gitrepomonitor.core.authentication.SecureStorage;
+import at.aau.ainf.gitrepomonitor.core.files.FileManager;
+import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
+import at.aau.ainf.gitrepomonitor.core.files.WatchStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static at.aau.ainf.gitrepomonitor.core.git.WatchScheduler.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WatchSchedulerTest {
+
+  @Test
+  void testIntervalShrinksOnChange() {
+    long interval = INITIAL_INTERVAL;
+    for (int i = 0; i < 10; i++) {
+      long next = nextInterval(interval, true);
+      assertTrue(next <= interval);
+      interval = next;
+    }
+    assertEquals(MIN_INTERVAL, interval);
+  }
+
+  @Test
+  void testIntervalGrowsWithoutChange() {
+    long interval = INITIAL_INTERVAL;
+    for (int i = 0; i < 20; i++) {
+      long next = nextInterval(interval, false);
+      assertTrue(next >= interval);
+      interval = next;
+    }
+    assertEquals(MAX_INTERVAL, interval);
+  }
+
+  @Test
+  void testJitter() {
+    for (int i = 0; i < 100; i++) {
+      long delay = jitter(MIN_INTERVAL);
+      assertTrue(delay >= MIN_INTERVAL * 0.85 && delay <= MIN_INTERVAL * 1.15);
+    }
+  }
+
+  @Test
+  void testSkippedCheckKeepsInterval() {
+    assertFalse(SecureStorage.getImplementation().isMasterPasswordCached());
+    RepositoryInformation repo = new RepositoryInformation(UUID.randomUUID(), "/repo", "repo",
+        RepositoryInformation.MergeStrategy.RECURSIVE, UUID.randomUUID());
+    FileManager fileManager = mock(FileManager.class);
+    when(fileManager.getWatchlist()).thenReturn(List.of(repo));
+    when(fileManager.getRepo(repo.getID())).thenReturn(repo);
+    when(fileManager.getListName(repo.getID())).thenReturn(FileManager.RepoList.WATCH);
+    when(fileManager.getWatchStatistics()).thenReturn(Map.of(repo.getID(),
+        new WatchStatistics(repo.getID(), INITIAL_INTERVAL, System.currentTimeMillis() + 500, 0)));
+    GitManager gitManager = mock(GitManager.class);
+
+    WatchScheduler scheduler = new WatchScheduler(gitManager, fileManager);
+    scheduler.start();
+    try {
+      // the repo needs credentials, but the master password is not cached, so the check is skipped
+      verify(fileManager, timeout(5000)).getListName(repo.getID());
+      verify(fileManager, after(200).never()).storeWatchStatisticsAsync(any());
+      verify(gitManager, never()).updateRepoStatusInBackground(any(), any());
+      assertEquals(INITIAL_INTERVAL, scheduler.getPollInterval(repo.getID()));
+    } finally {
+      scheduler.stop();
+    }
+  }
+}
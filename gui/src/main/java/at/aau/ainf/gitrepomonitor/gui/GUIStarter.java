@@ -1,6 +1,9 @@
 package at.aau.ainf.gitrepomonitor.gui;
 
 import at.aau.ainf.gitrepomonitor.core.authentication.SecureStorage;
+import at.aau.ainf.gitrepomonitor.core.files.AsyncExecutors;
+import at.aau.ainf.gitrepomonitor.core.files.FileManager;
+import at.aau.ainf.gitrepomonitor.core.files.Settings;
 import at.aau.ainf.gitrepomonitor.gui.ResourceStore;
 import at.aau.ainf.gitrepomonitor.gui.main.ControllerMain;
 import at.aau.ainf.gitrepomonitor.gui.reposcan.ControllerScan;
@@ -33,6 +36,8 @@ public class GUIStarter extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
         this.primaryStage = primaryStage;
+        // execution mode must be set before any async operation is started
+        AsyncExecutors.setExecutionMode(Settings.getSettings().getExecutionMode());
         // set resource bundle for easy access
         ResourceStore.setResourceBundle(
                 ResourceBundle.getBundle("at.aau.ainf.gitrepomonitor.localization.lang", Locale.ENGLISH));
@@ -50,6 +55,14 @@ public class GUIStarter extends Application {
         primaryStage.setMinHeight(primaryStage.getHeight());
     }
 
+    /**
+     * Write pending changes before the application exits.
+     */
+    @Override
+    public void stop() {
+        FileManager.getInstance().flush();
+    }
+
     /**
      * Event interceptor for showing a confirmation dialog if user attempts to close application
      * while a repo scan is still running.
@@ -6,6 +6,7 @@ import at.aau.ainf.gitrepomonitor.core.authentication.AuthenticationCredentials;
 import at.aau.ainf.gitrepomonitor.core.authentication.SecureStorage;
 import at.aau.ainf.gitrepomonitor.gui.AlertDisplay;
 import at.aau.ainf.gitrepomonitor.gui.ResourceStore;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -106,7 +107,7 @@ public class ControllerAuthList implements Initializable, AlertDisplay, Property
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        updateAuthLists();
+        Platform.runLater(this::updateAuthLists);
     }
 
     /**
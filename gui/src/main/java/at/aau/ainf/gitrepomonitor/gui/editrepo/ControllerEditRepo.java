@@ -462,6 +462,6 @@ public class ControllerEditRepo implements Initializable, AlertDisplay, MasterPa
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        updateRepoDisplay(repo);
+        Platform.runLater(() -> updateRepoDisplay(repo));
     }
 }
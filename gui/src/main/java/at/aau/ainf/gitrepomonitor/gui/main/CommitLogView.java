@@ -1,6 +1,8 @@
 package at.aau.ainf.gitrepomonitor.gui.main;
 
+import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
 import at.aau.ainf.gitrepomonitor.core.git.CommitChange;
+import at.aau.ainf.gitrepomonitor.core.git.GitManager;
 import at.aau.ainf.gitrepomonitor.gui.ResourceStore;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -21,6 +23,8 @@ import java.util.concurrent.TimeUnit;
  * Also supports dynamic loading of commits as user scrolls down.
  */
 public class CommitLogView extends AnchorPane {
+    // number of commits loaded per page
+    public static final int PAGE_SIZE = 20;
 
     @FXML
     private VBox containerCommitLog;
@@ -34,6 +38,10 @@ public class CommitLogView extends AnchorPane {
     private int currentCommitLogDisplayIndex;      // index up to which changes are currently displayed
     private ScheduledThreadPoolExecutor timer;
     private int newCommitCount;
+    // repo from which further pages are loaded (null if the whole log is set)
+    private RepositoryInformation repo;
+    private boolean pageLoading;
+    private boolean allPagesLoaded;
 
     public CommitLogView() {
         // load FXML and setup GUI
@@ -79,11 +87,22 @@ public class CommitLogView extends AnchorPane {
      * @param newCommitCount Number of commits that should be marked as "new" (starting from the top)
      */
     public void setCommitLog(List<CommitChange> currentCommitLog, int newCommitCount) {
+        setCommitLog(null, currentCommitLog, newCommitCount);
+    }
+
+    /**
+     * Set first page of the commit log to display. Further pages are loaded from the repo as user scrolls down.
+     * @param repo Repo to load further pages from (if null, no further pages are loaded)
+     * @param firstPage First page of the commit log (see {@link GitManager#getLogPage})
+     * @param newCommitCount Number of commits that should be marked as "new" (starting from the top)
+     */
+    public void setCommitLog(RepositoryInformation repo, List<CommitChange> firstPage, int newCommitCount) {
         synchronized (lock) {       // avoid any problems with quickly switching between selected repos
-            if (currentCommitLog == null) {
-                currentCommitLog = new ArrayList<>();
-            }
+            List<CommitChange> currentCommitLog = firstPage == null ? new ArrayList<>() : new ArrayList<>(firstPage);
 
+            this.repo = repo;
+            this.pageLoading = false;
+            this.allPagesLoaded = repo == null || currentCommitLog.size() < PAGE_SIZE;
             this.newCommitCount = newCommitCount;
             this.currentCommitLog = currentCommitLog;
             displayCommitChanges(newCommitCount);
@@ -99,7 +118,9 @@ public class CommitLogView extends AnchorPane {
         scrollPane.vvalueProperty().addListener((observable, oldValue, newValue) -> {
             // load 10 more commits if scrolled in the bottom 25% of the list
             if ((double)newValue > scrollPane.getVmax() * 0.75) {
-                loadMoreCommitChanges(currentCommitLogDisplayIndex, 10, newCommitCount);
+                if (loadMoreCommitChanges(currentCommitLogDisplayIndex, 10, newCommitCount) == 0) {
+                    loadNextPage();
+                }
             }
         });
 
@@ -129,13 +150,46 @@ public class CommitLogView extends AnchorPane {
         }
     }
 
+    /**
+     * Asynchronously load the next page of commits from the repo and display it.
+     */
+    private void loadNextPage() {
+        synchronized (lock) {
+            if (pageLoading || allPagesLoaded || currentCommitLog.isEmpty()) {
+                return;
+            }
+            pageLoading = true;
+            RepositoryInformation pageRepo = repo;
+            List<CommitChange> pageCommitLog = currentCommitLog;
+            CommitChange lastCommit = currentCommitLog.get(currentCommitLog.size() - 1);
+
+            GitManager.getInstance().getLogPageAsync(pageRepo, lastCommit.getCommit(), PAGE_SIZE,
+                    (success, changes, ex) -> Platform.runLater(() -> {
+                        synchronized (lock) {
+                            // discard page if another commit log was set in the meantime
+                            if (pageCommitLog != currentCommitLog) {
+                                return;
+                            }
+                            pageLoading = false;
+                            if (!success || changes.size() < PAGE_SIZE) {
+                                allPagesLoaded = true;
+                            }
+                            if (success) {
+                                currentCommitLog.addAll(changes);
+                                loadMoreCommitChanges(currentCommitLogDisplayIndex, changes.size(), newCommitCount);
+                            }
+                        }
+                    }));
+        }
+    }
+
     /**
      * Create new commit view and append to list.
      * @param commitChange Commit
      * @param isNew If true, commit is marked as "new"
      */
     private void addCommitView(CommitChange commitChange, boolean isNew) {
-        CommitView commitView = new CommitView(commitChange);
+        CommitView commitView = new CommitView(commitChange, repo);
         commitView.setNew(isNew);
         containerCommitLog.getChildren().add(commitView);
     }
@@ -151,5 +205,9 @@ public class CommitLogView extends AnchorPane {
         currentCommitLogDisplayIndex = 0;
         int numVisibleEntries = (int)(this.getHeight() / CommitView.MIN_HEIGHT) + 1;
         loadMoreCommitChanges(0, Math.min(currentCommitLog.size(), numVisibleEntries), newCommitCount);
+        // load more commits if loaded ones do not fill up the visible portion of the log
+        if (numVisibleEntries > currentCommitLog.size()) {
+            loadNextPage();
+        }
     }
 }
@@ -1,7 +1,10 @@
 package at.aau.ainf.gitrepomonitor.gui.main;
 
+import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
 import at.aau.ainf.gitrepomonitor.core.git.CommitChange;
+import at.aau.ainf.gitrepomonitor.core.git.GitManager;
 import at.aau.ainf.gitrepomonitor.gui.ResourceStore;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Hyperlink;
@@ -62,6 +65,16 @@ public class CommitView extends Region {
     private static DateFormat df = new SimpleDateFormat(ResourceStore.getString("date_time_format"));
 
     public CommitView(CommitChange commitChange) {
+        this(commitChange, null);
+    }
+
+    /**
+     * Create view of a commit. If the file changes of the commit are not loaded yet,
+     * they are computed when the user expands them.
+     * @param commitChange Commit
+     * @param repo Repo containing the commit (required if file changes are not loaded)
+     */
+    public CommitView(CommitChange commitChange, RepositoryInformation repo) {
         // load FXML and setup GUI
         if (loader == null) {
             loader = new FXMLLoader(
@@ -86,7 +99,11 @@ public class CommitView extends Region {
         ttUsername.setText(getFullAuthorName(commitChange.getCommit().getAuthorIdent()));
         lblNewChange.managedProperty().bind(lblNewChange.visibleProperty());
 
-        addFileChanges(commitChange.getFileChanges());
+        if (commitChange.isFileChangesLoaded()) {
+            addFileChanges(commitChange.getFileChanges());
+        } else if (repo != null) {
+            addFileChangesLink(commitChange, repo);
+        }
 
         this.getChildren().add(containerMain);
     }
@@ -139,6 +156,30 @@ public class CommitView extends Region {
         }
     }
 
+    /**
+     * Add a link which computes and lists the file changes of the commit once clicked.
+     * @param commitChange Commit without loaded file changes
+     * @param repo Repo containing the commit
+     */
+    private void addFileChangesLink(CommitChange commitChange, RepositoryInformation repo) {
+        Hyperlink linkShowChanges = new Hyperlink(ResourceStore.getString("commitlog.show_changes"));
+        linkShowChanges.setOnAction(event -> {
+            linkShowChanges.setDisable(true);
+            GitManager.getInstance().getFileChangesAsync(repo, commitChange, (success, fileChanges, ex) ->
+                    Platform.runLater(() -> {
+                        boxFileChanges.getChildren().remove(linkShowChanges);
+                        if (success) {
+                            for (DiffEntry fileChange : fileChanges) {
+                                boxFileChanges.getChildren().add(new FileChange(fileChange));
+                            }
+                        } else {
+                            boxFileChanges.getChildren().add(new Label(ex.getMessage()));
+                        }
+                    }));
+        });
+        boxFileChanges.getChildren().add(linkShowChanges);
+    }
+
     public void setNew(boolean isNew) {
         lblNewChange.setVisible(isNew);
     }
@@ -84,6 +84,12 @@ public class ControllerMain extends StatusBarController implements Initializable
     private GitManager gitManager;
     private SecureStorage secureStorage;
     private List<PullCallback.PullResult> pullResults;
+    // last commit of the repo whose commit log is displayed
+    private String displayedLogHead;
+    // incremented for every loaded commit log, so results of outdated requests are dropped
+    private int commitLogRequest;
+    // true while the branch selection is set programmatically (must not trigger a checkout)
+    private boolean isUpdatingBranches;
 
     /**
      * Get FXML loader for this GUI component.
@@ -120,7 +126,8 @@ public class ControllerMain extends StatusBarController implements Initializable
 
         gitManager = GitManager.getInstance();
         gitManager.setPullListener(this);
-        // check repo status
+        // show status from the last fetch right away, then check repo status
+        gitManager.updateWatchlistLocalStatusAsync((success, reposChecked, reposFailed, ex) -> {});
         gitManager.updateWatchlistStatusAsync((success, reposChecked, reposFailed, ex) -> {
             if (!success) {
                 displayStatus(ResourceStore.getString("status.updated_n_of_m_repo_status_require_mp",
@@ -130,6 +137,10 @@ public class ControllerMain extends StatusBarController implements Initializable
                         reposChecked));
             }
         });
+        // keep checking repo status in background
+        if (Settings.getSettings().isBackgroundChecksEnabled()) {
+            WatchScheduler.getInstance().start();
+        }
         secureStorage = SecureStorage.getImplementation();
         setupUI();
     }
@@ -278,6 +289,9 @@ public class ControllerMain extends StatusBarController implements Initializable
      */
     private void setupSwitchBranch() {
         cbBoxBranch.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            if (isUpdatingBranches) {
+                return;
+            }
             try {
                 RepositoryInformation repo = tblWatchlist.getSelectionModel().getSelectedItem();
                 if (oldValue != null && repo != null && newValue != null) {
@@ -321,6 +335,7 @@ public class ControllerMain extends StatusBarController implements Initializable
      * @param repo Repo to update branches for.
      */
     private void updateBranches(RepositoryInformation repo) {
+        isUpdatingBranches = true;
         try {
             Collection<Branch> branchNames;
             try {
@@ -341,6 +356,26 @@ public class ControllerMain extends StatusBarController implements Initializable
         } catch (Exception e) {
             cbBoxBranch.setItems(null);
             cbBoxBranch.setDisable(true);
+        } finally {
+            isUpdatingBranches = false;
+        }
+    }
+
+    /**
+     * Update branch selection and commit log of the selected repo if its state was changed
+     * (e.g. by a checkout or commit outside of the application).
+     * @param repo Selected repo
+     */
+    private void updateSelectedRepoState(RepositoryInformation repo) {
+        if (!Objects.equals(repo.getLastCommitID(), displayedLogHead)) {
+            updateCommitLog(repo);
+        }
+        try {
+            if (!gitManager.getSelectedBranch(repo.getPath()).equals(cbBoxBranch.getValue())) {
+                updateBranches(repo);
+            }
+        } catch (IOException e) {
+            updateBranches(repo);
         }
     }
 
@@ -350,19 +385,36 @@ public class ControllerMain extends StatusBarController implements Initializable
      */
     private void updateCommitLog(RepositoryInformation repo) {
         if (repo != null) {
-            gitManager.getLogAsync(repo, (success, changes, ex) -> Platform.runLater(() -> {
-                if (success) {
-                    lblCommitLog.setText(ResourceStore.getString("commitlog.status", changes.size()));
-                    commitLogView.setCommitLog(changes, repo.getNewCommitCount());
-                } else {
-                    lblCommitLog.setText(ResourceStore.getString("commitlog.no_commits"));
-                    commitLogView.setCommitLog(null);
-                    displayStatus(ex.getMessage());
-                }
-            }));
+            displayedLogHead = repo.getLastCommitID();
+            int request = ++commitLogRequest;
+            gitManager.getLogPageAsync(repo, null, CommitLogView.PAGE_SIZE, (success, changes, ex) ->
+                Platform.runLater(() -> {
+                    if (success) {
+                        // further pages are loaded on scroll, the commit count is shown once counted
+                        lblCommitLog.setText("");
+                        commitLogView.setCommitLog(repo, changes, repo.getNewCommitCount());
+                        updateCommitCount(repo, request);
+                    } else {
+                        lblCommitLog.setText(ResourceStore.getString("commitlog.no_commits"));
+                        commitLogView.setCommitLog(null);
+                        displayStatus(ex.getMessage());
+                    }
+                }));
         }
     }
 
+    /**
+     * Count the commits of {@code repo} in background (metadata only) and show the count.
+     * @param request Commit log request the count belongs to (not shown if another log was requested meanwhile)
+     */
+    private void updateCommitCount(RepositoryInformation repo, int request) {
+        gitManager.getCommitCountAsync(repo).thenAccept(commitCount -> Platform.runLater(() -> {
+            if (request == commitLogRequest) {
+                lblCommitLog.setText(ResourceStore.getString("commitlog.status", commitCount));
+            }
+        }));
+    }
+
     @FXML
     public void btnScanClicked(ActionEvent actionEvent) {
         try {
@@ -424,6 +476,10 @@ public class ControllerMain extends StatusBarController implements Initializable
                 setWatchlistDisplay((Collection<RepositoryInformation>)e.getNewValue());
             } else if (e.getPropertyName().equals("repoStatus")) {
                 tblWatchlist.refresh();
+                RepositoryInformation selectedRepo = tblWatchlist.getSelectionModel().getSelectedItem();
+                if (selectedRepo != null && selectedRepo.equals(e.getNewValue())) {
+                    updateSelectedRepoState(selectedRepo);
+                }
             }
         });
     }
@@ -609,4 +665,10 @@ public class ControllerMain extends StatusBarController implements Initializable
         });
 
     }
+
+    @Override
+    public void writeFailed(Exception ex) {
+        showError(ResourceStore.getString("main.write_failed.header"),
+                ResourceStore.getString("main.write_failed.content", ex.getMessage()));
+    }
 }
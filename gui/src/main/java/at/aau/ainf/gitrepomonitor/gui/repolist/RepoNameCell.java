@@ -2,6 +2,7 @@ package at.aau.ainf.gitrepomonitor.gui.repolist;
 
 import at.aau.ainf.gitrepomonitor.core.files.FileManager;
 import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
+import at.aau.ainf.gitrepomonitor.core.git.AheadBehind;
 import at.aau.ainf.gitrepomonitor.gui.ResourceStore;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -13,11 +14,16 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 
 import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Custom cell used to display repo info in table.
  */
 public class RepoNameCell extends TableCell<RepositoryInformation, RepositoryInformation> {
+    private static final DateFormat df = new SimpleDateFormat(ResourceStore.getString("date_time_format"));
 
     @FXML
     private Label lblName;
@@ -29,6 +35,8 @@ public class RepoNameCell extends TableCell<RepositoryInformation, RepositoryInf
     private Label lblIcon;
     @FXML
     private Label lblNewChange;
+    @FXML
+    private Label lblAheadBehind;
 
     private FXMLLoader loader;
     private FileManager fileManager;
@@ -69,6 +77,7 @@ public class RepoNameCell extends TableCell<RepositoryInformation, RepositoryInf
             lblName.setText(item.toString());
             setIcon(item);
             setNewChange(item);
+            setAheadBehind(item);
             setGraphic(container);
         }
     }
@@ -78,6 +87,18 @@ public class RepoNameCell extends TableCell<RepositoryInformation, RepositoryInf
         lblNewChange.setManaged(item.hasNewChanges());
     }
 
+    /**
+     * Display number of commits ahead of / behind the remote branch if any.
+     * @param item Repo to display counts of
+     */
+    private void setAheadBehind(RepositoryInformation item) {
+        AheadBehind aheadBehind = item.getAheadBehind();
+        boolean display = aheadBehind != null && (aheadBehind.isAhead() || aheadBehind.isBehind());
+        lblAheadBehind.setText(display ? aheadBehind.toString() : null);
+        lblAheadBehind.setVisible(display);
+        lblAheadBehind.setManaged(display);
+    }
+
     private void setIcon(RepositoryInformation item) {
         iconAttention.setVisible(true);
         String imgPath = null;
@@ -125,11 +146,41 @@ public class RepoNameCell extends TableCell<RepositoryInformation, RepositoryInf
                 break;
         }
         if (imgPath != null) {
+            String tooltip = ResourceStore.getString(tooltipKey);
+            // status loaded from last session is displayed faded until it is re-checked
+            if (item.isStale()) {
+                tooltip += "\n" + (item.getLastChecked() != null ?
+                        ResourceStore.getString("status.repo.stale_checked", df.format(item.getLastChecked())) :
+                        ResourceStore.getString("status.repo.stale"));
+            } else if (item.isLocalStatus()) {
+                // status determined without network access
+                tooltip += "\n" + (item.getLastFetched() != null ?
+                        ResourceStore.getString("status.repo.local", formatAge(item.getLastFetched())) :
+                        ResourceStore.getString("status.repo.local_never_fetched"));
+            }
+            iconAttention.setOpacity(item.isStale() ? 0.5 : 1.0);
             iconAttention.setImage(ResourceStore.getImage(imgPath));
-            lblIcon.setTooltip(new Tooltip(ResourceStore.getString(tooltipKey)));
+            lblIcon.setTooltip(new Tooltip(tooltip));
         } else {
             iconAttention.setVisible(false);
             lblIcon.setTooltip(null);
         }
     }
+
+    /**
+     * @param date Date in the past
+     * @return Time passed since the date, e.g. "3 hours ago"
+     */
+    private static String formatAge(Date date) {
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - date.getTime());
+        if (minutes < 1) {
+            return ResourceStore.getString("time.just_now");
+        } else if (minutes < 60) {
+            return ResourceStore.getString("time.minutes_ago", minutes);
+        } else if (minutes < TimeUnit.DAYS.toMinutes(1)) {
+            return ResourceStore.getString("time.hours_ago", TimeUnit.MINUTES.toHours(minutes));
+        } else {
+            return ResourceStore.getString("time.days_ago", TimeUnit.MINUTES.toDays(minutes));
+        }
+    }
 }
\ No newline at end of file
@@ -1,20 +1,22 @@
 package at.aau.ainf.gitrepomonitor.gui.reposcan;
 
-import at.aau.ainf.gitrepomonitor.core.files.FileManager;
+import at.aau.ainf.gitrepomonitor.core.files.DirectoryIndex;
+import at.aau.ainf.gitrepomonitor.core.files.RepoIngestor;
 import at.aau.ainf.gitrepomonitor.core.files.RepoScanCallback;
 import at.aau.ainf.gitrepomonitor.core.files.RepoScanner;
-import at.aau.ainf.gitrepomonitor.core.files.RepositoryInformation;
 import at.aau.ainf.gitrepomonitor.gui.ResourceStore;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Async task scanning for repos.
  */
 public class RepoSearchTask extends Task<Integer> {
-    private int scannedDirCount = 0;
+    // incremented concurrently by the scanner threads
+    private final AtomicInteger scannedDirCount = new AtomicInteger();
     private int foundRepoCount = 0;
     private RepoScanner repoScanner;
 
@@ -29,32 +31,42 @@ public class RepoSearchTask extends Task<Integer> {
 
     @Override
     protected Integer call() {
+        // only directories changed since the last scan are listed
+        File indexFile = DirectoryIndex.getDefaultFile();
+        DirectoryIndex directoryIndex = DirectoryIndex.load(indexFile);
+        this.repoScanner.setDirectoryIndex(directoryIndex);
+        // found repos are added in batches, each updating the UI once
+        RepoIngestor ingestor = new RepoIngestor(addedRepos -> Platform.runLater(() -> {
+            foundRepoCount += addedRepos.size();
+            updateStatusMessage();
+        }));
         this.repoScanner.scanForRepos(new RepoScanCallback() {
             @Override
             public void repoFound(File dir) {
-                FileManager.getInstance().addToFoundReposAsync(new RepositoryInformation(dir.getPath()),
-                        (success, ex) -> {
-                            Platform.runLater(() -> {
-                                foundRepoCount++;
-                                updateStatusMessage();
-                            });
-                        });
+                ingestor.submit(dir);
             }
 
             @Override
             public void dirScanned() {
-                scannedDirCount++;
+                scannedDirCount.incrementAndGet();
                 updateStatusMessage();
             }
         });
-        return scannedDirCount;
+        // also stored if cancelled, so the next scan resumes from there
+        directoryIndex.store(indexFile);
+        try {
+            ingestor.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return scannedDirCount.get();
     }
 
     /**
      * Set message property according to current status.
      */
     private void updateStatusMessage() {
-        updateMessage(ResourceStore.getString("scanpc.scan_status", scannedDirCount, foundRepoCount));
+        updateMessage(ResourceStore.getString("scanpc.scan_status", scannedDirCount.get(), foundRepoCount));
     }
 
     public boolean isStopped() {